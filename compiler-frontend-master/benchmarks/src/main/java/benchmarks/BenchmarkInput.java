@@ -0,0 +1,90 @@
+package benchmarks;
+
+import analyzers.lexical.LexicalAnalyzer;
+import analyzers.lexical.ScanMode;
+import generator.GeneratorOptions;
+import generator.ProgramGenerator;
+import model.token.TokenSource;
+import model.token.TokenStream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Arquivos de entrada de um benchmark: "tests" são os programas de exemplo da pasta tests/
+// (ou da pasta indicada em -Dbenchmark.tests); um número é a quantidade de linhas de um programa gerado por
+// ProgramGenerator com as opções padrão.
+public class BenchmarkInput {
+    private final List<Path> files;
+    private long lineCount;
+    private long tokenCount;
+
+    // Os tokens são contados em modo STREAMING, sem manter a sequência inteira em memória
+    private BenchmarkInput(List<Path> files) throws IOException {
+        this.files = files;
+
+        for (Path file : files) {
+            TokenSource tokens = new LexicalAnalyzer(file, ScanMode.STREAMING).getTokenSource();
+
+            for (int i = 0; tokens.fetch(i); i++) {
+                tokens.discardBefore(i);
+                this.tokenCount++;
+            }
+
+            try (Stream<String> lines = Files.lines(file)) {
+                this.lineCount += lines.count();
+            }
+        }
+    }
+
+    public static BenchmarkInput load(String input) throws IOException {
+        if (input.equals("tests")) {
+            try (Stream<Path> files = Files.list(Paths.get(System.getProperty("benchmark.tests", "tests")))) {
+                return new BenchmarkInput(files.sorted().collect(Collectors.toList()));
+            }
+        }
+
+        Path file = Files.createTempFile("benchmark-" + input + "-", ".txt");
+        file.toFile().deleteOnExit();
+
+        GeneratorOptions options = new GeneratorOptions();
+        options.setLines(Integer.parseInt(input));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            new ProgramGenerator(options).generate(writer);
+        }
+
+        List<Path> files = new ArrayList<>();
+        files.add(file);
+        return new BenchmarkInput(files);
+    }
+
+    public List<Path> getFiles() {
+        return files;
+    }
+
+    // Tokens de cada arquivo, para os benchmarks do sintático e do semântico
+    public List<TokenStream> lex() throws IOException {
+        List<TokenStream> tokens = new ArrayList<>();
+
+        for (Path file : this.files) {
+            tokens.add(new LexicalAnalyzer(file, ScanMode.CHAR_STREAM).getTokenStream());
+        }
+
+        return tokens;
+    }
+
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    public long getTokenCount() {
+        return tokenCount;
+    }
+}
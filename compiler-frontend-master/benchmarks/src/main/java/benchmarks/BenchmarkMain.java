@@ -0,0 +1,37 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+// Executa os benchmarks pelo Main do JMH, que também trata -h, -l, -lp e -lprof, com o profiler de GC (taxa de
+// alocação por fase) acrescentado às opções de linha de comando quando elas ainda não o pedem
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        String[] options = args;
+
+        if (!hasGCProfiler(args)) {
+            options = Arrays.copyOf(new String[] { "-prof", "gc" }, args.length + 2);
+            System.arraycopy(args, 0, options, 2, args.length);
+        }
+
+        org.openjdk.jmh.Main.main(options);
+    }
+
+    // O JMH recusa o mesmo profiler duas vezes. Opções inválidas ficam como estão para o Main do JMH informar o erro
+    private static boolean hasGCProfiler(String[] args) {
+        try {
+            for (ProfilerConfig profiler : new CommandLineOptions(args).getProfilers()) {
+                if (profiler.getKlass().equals("gc")) {
+                    return true;
+                }
+            }
+        } catch (CommandLineOptionException ex) {
+            return true;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import analyzers.lexical.IncrementalLexer;
+import analyzers.lexical.LexicalAnalyzer;
+import analyzers.lexical.ScanMode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Latência de uma edição de uma linha no meio do arquivo: editLine analisa de novo só a linha editada,
+// fullScan analisa o arquivo inteiro, como antes do IncrementalLexer. O tempo de editLine não deve crescer com lines.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IncrementalLexerBenchmark {
+    @Param({"1000", "100000"})
+    public String lines;
+
+    private Path file;
+    private IncrementalLexer lexer;
+    private int line;
+    private String original;
+    private String edited;
+    private boolean toggle;
+
+    @Setup
+    public void setup() throws IOException {
+        this.file = BenchmarkInput.load(this.lines).getFiles().get(0);
+        this.lexer = new IncrementalLexer(new String(Files.readAllBytes(this.file), StandardCharsets.UTF_8));
+        this.line = this.lexer.getLineCount() / 2;
+        this.original = this.lexer.getLineText(this.line);
+        this.edited = this.original + " x = x + 1;";
+    }
+
+    // Alterna entre a linha original e a editada, para o arquivo não crescer entre as iterações
+    @Benchmark
+    public void editLine(Blackhole blackhole) {
+        this.toggle = !this.toggle;
+        blackhole.consume(this.lexer.edit(this.line, this.line, this.toggle ? this.edited : this.original));
+    }
+
+    @Benchmark
+    public void fullScan(Blackhole blackhole) throws IOException {
+        blackhole.consume(new LexicalAnalyzer(this.file, ScanMode.CHAR_STREAM).getTokenStream());
+    }
+}
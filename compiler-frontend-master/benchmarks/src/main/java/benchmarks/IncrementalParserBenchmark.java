@@ -0,0 +1,63 @@
+package benchmarks;
+
+import analyzers.lexical.IncrementalLexer;
+import analyzers.syntatical.SyntacticalAnalyzer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Latência da análise sintática depois de uma edição de uma linha no meio do arquivo: reparse reaproveita as
+// unidades (classes, métodos, main) que não mudaram, parseProgram analisa tudo de novo
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IncrementalParserBenchmark {
+    @Param({"1000", "100000"})
+    public String lines;
+
+    private IncrementalLexer lexer;
+    private SyntacticalAnalyzer previous;
+    private int line;
+    private String original;
+    private String edited;
+    private boolean toggle;
+
+    @Setup
+    public void setup() throws IOException {
+        this.lexer = new IncrementalLexer(new String(Files.readAllBytes(BenchmarkInput.load(this.lines).getFiles().get(0)), StandardCharsets.UTF_8));
+        this.previous = new SyntacticalAnalyzer(this.lexer, null);
+        this.previous.parseProgram();
+        this.line = this.lexer.getLineCount() / 2;
+        this.original = this.lexer.getLineText(this.line);
+        this.edited = this.original + " x = x + 1;";
+    }
+
+    // Alterna entre a linha original e a editada, para o arquivo não crescer entre as iterações
+    private void edit() {
+        this.toggle = !this.toggle;
+        this.lexer.edit(this.line, this.line, this.toggle ? this.edited : this.original);
+    }
+
+    @Benchmark
+    public void reparse(Blackhole blackhole) {
+        this.edit();
+        this.previous = new SyntacticalAnalyzer(this.lexer, this.previous);
+        blackhole.consume(this.previous.parseProgram());
+        blackhole.consume(this.previous.getErrors());
+    }
+
+    @Benchmark
+    public void parseProgram(Blackhole blackhole) {
+        this.edit();
+        SyntacticalAnalyzer parser = new SyntacticalAnalyzer(this.lexer);
+        blackhole.consume(parser.parseProgram());
+        blackhole.consume(parser.getErrors());
+    }
+}
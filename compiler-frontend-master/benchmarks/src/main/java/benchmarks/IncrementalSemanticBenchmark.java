@@ -0,0 +1,72 @@
+package benchmarks;
+
+import analyzers.lexical.IncrementalLexer;
+import analyzers.semantic.SemanticAnalyzer;
+import analyzers.syntatical.SyntacticalAnalyzer;
+import model.ast.SyntaxTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Latência da análise semântica depois de uma edição de uma linha no corpo de um método no meio do arquivo: recheck
+// reaproveita os corpos que não mudaram, analyze verifica tudo de novo. A edição e a análise sintática incremental
+// ficam no setup de cada chamada
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IncrementalSemanticBenchmark {
+    @Param({"1000", "100000"})
+    public String lines;
+
+    private IncrementalLexer lexer;
+    private SyntacticalAnalyzer parser;
+    private SemanticAnalyzer previous;
+    private SyntaxTree tree;
+    private int line;
+    private String original;
+    private String edited;
+    private boolean toggle;
+
+    @Setup
+    public void setup() throws IOException {
+        this.lexer = new IncrementalLexer(new String(Files.readAllBytes(BenchmarkInput.load(this.lines).getFiles().get(0)), StandardCharsets.UTF_8));
+        this.parser = new SyntacticalAnalyzer(this.lexer, null);
+        this.previous = new SemanticAnalyzer(this.parser.parseProgram(), (SemanticAnalyzer) null);
+
+        // Primeira atribuição a partir do meio do arquivo
+        this.line = this.lexer.getLineCount() / 2;
+        while (!this.lexer.getLineText(this.line).contains(" = ")) {
+            this.line++;
+        }
+
+        this.original = this.lexer.getLineText(this.line);
+        this.edited = this.original + " x = x + 1;";
+    }
+
+    // Alterna entre a linha original e a editada, para o arquivo não crescer entre as chamadas
+    @Setup(Level.Invocation)
+    public void edit() {
+        this.toggle = !this.toggle;
+        this.lexer.edit(this.line, this.line, this.toggle ? this.edited : this.original);
+        this.parser = new SyntacticalAnalyzer(this.lexer, this.parser);
+        this.tree = this.parser.parseProgram();
+    }
+
+    @Benchmark
+    public void recheck(Blackhole blackhole) {
+        this.previous = new SemanticAnalyzer(this.tree, this.previous);
+        blackhole.consume(this.previous.getErrors());
+    }
+
+    @Benchmark
+    public void analyze(Blackhole blackhole) {
+        blackhole.consume(new SemanticAnalyzer(this.tree).getErrors());
+    }
+}
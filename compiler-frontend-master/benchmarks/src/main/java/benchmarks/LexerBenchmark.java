@@ -0,0 +1,51 @@
+package benchmarks;
+
+import analyzers.lexical.LexicalAnalyzer;
+import analyzers.lexical.ScanMode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// getTokens cria um Token por lexema; com 10000000 linhas a lista passa de alguns GB, então esse tamanho
+// precisa de um heap maior (-jvmArgsAppend -Xmx16g) ou pode ser medido só em getTokenStream
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LexerBenchmark {
+    @Param({"tests", "1000", "100000", "10000000"})
+    public String lines;
+
+    @Param({"LINE", "CHAR_STREAM", "MAPPED", "PARALLEL"})
+    public ScanMode scanMode;
+
+    private BenchmarkInput input;
+
+    @Setup
+    public void setup() throws IOException {
+        this.input = BenchmarkInput.load(this.lines);
+    }
+
+    @Benchmark
+    public void getTokens(PhaseCounters counters, Blackhole blackhole) throws IOException {
+        for (Path file : this.input.getFiles()) {
+            blackhole.consume(new LexicalAnalyzer(file, this.scanMode).getTokens());
+        }
+
+        counters.add(this.input);
+    }
+
+    @Benchmark
+    public void getTokenStream(PhaseCounters counters, Blackhole blackhole) throws IOException {
+        for (Path file : this.input.getFiles()) {
+            blackhole.consume(new LexicalAnalyzer(file, this.scanMode).getTokenStream());
+        }
+
+        counters.add(this.input);
+    }
+}
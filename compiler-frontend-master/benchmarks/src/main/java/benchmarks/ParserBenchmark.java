@@ -0,0 +1,42 @@
+package benchmarks;
+
+import analyzers.syntatical.SyntacticalAnalyzer;
+import model.token.TokenStream;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// O sintático usa laços e pilhas próprias em vez da pilha de chamadas, então roda com a pilha padrão da JVM
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"tests", "1000", "100000", "1000000"})
+    public String lines;
+
+    private BenchmarkInput input;
+    private List<TokenStream> tokens;
+
+    @Setup
+    public void setup() throws IOException {
+        this.input = BenchmarkInput.load(this.lines);
+        this.tokens = this.input.lex();
+    }
+
+    @Benchmark
+    public void parseProgram(PhaseCounters counters, Blackhole blackhole) {
+        for (TokenStream tokens : this.tokens) {
+            SyntacticalAnalyzer parser = new SyntacticalAnalyzer(tokens);
+            parser.parseProgram();
+            blackhole.consume(parser.getErrors());
+        }
+
+        counters.add(this.input);
+    }
+}
@@ -0,0 +1,26 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Contadores reportados pelo JMH como taxas (tokens/s e linhas/s), ao lado de operações/s
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class PhaseCounters {
+    public long tokens;
+    public long lines;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        this.tokens = 0;
+        this.lines = 0;
+    }
+
+    void add(BenchmarkInput input) {
+        this.tokens += input.getTokenCount();
+        this.lines += input.getLineCount();
+    }
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import analyzers.semantic.SemanticAnalyzer;
+import analyzers.syntatical.SyntacticalAnalyzer;
+import model.ast.SyntaxTree;
+import model.token.TokenStream;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// A análise semântica acontece no construtor de SemanticAnalyzer; as árvores sintáticas são montadas no setup.
+// analyzeParallel verifica os corpos dos métodos no pool comum
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SemanticBenchmark {
+    @Param({"tests", "1000", "100000"})
+    public String lines;
+
+    private BenchmarkInput input;
+    private List<SyntaxTree> trees;
+
+    @Setup
+    public void setup() throws IOException {
+        this.input = BenchmarkInput.load(this.lines);
+        this.trees = new ArrayList<>();
+
+        for (TokenStream tokens : this.input.lex()) {
+            this.trees.add(new SyntacticalAnalyzer(tokens).parseProgram());
+        }
+    }
+
+    @Benchmark
+    public void analyze(PhaseCounters counters, Blackhole blackhole) {
+        for (SyntaxTree tree : this.trees) {
+            blackhole.consume(new SemanticAnalyzer(tree).getErrors());
+        }
+
+        counters.add(this.input);
+    }
+
+    @Benchmark
+    public void analyzeParallel(PhaseCounters counters, Blackhole blackhole) {
+        for (SyntaxTree tree : this.trees) {
+            blackhole.consume(new SemanticAnalyzer(tree, ForkJoinPool.commonPool()).getErrors());
+        }
+
+        counters.add(this.input);
+    }
+}
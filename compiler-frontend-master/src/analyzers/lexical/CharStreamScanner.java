@@ -0,0 +1,459 @@
+package analyzers.lexical;
+
+import model.error.LexicalError;
+import model.token.LexemeAutomaton;
+import model.token.LexemeClassifier;
+import model.token.TokenKind;
+import model.token.TokenStream;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// Analisador léxico de passada única sobre um char[].
+// Reproduz as mesmas regras de LexicalAnalyzer.processLine, mas o buffer do lexema é um char[] reaproveitado
+// e o estado do autômato é avançado incrementalmente a cada fragmento, sem reconcatenar nem reclassificar o buffer.
+// Os tokens são gravados em um TokenStream que referencia o próprio texto de entrada sempre que possível.
+class CharStreamScanner {
+    private final LexemeAutomaton automaton;
+    private final boolean[] delimiters;
+    private final List<LexicalError> lexicalErrors;
+    private final StringBuilder errorBuffer;
+    private TokenStream tokens;
+    private char[] source;
+
+    private char[] buffer;
+    private int bufferLength;
+    private int bufferState;
+    // Posição do lexema no texto de entrada, enquanto ele for uma faixa contígua desse texto
+    private int bufferOffset;
+    private boolean bufferInSource;
+    private boolean isComment;
+    // O comentário de bloco aberto continua um comentário aberto antes do início da varredura (restart)
+    private boolean continuesComment;
+    private int currentLineNumber;
+    private TokenKind lastLineTokenType;
+
+    // Linha corrente (já sem espaços nas pontas e sem comentários de linha) e cursor sobre ela
+    private char[] line;
+    private int lineEnd;
+    private int cursor;
+    private int fragmentStart;
+    private int fragmentEnd;
+    private char[] strippedLine;
+    private char[] lineChars;
+    private final CharsetDecoder decoder;
+
+    CharStreamScanner(List<LexicalError> lexicalErrors) {
+        this.automaton = LexemeAutomaton.getInstance();
+        this.lexicalErrors = lexicalErrors;
+        this.errorBuffer = new StringBuilder();
+        this.buffer = new char[64];
+        this.strippedLine = new char[0];
+        this.lineChars = new char[256];
+        this.decoder = StandardCharsets.UTF_8.newDecoder();
+        this.delimiters = new boolean[128];
+
+        for (char delimiter : LexemeClassifier.getAllCompilerDemiliters().toCharArray()) {
+            this.delimiters[delimiter] = true;
+        }
+    }
+
+    // Quebra a entrada em linhas com as mesmas regras de BufferedReader.readLine (\n, \r ou \r\n)
+    TokenStream scan(char[] source, int start, int end) {
+        int lineStart = start;
+        this.source = source;
+        this.tokens = new TokenStream(source);
+
+        for (int i = start; i < end; i++) {
+            char ch = source[i];
+
+            if (ch == '\n' || ch == '\r') {
+                this.processLine(source, lineStart, i);
+
+                if (ch == '\r' && i + 1 < end && source[i + 1] == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
+            }
+        }
+
+        if (lineStart < end) {
+            this.processLine(source, lineStart, end);
+        }
+
+        return this.finish();
+    }
+
+    // Mesma quebra de linhas, contando os \n e \r diretamente nos bytes (nenhum byte de um caractere UTF-8 multibyte os contém)
+    TokenStream scan(ByteBuffer source) throws CharacterCodingException {
+        int lineStart = source.position();
+        int end = source.limit();
+        this.tokens = new TokenStream();
+
+        for (int i = lineStart; i < end; i++) {
+            byte ch = source.get(i);
+
+            if (ch == '\n' || ch == '\r') {
+                // decodeLine pode trocar lineChars por um array maior: o array é lido só depois dela
+                int length = this.decodeLine(source, lineStart, i);
+                this.processLine(this.lineChars, 0, length);
+
+                if (ch == '\r' && i + 1 < end && source.get(i + 1) == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
+            }
+        }
+
+        if (lineStart < end) {
+            int length = this.decodeLine(source, lineStart, end);
+            this.processLine(this.lineChars, 0, length);
+        }
+
+        return this.finish();
+    }
+
+    // Copia a linha para um char[] reaproveitado; só linhas com bytes fora do ASCII passam pelo decodificador UTF-8
+    private int decodeLine(ByteBuffer source, int start, int end) throws CharacterCodingException {
+        int length = end - start;
+
+        if (this.lineChars.length < length) {
+            this.lineChars = new char[Math.max(length, this.lineChars.length * 2)];
+        }
+
+        for (int i = 0; i < length; i++) {
+            byte ch = source.get(start + i);
+
+            if (ch < 0) {
+                return this.decodeUtf8Line(source, start, end);
+            }
+            this.lineChars[i] = (char) ch;
+        }
+
+        return length;
+    }
+
+    private int decodeUtf8Line(ByteBuffer source, int start, int end) throws CharacterCodingException {
+        ByteBuffer bytes = source.duplicate();
+        bytes.limit(end).position(start);
+        CharBuffer chars = CharBuffer.wrap(this.lineChars);
+
+        this.decoder.reset();
+        CoderResult result = this.decoder.decode(bytes, chars, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = this.decoder.flush(chars);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+
+        return chars.position();
+    }
+
+    // Varredura incremental: quem chama entrega as linhas uma a uma a processLine e consome os tokens de tokens
+    void begin(TokenStream tokens) {
+        this.source = null;
+        this.tokens = tokens;
+    }
+
+    // Recomeça a varredura incremental depois da linha lineNumber, fora de comentário de bloco
+    void restart(TokenStream tokens, int lineNumber) {
+        this.begin(tokens);
+        this.currentLineNumber = lineNumber;
+        this.isComment = false;
+        this.continuesComment = false;
+        this.errorBuffer.setLength(0);
+    }
+
+    // Recomeça a varredura no início de uma linha de source, dentro ou fora de um comentário de bloco aberto antes
+    // dela; os tokens continuam apontando para source e as linhas são numeradas a partir de 1
+    void restart(char[] source, TokenStream tokens, boolean inComment) {
+        this.restart(tokens, 0);
+        this.source = source;
+        this.isComment = inComment;
+        this.continuesComment = inComment;
+    }
+
+    // A última linha processada terminou dentro de um comentário de bloco
+    boolean isInComment() {
+        return this.isComment;
+    }
+
+    // O comentário de bloco ainda aberto começou antes do restart, e getOpenComment() é só a parte que veio depois
+    boolean continuesComment() {
+        return this.continuesComment;
+    }
+
+    // Texto do comentário de bloco ainda aberto, que finish() informaria como erro léxico, ou null
+    String getOpenComment() {
+        return this.errorBuffer.length() > 0 ? this.errorBuffer.toString() : null;
+    }
+
+    TokenStream finish() {
+        this.checkForErrors();
+        this.tokens.add(TokenKind.NO_MORE_TOKENS, "$", -1);
+
+        return this.tokens;
+    }
+
+    void processLine(char[] source, int start, int end) {
+        this.currentLineNumber++;
+        this.bufferLength = 0;
+        this.bufferState = LexemeAutomaton.START_STATE;
+        this.lastLineTokenType = TokenKind.INVALID_TOKEN;
+
+        // trim()
+        while (start < end && source[start] <= ' ') start++;
+        while (end > start && source[end - 1] <= ' ') end--;
+
+        this.stripLineComments(source, start, end);
+
+        while (this.nextFragment()) {
+            int nextState = this.automaton.run(this.bufferState, this.line, this.fragmentStart, this.fragmentEnd);
+            TokenKind nextBufferType = this.automaton.category(nextState);
+            TokenKind currentBufferType = this.automaton.category(this.bufferState);
+
+            if (this.isCommentSectionOpen(nextBufferType)) {
+                this.errorBuffer.append(this.line, this.fragmentStart, this.fragmentEnd - this.fragmentStart);
+                continue;
+            }
+
+            //Verifica ser o token é um máximo match
+            boolean isMaxMatch = nextBufferType == TokenKind.INVALID_TOKEN && this.bufferLength > 0;
+
+            if (isMaxMatch) {
+                // Se for exceção ao máximo match passa para o próximo token
+                if (this.isMaxMatchException(currentBufferType))
+                    continue;
+
+                this.validateBufferLexeme(currentBufferType);
+                nextState = this.automaton.run(LexemeAutomaton.START_STATE, this.line, this.fragmentStart, this.fragmentEnd);
+            }
+            this.appendFragment();
+            this.bufferState = nextState;
+        }
+
+        this.validateBufferLexeme(this.automaton.category(this.bufferState));
+    }
+
+    // Equivalente a line.replaceAll(LexemeClassifier.LINE_COMMENT_REGEX, ""): o '.' da REGEX não casa com quebras de linha
+    private void stripLineComments(char[] source, int start, int end) {
+        int comment = indexOfLineComment(source, start, end);
+
+        this.line = source;
+        this.cursor = start;
+        this.lineEnd = end;
+
+        if (comment < 0) {
+            return;
+        }
+
+        int commentEnd = indexOfLineTerminator(source, comment, end);
+
+        if (commentEnd < 0) {
+            this.lineEnd = comment;
+            return;
+        }
+
+        // Caso raro: há texto depois de um terminador unicode no meio da linha, então a linha é copiada sem os comentários
+        if (this.strippedLine.length < end - start) {
+            this.strippedLine = new char[end - start];
+        }
+
+        int length = 0;
+        while (comment >= 0) {
+            System.arraycopy(source, start, this.strippedLine, length, comment - start);
+            length += comment - start;
+
+            start = commentEnd < 0 ? end : commentEnd;
+            comment = indexOfLineComment(source, start, end);
+            commentEnd = comment < 0 ? -1 : indexOfLineTerminator(source, comment, end);
+        }
+        System.arraycopy(source, start, this.strippedLine, length, end - start);
+        length += end - start;
+
+        this.line = this.strippedLine;
+        this.cursor = 0;
+        this.lineEnd = length;
+    }
+
+    private static int indexOfLineComment(char[] source, int start, int end) {
+        for (int i = start; i + 1 < end; i++) {
+            if (source[i] == '/' && source[i + 1] == '/') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int indexOfLineTerminator(char[] source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (LexemeAutomaton.isLineTerminator(source[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    // Mesmo particionamento do StringTokenizer com returnDelims: cada delimitador é um fragmento
+    private boolean nextFragment() {
+        if (this.cursor >= this.lineEnd) {
+            return false;
+        }
+
+        this.fragmentStart = this.cursor;
+
+        if (this.isDelimiter(this.line[this.cursor])) {
+            this.cursor++;
+        } else {
+            while (this.cursor < this.lineEnd && !this.isDelimiter(this.line[this.cursor])) {
+                this.cursor++;
+            }
+        }
+        this.fragmentEnd = this.cursor;
+
+        return true;
+    }
+
+    private boolean isDelimiter(char ch) {
+        return ch < this.delimiters.length && this.delimiters[ch];
+    }
+
+    private boolean isSpaceFragment() {
+        if (this.fragmentEnd - this.fragmentStart != 1) {
+            return false;
+        }
+
+        char ch = this.line[this.fragmentStart];
+        return ch == ' ' || ch == '\t' || ch == '\n';
+    }
+
+    private boolean fragmentEquals(char ch) {
+        return this.fragmentEnd - this.fragmentStart == 1 && this.line[this.fragmentStart] == ch;
+    }
+
+    private void appendFragment() {
+        int length = this.fragmentEnd - this.fragmentStart;
+
+        if (this.bufferLength + length > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.bufferLength + length));
+        }
+
+        if (this.bufferLength == 0) {
+            this.bufferOffset = this.fragmentStart;
+            this.bufferInSource = this.line == this.source;
+        } else {
+            this.bufferInSource &= this.fragmentStart == this.bufferOffset + this.bufferLength;
+        }
+
+        System.arraycopy(this.line, this.fragmentStart, this.buffer, this.bufferLength, length);
+        this.bufferLength += length;
+    }
+
+    private boolean isMaxMatchException(TokenKind currentBufferType) {
+        char firstBufferSymbol = this.buffer[0];
+        char lastBufferSymbol = this.buffer[this.bufferLength - 1];
+        boolean bufferIsNumber = currentBufferType == TokenKind.NUMBER;
+
+        //Verificação de números
+        if (bufferIsNumber && this.fragmentEquals('.')) {
+            this.appendFragment();
+            this.bufferState = this.automaton.next(this.bufferState, '.');
+            return true;
+        }
+
+        // spaces after -. wait for digits
+        if (firstBufferSymbol == '-' && this.isSpaceFragment()) {
+            return true;
+        }
+
+        //Verifica se um sinal negativo é uma expressão aritmética ou pertence a um número negativo
+        if (firstBufferSymbol == '-' && bufferIsNumber && this.lastLineTokenType == TokenKind.NUMBER) {
+            this.addToken(TokenKind.ARITHMETICAL_OPERATOR, 0, 1);
+            this.addToken(TokenKind.NUMBER, 1, this.bufferLength - 1);
+            this.resetBuffer();
+
+            this.appendFragment();
+            this.bufferState = this.automaton.run(LexemeAutomaton.START_STATE, this.line, this.fragmentStart, this.fragmentEnd);
+            return true;
+        }
+
+        //Verificação de String incompleta
+        if (firstBufferSymbol == '"' && (lastBufferSymbol != '"' || this.bufferLength == 1)) {
+            this.processIncomingString();
+            return true;
+        }
+
+        return false;
+    }
+
+    private void processIncomingString() {
+        this.appendFragment();
+
+        while (this.buffer[this.bufferLength - 1] != '"' && this.nextFragment()) {
+            this.appendFragment();
+        }
+
+        TokenKind type = this.buffer[this.bufferLength - 1] == '"' ? TokenKind.STRING : TokenKind.INVALID_TOKEN;
+        this.validateBufferLexeme(type);
+    }
+
+    //Validação de um um token
+    private void validateBufferLexeme(TokenKind tokenType) {
+        if (tokenType == TokenKind.INVALID_TOKEN) {
+            this.lexicalErrors.add(new LexicalError(this.currentLineNumber, new String(this.buffer, 0, this.bufferLength)));
+        } else if (tokenType != TokenKind.SPACE) {
+            this.addToken(tokenType, 0, this.bufferLength);
+        }
+
+        this.resetBuffer();
+    }
+
+    // Grava a faixa [start, start + length) do buffer como token
+    private void addToken(TokenKind tokenType, int start, int length) {
+        if (this.bufferInSource) {
+            this.tokens.add(tokenType, this.currentLineNumber, this.bufferOffset + start, length);
+        } else {
+            this.tokens.add(tokenType, this.currentLineNumber, this.buffer, start, length);
+        }
+        this.lastLineTokenType = tokenType;
+    }
+
+    private void resetBuffer() {
+        this.bufferLength = 0;
+        this.bufferState = LexemeAutomaton.START_STATE;
+    }
+
+    //Verificação de comentários de bloco
+    private boolean isCommentSectionOpen(TokenKind nextBufferType) {
+        int size = this.errorBuffer.length();
+
+        if (nextBufferType == TokenKind.BLOCK_COMMENT_START) {
+            this.isComment = true;
+            this.errorBuffer.append(this.buffer, 0, this.bufferLength);
+            this.resetBuffer();
+        } else if (size > 1 && this.errorBuffer.charAt(size - 2) == '*' && this.errorBuffer.charAt(size - 1) == '/') {
+            this.isComment = false;
+            this.continuesComment = false;
+            this.errorBuffer.setLength(0);
+        }
+
+        return this.isComment;
+    }
+
+    private void checkForErrors() {
+        if (this.errorBuffer.length() > 0) {
+            this.lexicalErrors.add(new LexicalError(this.currentLineNumber, this.errorBuffer.toString()));
+            this.errorBuffer.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package analyzers.lexical;
+
+import model.error.LexicalError;
+import model.token.Keyword;
+import model.token.Token;
+import model.token.TokenKind;
+import model.token.TokenSource;
+import model.token.TokenStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Análise léxica de um texto que é editado aos poucos, como no editor. Cada linha guarda seus tokens, seus erros
+// léxicos e se começa dentro de um comentário de bloco. Uma edição troca um intervalo de linhas e analisa de novo só
+// essas linhas, as anteriores desde o início do comentário em que a edição começa, e as seguintes até o estado de
+// comentário voltar a coincidir com o de antes. As demais linhas são reaproveitadas; os números de linha vêm da
+// posição da linha no texto, então as linhas seguintes não são tocadas quando o número de linhas muda.
+//
+// O resultado é o mesmo de analisar o texto inteiro com o CharStreamScanner. Os tokens são lidos como TokenSource,
+// que vale até a próxima edição.
+public class IncrementalLexer implements TokenSource {
+    private static final Token END_TOKEN = new Token(TokenKind.NO_MORE_TOKENS, "$", -1);
+
+    private final List<LexicalError> scanErrors;
+    private final CharStreamScanner scanner;
+    private final List<Line> lines;
+    // Comentário de bloco aberto no fim do texto, informado como erro na última linha
+    private String openComment;
+
+    // firstTokens[i] é o índice do primeiro token da linha i; valores válidos até validLines, recalculados a partir
+    // da linha editada só quando os tokens são lidos
+    private int[] firstTokens;
+    private int validLines;
+    private int lastLine;
+
+    public IncrementalLexer(String text) {
+        this.scanErrors = new ArrayList<>();
+        this.scanner = new CharStreamScanner(this.scanErrors);
+        this.lines = new ArrayList<>();
+        this.firstTokens = new int[16];
+        this.edit(1, 0, text);
+    }
+
+    public int getLineCount() {
+        return this.lines.size();
+    }
+
+    public String getLineText(int line) {
+        return this.lines.get(line - 1).text;
+    }
+
+    // Troca as linhas de firstLine a lastLine (numeradas a partir de 1) pelas linhas de text. Com lastLine igual a
+    // firstLine - 1, as linhas são inseridas antes de firstLine; com text vazio, o intervalo é removido.
+    // Retorna quantas linhas foram analisadas de novo.
+    public int edit(int firstLine, int lastLine, String text) {
+        if (firstLine < 1 || lastLine < firstLine - 1 || lastLine > this.lines.size()) {
+            throw new IndexOutOfBoundsException("Intervalo inválido: " + firstLine + "-" + lastLine + " de " + this.lines.size() + " linhas");
+        }
+
+        // A análise recomeça na linha mais próxima que não começa dentro de um comentário de bloco
+        int start = firstLine - 1;
+        while (start > 0 && this.startsInComment(start)) {
+            start--;
+        }
+
+        TokenStream tokens = new TokenStream();
+        List<Line> replacement = new ArrayList<>();
+
+        this.scanErrors.clear();
+        this.scanner.restart(tokens, start);
+
+        for (int i = start; i < firstLine - 1; i++) {
+            replacement.add(this.scan(tokens, this.lines.get(i).text));
+        }
+
+        for (String line : splitLines(text)) {
+            replacement.add(this.scan(tokens, line));
+        }
+
+        // Segue enquanto o estado de comentário no fim da última linha analisada pode ser diferente do anterior
+        int next = lastLine;
+        while (next < this.lines.size() && (this.scanner.isInComment() || this.lines.get(next).startsInComment)) {
+            replacement.add(this.scan(tokens, this.lines.get(next).text));
+            next++;
+        }
+
+        if (next == this.lines.size()) {
+            this.openComment = this.scanner.getOpenComment();
+        }
+
+        // As linhas que só mudaram de conteúdo são trocadas no lugar; o resto da lista só é deslocado quando
+        // a edição muda o número de linhas
+        int common = Math.min(replacement.size(), next - start);
+        for (int i = 0; i < common; i++) {
+            this.lines.set(start + i, replacement.get(i));
+        }
+
+        if (common < replacement.size()) {
+            this.lines.addAll(start + common, replacement.subList(common, replacement.size()));
+        } else if (start + common < next) {
+            this.lines.subList(start + common, next).clear();
+        }
+
+        this.validLines = Math.min(this.validLines, start);
+        this.lastLine = 0;
+        return replacement.size();
+    }
+
+    // Estado de comentário no início da linha index (a partir de 0); depois da última linha é o do fim do texto
+    private boolean startsInComment(int index) {
+        return index < this.lines.size() ? this.lines.get(index).startsInComment : this.openComment != null;
+    }
+
+    private Line scan(TokenStream tokens, String text) {
+        boolean startsInComment = this.scanner.isInComment();
+        int first = tokens.size();
+        int errors = this.scanErrors.size();
+        char[] chars = text.toCharArray();
+
+        this.scanner.processLine(chars, 0, chars.length);
+
+        String[] lexemes = null;
+        if (this.scanErrors.size() > errors) {
+            lexemes = new String[this.scanErrors.size() - errors];
+
+            for (int i = 0; i < lexemes.length; i++) {
+                lexemes[i] = this.scanErrors.get(errors + i).getToken();
+            }
+        }
+
+        return new Line(text, startsInComment, tokens, first, tokens.size() - first, lexemes);
+    }
+
+    // Mesmas quebras de linha do CharStreamScanner.scan: \n, \r ou \r\n, sem linha vazia depois do último terminador
+    static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int lineStart = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+
+            if (ch == '\n' || ch == '\r') {
+                lines.add(text.substring(lineStart, i));
+
+                if (ch == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
+            }
+        }
+
+        if (lineStart < text.length()) {
+            lines.add(text.substring(lineStart));
+        }
+
+        return lines;
+    }
+
+    public List<LexicalError> getLexicalErrors() {
+        List<LexicalError> errors = new ArrayList<>();
+
+        for (int i = 0; i < this.lines.size(); i++) {
+            String[] lexemes = this.lines.get(i).errors;
+
+            if (lexemes != null) {
+                for (String lexeme : lexemes) {
+                    errors.add(new LexicalError(i + 1, lexeme));
+                }
+            }
+        }
+
+        if (this.openComment != null) {
+            errors.add(new LexicalError(this.lines.size(), this.openComment));
+        }
+
+        return errors;
+    }
+
+    // Copia os tokens para um TokenStream, terminado pelo token de fim de arquivo como o do CharStreamScanner
+    public TokenStream toTokenStream() {
+        TokenStream stream = new TokenStream();
+        char[] value = new char[64];
+
+        for (int i = 0; i < this.lines.size(); i++) {
+            Line line = this.lines.get(i);
+
+            for (int token = line.first; token < line.first + line.count; token++) {
+                int length = line.tokens.getLength(token);
+
+                if (value.length < length) {
+                    value = new char[Math.max(length, value.length * 2)];
+                }
+
+                line.tokens.getValueChars(token, value, 0);
+                stream.add(line.tokens.getKind(token), i + 1, value, 0, length);
+            }
+        }
+
+        stream.add(END_TOKEN.getKind(), END_TOKEN.getValue(), END_TOKEN.getLine());
+        return stream;
+    }
+
+    // Número total de tokens, sem contar o de fim de arquivo
+    public int size() {
+        return this.validLines == this.lines.size() ? this.firstTokens[this.validLines] : this.firstToken(this.lines.size());
+    }
+
+    private int firstToken(int line) {
+        if (this.firstTokens.length < this.lines.size() + 1) {
+            this.firstTokens = Arrays.copyOf(this.firstTokens, Math.max(this.firstTokens.length * 2, this.lines.size() + 1));
+        }
+
+        for (; this.validLines < line; this.validLines++) {
+            this.firstTokens[this.validLines + 1] = this.firstTokens[this.validLines] + this.lines.get(this.validLines).count;
+        }
+
+        return this.firstTokens[line];
+    }
+
+    // Linha (a partir de 0) do token; a leitura sequencial do analisador sintático quase sempre acerta a última linha
+    private int lineOf(int index) {
+        int line = this.lastLine;
+
+        if (line < this.validLines && index >= this.firstTokens[line] && index < this.firstTokens[line + 1]) {
+            return line;
+        }
+
+        int size = this.size();
+
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        // Leitura sequencial: o token está na mesma linha ou em uma das seguintes
+        for (int next = 0; next < 4 && line < this.lines.size() - 1 && index >= this.firstTokens[line + 1]; next++) {
+            line++;
+        }
+
+        if (line >= this.lines.size() || index < this.firstTokens[line] || index >= this.firstTokens[line + 1]) {
+            int low = 0;
+            int high = this.lines.size() - 1;
+
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+
+                if (this.firstTokens[middle] <= index) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            line = low;
+        }
+
+        this.lastLine = line;
+        return line;
+    }
+
+    private boolean isEnd(int index) {
+        return index == this.size();
+    }
+
+    // Índice do token no TokenStream da linha
+    private int tokenIndex(int index, int line) {
+        Line tokens = this.lines.get(line);
+        return tokens.first + index - this.firstTokens[line];
+    }
+
+    @Override
+    public boolean fetch(int index) {
+        return index >= 0 && index <= this.size();
+    }
+
+    @Override
+    public void discardBefore(int index) {
+        // Todos os tokens ficam em memória
+    }
+
+    @Override
+    public TokenKind getKind(int index) {
+        if (this.isEnd(index)) {
+            return END_TOKEN.getKind();
+        }
+
+        int line = this.lineOf(index);
+        return this.lines.get(line).tokens.getKind(this.tokenIndex(index, line));
+    }
+
+    @Override
+    public Keyword getKeyword(int index) {
+        if (this.isEnd(index)) {
+            return null;
+        }
+
+        int line = this.lineOf(index);
+        return this.lines.get(line).tokens.getKeyword(this.tokenIndex(index, line));
+    }
+
+    @Override
+    public int getLine(int index) {
+        return this.isEnd(index) ? END_TOKEN.getLine() : this.lineOf(index) + 1;
+    }
+
+    @Override
+    public String getValue(int index) {
+        if (this.isEnd(index)) {
+            return END_TOKEN.getValue();
+        }
+
+        int line = this.lineOf(index);
+        return this.lines.get(line).tokens.getValue(this.tokenIndex(index, line));
+    }
+
+    @Override
+    public boolean valueEquals(int index, String value) {
+        if (this.isEnd(index)) {
+            return END_TOKEN.getValue().equals(value);
+        }
+
+        int line = this.lineOf(index);
+        return this.lines.get(line).tokens.valueEquals(this.tokenIndex(index, line), value);
+    }
+
+    @Override
+    public char getSingleChar(int index) {
+        if (this.isEnd(index)) {
+            return END_TOKEN.getValue().charAt(0);
+        }
+
+        int line = this.lineOf(index);
+        return this.lines.get(line).tokens.getSingleChar(this.tokenIndex(index, line));
+    }
+
+    @Override
+    public int getValueHash(int index) {
+        if (this.isEnd(index)) {
+            return END_TOKEN.getValue().hashCode();
+        }
+
+        int line = this.lineOf(index);
+        return this.lines.get(line).tokens.getValueHash(this.tokenIndex(index, line));
+    }
+
+    @Override
+    public Token getToken(int index) {
+        return new Token(this.getKind(index), this.getValue(index), this.getLine(index));
+    }
+
+    // Tokens de uma linha: um trecho do TokenStream da análise que a produziu, sem o número da linha,
+    // que depende da posição da linha no texto
+    private static class Line {
+        private final String text;
+        private final boolean startsInComment;
+        private final TokenStream tokens;
+        private final int first;
+        private final int count;
+        private final String[] errors;
+
+        Line(String text, boolean startsInComment, TokenStream tokens, int first, int count, String[] errors) {
+            this.text = text;
+            this.startsInComment = startsInComment;
+            this.tokens = tokens;
+            this.first = first;
+            this.count = count;
+            this.errors = errors;
+        }
+    }
+}
@@ -3,12 +3,23 @@ package analyzers.lexical;
 import model.error.LexicalError;
 import model.token.LexemeClassifier;
 import model.token.Token;
-import model.token.TokenTypes;
+import model.token.TokenKind;
+import model.token.TokenSource;
+import model.token.TokenStream;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 public class LexicalAnalyzer {
@@ -16,13 +27,20 @@ public class LexicalAnalyzer {
     private final List<LexicalError> lexicalErrors;
     private final StringBuilder errorBuffer;
     private final String delimiters;
+    private final ScanMode scanMode;
     private StringBuilder buffer;
     private int currentLineNumber;
     private boolean isComment;
     private Path inputFilePath;
     private List<Token> tokens;
+    private TokenStream tokenStream;
+    private StreamingTokenSource tokenSource;
 
     public LexicalAnalyzer(Path inputFilePath) {
+        this(inputFilePath, ScanMode.LINE);
+    }
+
+    public LexicalAnalyzer(Path inputFilePath, ScanMode scanMode) {
         this.lexemeClassifier = new LexemeClassifier();
         this.currentLineNumber = 0;
         this.errorBuffer = new StringBuilder();
@@ -30,16 +48,17 @@ public class LexicalAnalyzer {
         this.isComment = false;
         this.delimiters = LexemeClassifier.getAllCompilerDemiliters();
         this.inputFilePath = inputFilePath;
+        this.scanMode = scanMode;
         this.tokens = Collections.emptyList();
     }
 
-    private String getLastInsertedTokenType(List<Token> tokens) {
+    private TokenKind getLastInsertedTokenType(List<Token> tokens) {
         if (!tokens.isEmpty()) {
             Token lastInsertedToken = tokens.get(tokens.size() - 1);
-            return lastInsertedToken.getType();
+            return lastInsertedToken.getKind();
         }
 
-        return TokenTypes.INVALID_TOKEN;
+        return TokenKind.INVALID_TOKEN;
     }
 
 
@@ -62,10 +81,10 @@ public class LexicalAnalyzer {
             String currentBufferLexeme = this.buffer.toString();
             String nextBufferLexeme = currentBufferLexeme + lexeme;
 
-            String nextBufferType = this.lexemeClassifier.classify(nextBufferLexeme);
-            String currentBufferType = this.lexemeClassifier.classify(currentBufferLexeme);
+            TokenKind nextBufferType = this.lexemeClassifier.classify(nextBufferLexeme);
+            TokenKind currentBufferType = this.lexemeClassifier.classify(currentBufferLexeme);
 
-            boolean isSpace = this.lexemeClassifier.checkTokenType(lexeme, TokenTypes.SPACE);
+            boolean isSpace = this.lexemeClassifier.checkTokenType(lexeme, TokenKind.SPACE);
 
             if (this.isCommentSectionOpen(currentBufferLexeme, nextBufferType)) {
                 this.errorBuffer.append(lexeme);
@@ -73,7 +92,7 @@ public class LexicalAnalyzer {
             }
 
             //Verifica ser o token é um máximo match
-            boolean isMaxMatch = nextBufferType.equals(TokenTypes.INVALID_TOKEN) && !currentBufferLexeme.isEmpty();
+            boolean isMaxMatch = nextBufferType == TokenKind.INVALID_TOKEN && !currentBufferLexeme.isEmpty();
 
             if (isMaxMatch) {
                 // Se for exceção ao máximo match passa para o próximo token
@@ -86,17 +105,17 @@ public class LexicalAnalyzer {
         }
 
         String currentBufferToken = this.buffer.toString();
-        String currentBufferType = this.lexemeClassifier.classify(currentBufferToken);
+        TokenKind currentBufferType = this.lexemeClassifier.classify(currentBufferToken);
         //System.out.println(currentLineNumber + " " + currentBufferToken);
         this.validateBufferLexeme(currentBufferToken, currentBufferType, tokens);
 
         return tokens;
     }
 
-    private boolean isMaxMatchException(List<Token> tokens, StringTokenizer lexemeTokenizer, String lexeme, String currentBufferLexeme, String currentBufferType, boolean isSpace) {
+    private boolean isMaxMatchException(List<Token> tokens, StringTokenizer lexemeTokenizer, String lexeme, String currentBufferLexeme, TokenKind currentBufferType, boolean isSpace) {
         char firstBufferSymbol = this.buffer.charAt(0);
         char lastBufferSymbol = this.buffer.charAt(this.buffer.length() - 1);
-        boolean bufferIsNumber = currentBufferType.equals(TokenTypes.NUMBER);
+        boolean bufferIsNumber = currentBufferType == TokenKind.NUMBER;
 
         //Verificação de números
         boolean incomingFPNumber = bufferIsNumber && lexeme.equals(".");
@@ -111,7 +130,7 @@ public class LexicalAnalyzer {
         }
 
         //Verifica se um sinal negativo é uma expressão aritmética ou pertence a um número negativo
-        boolean subtractionExpression = firstBufferSymbol == '-' && bufferIsNumber && this.getLastInsertedTokenType(tokens).equals(TokenTypes.NUMBER);
+        boolean subtractionExpression = firstBufferSymbol == '-' && bufferIsNumber && this.getLastInsertedTokenType(tokens) == TokenKind.NUMBER;
         if (subtractionExpression) {
             this.expandSubtraction(currentBufferLexeme, firstBufferSymbol, tokens);
             this.buffer.append(lexeme);
@@ -132,14 +151,14 @@ public class LexicalAnalyzer {
 
         String number = currentBufferLexeme.substring(1);
 
-        this.validateBufferLexeme(String.valueOf(firstBufferSymbol), TokenTypes.ARITHMETICAL_OPERATOR, tokens);
-        this.validateBufferLexeme(number, TokenTypes.NUMBER, tokens);
+        this.validateBufferLexeme(String.valueOf(firstBufferSymbol), TokenKind.ARITHMETICAL_OPERATOR, tokens);
+        this.validateBufferLexeme(number, TokenKind.NUMBER, tokens);
 
     }
 
     private void processIncomingString(StringTokenizer lexemeTokenizer, String lexeme, List<Token> tokens) {
         String currentBufferLexeme;
-        String currentBufferType;
+        TokenKind currentBufferType;
 
         this.buffer.append(lexeme);
 
@@ -148,20 +167,20 @@ public class LexicalAnalyzer {
         }
 
         currentBufferLexeme = this.buffer.toString();
-        currentBufferType = TokenTypes.INVALID_TOKEN;
+        currentBufferType = TokenKind.INVALID_TOKEN;
 
         if (currentBufferLexeme.endsWith("\"")) {
-            currentBufferType = TokenTypes.STRING;
+            currentBufferType = TokenKind.STRING;
         }
 
         this.validateBufferLexeme(currentBufferLexeme, currentBufferType, tokens);
     }
 
     //Validação de um um token
-    private void validateBufferLexeme(String token, String tokenType, List<Token> tokens) {
-        if (tokenType.equals(TokenTypes.INVALID_TOKEN)) {
+    private void validateBufferLexeme(String token, TokenKind tokenType, List<Token> tokens) {
+        if (tokenType == TokenKind.INVALID_TOKEN) {
             this.lexicalErrors.add(new LexicalError(this.currentLineNumber, token));
-        } else if (!tokenType.equals(TokenTypes.SPACE)) {
+        } else if (tokenType != TokenKind.SPACE) {
             Token tkn = new Token(tokenType, token, this.currentLineNumber);
             tokens.add(tkn);
         }
@@ -179,9 +198,9 @@ public class LexicalAnalyzer {
     }
 
     //Verificação de comentários de bloco
-    private boolean isCommentSectionOpen(String currentBufferToken, String nextBufferType) {
+    private boolean isCommentSectionOpen(String currentBufferToken, TokenKind nextBufferType) {
         int size = errorBuffer.length();
-        if (nextBufferType.equals(TokenTypes.BLOCK_COMMENT_START)) {
+        if (nextBufferType == TokenKind.BLOCK_COMMENT_START) {
             this.isComment = true;
             this.errorBuffer.append(currentBufferToken);
             this.buffer.delete(0, this.buffer.length());
@@ -194,19 +213,86 @@ public class LexicalAnalyzer {
     }
 
     public List<Token> getTokens() throws IOException {
-        if (this.tokens.size() == 0) {
+        if (this.tokens.size() == 0 && this.scanMode != ScanMode.LINE) {
+            this.tokens = this.getTokenStream().toList();
+        } else if (this.tokens.size() == 0) {
             this.tokens = Files.lines(this.inputFilePath)
                     .map(this::processLine)
                     .flatMap(List::stream)
                     .collect(Collectors.toList());
-            this.tokens.add(new Token(TokenTypes.NO_MORE_TOKENS, "$", -1));
+            this.tokens.add(new Token(TokenKind.NO_MORE_TOKENS, "$", -1));
         }
 
         return this.tokens;
     }
 
+    public TokenStream getTokenStream() throws IOException {
+        if (this.tokenStream == null) {
+            switch (this.scanMode) {
+                case CHAR_STREAM:
+                case STREAMING:
+                    this.tokenStream = this.scanCharStream();
+                    break;
+                case MAPPED:
+                    this.tokenStream = this.scanMappedFile();
+                    break;
+                case PARALLEL:
+                    this.tokenStream = this.scanParallel();
+                    break;
+                default:
+                    this.tokenStream = TokenStream.of(this.getTokens());
+            }
+        }
+
+        return this.tokenStream;
+    }
+
+    // No modo STREAMING os tokens são produzidos à medida que são consultados; nos demais, é o próprio TokenStream
+    public TokenSource getTokenSource() throws IOException {
+        if (this.scanMode != ScanMode.STREAMING || this.tokenStream != null) {
+            return this.getTokenStream();
+        }
+
+        if (this.tokenSource == null) {
+            Reader reader = new InputStreamReader(Files.newInputStream(this.inputFilePath), StandardCharsets.UTF_8.newDecoder());
+            this.tokenSource = new StreamingTokenSource(reader, new CharStreamScanner(this.lexicalErrors));
+        }
+
+        return this.tokenSource;
+    }
+
+    private TokenStream scanCharStream() throws IOException {
+        CharBuffer source = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(Files.readAllBytes(this.inputFilePath)));
+        CharStreamScanner scanner = new CharStreamScanner(this.lexicalErrors);
+
+        return scanner.scan(source.array(), source.arrayOffset() + source.position(), source.arrayOffset() + source.limit());
+    }
+
+    private TokenStream scanParallel() throws IOException {
+        CharBuffer source = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(Files.readAllBytes(this.inputFilePath)));
+        ParallelScanner scanner = new ParallelScanner(this.lexicalErrors, ForkJoinPool.commonPool());
+
+        return scanner.scan(source.array(), source.arrayOffset() + source.position(), source.arrayOffset() + source.limit());
+    }
+
+    private TokenStream scanMappedFile() throws IOException {
+        try (FileChannel channel = FileChannel.open(this.inputFilePath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo grande demais para ser mapeado: " + this.inputFilePath);
+            }
+
+            MappedByteBuffer source = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CharStreamScanner scanner = new CharStreamScanner(this.lexicalErrors);
+
+            return scanner.scan(source);
+        }
+    }
+
 
     public List<LexicalError> getLexicalErrors() {
+        if (this.tokenSource != null) {
+            this.tokenSource.drain();
+        }
         this.checkForErrors();
         return this.lexicalErrors;
     }
@@ -0,0 +1,336 @@
+package analyzers.lexical;
+
+import model.error.LexicalError;
+import model.token.TokenKind;
+import model.token.TokenStream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Análise léxica em paralelo de um texto em memória. O texto é dividido em trechos em fronteiras de linha seguras e
+// cada trecho é analisado em uma tarefa do pool, com um CharStreamScanner próprio, duas vezes: como se começasse fora
+// de um comentário de bloco e como se começasse dentro de um. Depois os trechos são costurados em ordem: o estado de
+// comentário no fim de um trecho escolhe a análise do seguinte, e as linhas são renumeradas a partir do número de
+// linhas dos trechos anteriores. O resultado é o mesmo de CharStreamScanner.scan sobre o texto inteiro.
+//
+// Entre uma linha e outra, o CharStreamScanner só guarda o comentário de bloco aberto. Uma fronteira é segura quando a
+// linha anterior não está vazia, não tem comentário de linha e não termina em '*' nem em '/': se ela termina dentro de
+// um comentário, o texto acumulado não termina em "*" nem em "*/", e o fechamento do comentário só depende do trecho
+// seguinte. A análise de dentro do comentário para na primeira linha que termina fora dele; se a análise de fora
+// também está fora de comentário no fim dessa linha, as duas coincidem daí em diante. Quando nenhum '*' do trecho é
+// seguido de '/', o comentário não fecha no trecho e ele nem é analisado como comentário: o texto do comentário só
+// é montado se a costura escolher essa análise.
+class ParallelScanner {
+    // Trechos menores não compensam o custo de uma tarefa
+    private static final int MIN_CHUNK_LENGTH = 64 * 1024;
+    // Trechos por thread do pool, para equilibrar trechos de custo diferente
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final List<LexicalError> lexicalErrors;
+    private final ForkJoinPool pool;
+    private final int minChunkLength;
+
+    ParallelScanner(List<LexicalError> lexicalErrors, ForkJoinPool pool) {
+        this(lexicalErrors, pool, MIN_CHUNK_LENGTH);
+    }
+
+    ParallelScanner(List<LexicalError> lexicalErrors, ForkJoinPool pool, int minChunkLength) {
+        this.lexicalErrors = lexicalErrors;
+        this.pool = pool;
+        this.minChunkLength = minChunkLength;
+    }
+
+    TokenStream scan(char[] source, int start, int end) {
+        List<Chunk> chunks = this.split(source, start, end);
+
+        if (chunks.size() < 2) {
+            return new CharStreamScanner(this.lexicalErrors).scan(source, start, end);
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            tasks.add(ForkJoinTask.adapt(chunk));
+        }
+
+        this.pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        return this.stitch(source, chunks);
+    }
+
+    private List<Chunk> split(char[] source, int start, int end) {
+        int count = Math.min(this.pool.getParallelism() * CHUNKS_PER_THREAD, (end - start) / this.minChunkLength);
+        List<Chunk> chunks = new ArrayList<>();
+        int chunkStart = start;
+
+        for (int i = 1; i < count; i++) {
+            int target = start + (int) ((long) (end - start) * i / count);
+            int boundary = findBoundary(source, Math.max(chunkStart, target), end);
+
+            if (boundary == end) {
+                break;
+            }
+
+            chunks.add(new Chunk(source, chunkStart, boundary, chunks.isEmpty()));
+            chunkStart = boundary;
+        }
+
+        chunks.add(new Chunk(source, chunkStart, end, chunks.isEmpty()));
+        return chunks;
+    }
+
+    // Junta as análises dos trechos, escolhidas pelo estado de comentário no fim do trecho anterior
+    private TokenStream stitch(char[] source, List<Chunk> chunks) {
+        // Os trechos quase sempre são costurados pela análise de fora do comentário; mais o token de fim de arquivo
+        int capacity = 1;
+        for (Chunk chunk : chunks) {
+            capacity += chunk.outside.tokenCount;
+        }
+
+        TokenStream tokens = new TokenStream(source, capacity);
+        boolean inComment = false;
+        StringBuilder openComment = new StringBuilder();
+        int lineShift = 0;
+
+        for (Chunk chunk : chunks) {
+            Scan scan = inComment ? chunk.inside : chunk.outside;
+
+            if (!scan.commentOnly) {
+                tokens.addAll(scan.tokens, 0, scan.tokenCount, lineShift);
+                this.addErrors(scan.errors, 0, scan.errorCount, lineShift);
+            }
+
+            if (scan.rest != null) {
+                tokens.addAll(scan.rest.tokens, scan.restTokens, scan.rest.tokenCount, lineShift);
+                this.addErrors(scan.rest.errors, scan.restErrors, scan.rest.errorCount, lineShift);
+                scan = scan.rest;
+            }
+
+            if (!scan.continuesComment) {
+                openComment.setLength(0);
+            }
+            if (scan.commentOnly) {
+                openComment.append(chunk.scanComment());
+            } else if (scan.openComment != null) {
+                openComment.append(scan.openComment);
+            }
+
+            inComment = scan.endsInComment;
+            lineShift += chunk.lineCount;
+        }
+
+        // Como em CharStreamScanner.finish
+        if (openComment.length() > 0) {
+            this.lexicalErrors.add(new LexicalError(lineShift, openComment.toString()));
+        }
+        tokens.add(TokenKind.NO_MORE_TOKENS, "$", -1);
+
+        return tokens;
+    }
+
+    private void addErrors(List<LexicalError> errors, int from, int to, int lineShift) {
+        for (LexicalError error : errors.subList(from, to)) {
+            this.lexicalErrors.add(lineShift == 0 ? error : new LexicalError(error.getLine() + lineShift, error.getToken()));
+        }
+    }
+
+    // Início da linha seguinte à primeira linha segura depois de from, ou end
+    private static int findBoundary(char[] source, int from, int end) {
+        int lineStart = nextLine(source, lineEnd(source, from, end), end);
+
+        while (lineStart < end) {
+            int lineEnd = lineEnd(source, lineStart, end);
+            int next = nextLine(source, lineEnd, end);
+
+            if (isSafe(source, lineStart, lineEnd)) {
+                return next;
+            }
+            lineStart = next;
+        }
+
+        return end;
+    }
+
+    private static boolean isSafe(char[] source, int start, int end) {
+        while (start < end && source[start] <= ' ') start++;
+        while (end > start && source[end - 1] <= ' ') end--;
+
+        if (start == end || source[end - 1] == '*' || source[end - 1] == '/') {
+            return false;
+        }
+
+        for (int i = start; i + 1 < end; i++) {
+            if (source[i] == '/' && source[i + 1] == '/') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Dentro de um comentário, o texto acumulado só termina em "*/" com um '*' seguido de '/', sem contar os espaços
+    // do fim e do início das linhas; os comentários de linha removidos entre eles também começam com '/'
+    private static boolean mayCloseComment(char[] source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (source[i] == '*') {
+                int next = i + 1;
+
+                while (next < end && source[next] <= ' ') next++;
+
+                if (next < end && source[next] == '/') {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // Mesmas quebras de linha do CharStreamScanner.scan: \n, \r ou \r\n
+    private static int lineEnd(char[] source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (source[i] == '\n' || source[i] == '\r') {
+                return i;
+            }
+        }
+
+        return end;
+    }
+
+    private static int nextLine(char[] source, int lineEnd, int end) {
+        if (lineEnd == end) {
+            return end;
+        }
+
+        return source[lineEnd] == '\r' && lineEnd + 1 < end && source[lineEnd + 1] == '\n' ? lineEnd + 2 : lineEnd + 1;
+    }
+
+    // Trecho do texto que começa e termina em fronteiras de linha, com as duas análises
+    private static class Chunk implements Runnable {
+        private final char[] source;
+        private final int start;
+        private final int end;
+        // O primeiro trecho sempre começa fora de comentário
+        private final boolean first;
+        private int lineCount;
+        private Scan outside;
+        private Scan inside;
+
+        Chunk(char[] source, int start, int end, boolean first) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            this.first = first;
+        }
+
+        @Override
+        public void run() {
+            CharStreamScanner insideScanner = null;
+            int insideLines = -1;
+            int insideEnd = this.end;
+
+            // Dentro do comentário, até a primeira linha que termina fora dele
+            if (!this.first) {
+                this.inside = new Scan();
+
+                if (mayCloseComment(this.source, this.start, this.end)) {
+                    insideScanner = this.inside.begin(this.source, true);
+                    insideLines = 0;
+                    insideEnd = this.start;
+
+                    do {
+                        insideEnd = this.scanLine(insideScanner, insideEnd);
+                        insideLines++;
+                    } while (insideEnd < this.end && insideScanner.isInComment());
+                } else {
+                    this.inside.commentOnly = true;
+                    this.inside.endsInComment = true;
+                    this.inside.continuesComment = true;
+                }
+            }
+
+            this.outside = new Scan();
+            CharStreamScanner scanner = this.outside.begin(this.source, false);
+            int position = this.start;
+            boolean converges = false;
+
+            while (position < this.end) {
+                position = this.scanLine(scanner, position);
+                this.lineCount++;
+
+                if (this.lineCount == insideLines && insideEnd < this.end && !scanner.isInComment()) {
+                    converges = true;
+                    this.inside.rest = this.outside;
+                    this.inside.restTokens = this.outside.tokens.size();
+                    this.inside.restErrors = this.outside.errors.size();
+                }
+            }
+            this.outside.end(scanner);
+
+            if (insideScanner != null) {
+                // Raro: a análise de fora entrou em um comentário que a de dentro fechou
+                while (!converges && insideEnd < this.end) {
+                    insideEnd = this.scanLine(insideScanner, insideEnd);
+                }
+                this.inside.end(insideScanner);
+            }
+        }
+
+        // Texto do comentário aberto antes do trecho que não fecha nele
+        String scanComment() {
+            CharStreamScanner scanner = new Scan().begin(this.source, true);
+
+            for (int position = this.start; position < this.end; ) {
+                position = this.scanLine(scanner, position);
+            }
+
+            String comment = scanner.getOpenComment();
+            return comment == null ? "" : comment;
+        }
+
+        // Analisa a linha que começa em lineStart e retorna o início da seguinte
+        private int scanLine(CharStreamScanner scanner, int lineStart) {
+            int lineEnd = lineEnd(this.source, lineStart, this.end);
+
+            scanner.processLine(this.source, lineStart, lineEnd);
+            return nextLine(this.source, lineEnd, this.end);
+        }
+    }
+
+    // Análise de um trecho a partir de um estado de comentário. Se ela coincide com a análise de fora do comentário
+    // a partir de uma linha, os tokens e erros seguintes são os de rest, a partir de restTokens e restErrors
+    private static class Scan {
+        private TokenStream tokens;
+        private List<LexicalError> errors;
+        private int tokenCount;
+        private int errorCount;
+        private boolean endsInComment;
+        private boolean continuesComment;
+        private String openComment;
+        // O trecho todo é comentário: não há tokens nem erros, e o texto do comentário é montado por Chunk.scanComment
+        private boolean commentOnly;
+
+        private Scan rest;
+        private int restTokens;
+        private int restErrors;
+
+        CharStreamScanner begin(char[] source, boolean inComment) {
+            this.tokens = new TokenStream(source);
+            this.errors = new ArrayList<>();
+
+            CharStreamScanner scanner = new CharStreamScanner(this.errors);
+            scanner.restart(source, this.tokens, inComment);
+            return scanner;
+        }
+
+        // Guarda o estado no fim da análise; se ela coincide com rest, o estado do fim é o de rest
+        void end(CharStreamScanner scanner) {
+            this.tokenCount = this.tokens.size();
+            this.errorCount = this.errors.size();
+            this.endsInComment = scanner.isInComment();
+            this.continuesComment = scanner.continuesComment();
+            this.openComment = scanner.getOpenComment();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package analyzers.lexical;
+
+public enum ScanMode {
+    // Linha a linha, com StringTokenizer e reconcatenação do buffer (modo original)
+    LINE,
+    // Varredura única do arquivo decodificado em memória, com cursor sobre um char[]
+    CHAR_STREAM,
+    // Varredura dos bytes ASCII do arquivo mapeado em memória, sem criar uma String por linha
+    MAPPED,
+    // Como CHAR_STREAM, mas o texto é dividido em trechos analisados em paralelo no ForkJoinPool comum
+    PARALLEL,
+    // Leitura sob demanda: as linhas só são analisadas quando o analisador sintático pede o próximo token
+    STREAMING
+}
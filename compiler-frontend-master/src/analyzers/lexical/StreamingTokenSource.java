@@ -0,0 +1,285 @@
+package analyzers.lexical;
+
+import model.token.Keyword;
+import model.token.Token;
+import model.token.TokenKind;
+import model.token.TokenSource;
+import model.token.TokenStream;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+// Origem de tokens sob demanda: a entrada só é lida e analisada, linha a linha, quando o cursor pede um token
+// que ainda não foi produzido. Os tokens ficam em um buffer circular que guarda apenas a janela entre o token mais
+// antigo ainda consultável (o corrente ou um ponto de rollback) e o último lido, e só cresce enquanto há um
+// ponto de rollback retido.
+class StreamingTokenSource implements TokenSource {
+    private static final int INITIAL_CAPACITY = 8; // token corrente + peekToken(2) do analisador sintático
+
+    private final Reader reader;
+    private final CharStreamScanner scanner;
+    private final TokenStream lineTokens;
+    private int pending;
+    private boolean finished;
+
+    // Texto lido e ainda não quebrado em linhas
+    private char[] chars;
+    private int start;
+    private int limit;
+    private int lineStart;
+    private boolean skipLineFeed;
+
+    // Buffer circular: o token de índice i fica na posição i & mask
+    private byte[] kinds;
+    private byte[] keywords;
+    private int[] lines;
+    private int[] lengths;
+    private char[][] values;
+    private int mask;
+    private int first;
+    private int end;
+
+    StreamingTokenSource(Reader reader, CharStreamScanner scanner) {
+        this.reader = reader;
+        this.scanner = scanner;
+        this.lineTokens = new TokenStream();
+        this.chars = new char[8192];
+        this.kinds = new byte[INITIAL_CAPACITY];
+        this.keywords = new byte[INITIAL_CAPACITY];
+        this.lines = new int[INITIAL_CAPACITY];
+        this.lengths = new int[INITIAL_CAPACITY];
+        this.values = new char[INITIAL_CAPACITY][];
+        this.mask = INITIAL_CAPACITY - 1;
+
+        this.scanner.begin(this.lineTokens);
+    }
+
+    @Override
+    public boolean fetch(int index) {
+        while (this.end <= index) {
+            if (this.pending < this.lineTokens.size()) {
+                this.push(this.pending++);
+            } else if (!this.scanNextLine()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public void discardBefore(int index) {
+        if (index > this.first) {
+            this.first = Math.min(index, this.end);
+        }
+    }
+
+    // Lê o restante da entrada descartando os tokens, para que todos os erros léxicos sejam registrados
+    void drain() {
+        while (this.scanNextLine()) {
+            this.lineTokens.clear();
+        }
+    }
+
+    private boolean scanNextLine() {
+        if (this.finished) {
+            return false;
+        }
+
+        this.lineTokens.clear();
+        this.pending = 0;
+
+        try {
+            int lineEnd = this.readLine();
+
+            if (lineEnd >= 0) {
+                this.scanner.processLine(this.chars, this.lineStart, lineEnd);
+            } else {
+                this.scanner.finish();
+                this.finished = true;
+                this.reader.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return true;
+    }
+
+    // Mesmas regras de BufferedReader.readLine (\n, \r ou \r\n); retorna o fim da linha ou -1 no fim da entrada
+    private int readLine() throws IOException {
+        int scanned = 0;
+
+        while (true) {
+            if (this.skipLineFeed && this.start < this.limit) {
+                if (this.chars[this.start] == '\n') {
+                    this.start++;
+                }
+                this.skipLineFeed = false;
+            }
+
+            for (int i = this.start + scanned; i < this.limit; i++) {
+                char ch = this.chars[i];
+
+                if (ch == '\n' || ch == '\r') {
+                    this.lineStart = this.start;
+                    this.start = i + 1;
+                    this.skipLineFeed = ch == '\r';
+                    return i;
+                }
+            }
+            scanned = this.limit - this.start;
+
+            if (!this.fill()) {
+                if (this.start < this.limit) {
+                    this.lineStart = this.start;
+                    this.start = this.limit;
+                    return this.limit;
+                }
+
+                return -1;
+            }
+        }
+    }
+
+    // Move o texto pendente para o início do buffer e lê mais; retorna false no fim da entrada
+    private boolean fill() throws IOException {
+        int length = this.limit - this.start;
+        System.arraycopy(this.chars, this.start, this.chars, 0, length);
+        this.start = 0;
+        this.limit = length;
+
+        if (this.limit == this.chars.length) {
+            this.chars = Arrays.copyOf(this.chars, this.chars.length * 2);
+        }
+
+        int read = this.reader.read(this.chars, this.limit, this.chars.length - this.limit);
+        if (read < 0) {
+            return false;
+        }
+
+        this.limit += read;
+        return true;
+    }
+
+    private void push(int token) {
+        if (this.end - this.first > this.mask) {
+            this.grow();
+        }
+
+        int slot = this.end & this.mask;
+        int length = this.lineTokens.getLength(token);
+        Keyword keyword = this.lineTokens.getKeyword(token);
+
+        if (this.values[slot] == null || this.values[slot].length < length) {
+            this.values[slot] = new char[Math.max(length, 16)];
+        }
+
+        this.kinds[slot] = (byte) this.lineTokens.getKind(token).ordinal();
+        this.keywords[slot] = (byte) (keyword == null ? -1 : keyword.ordinal());
+        this.lines[slot] = this.lineTokens.getLine(token);
+        this.lengths[slot] = length;
+        this.lineTokens.getValueChars(token, this.values[slot], 0);
+        this.end++;
+    }
+
+    private void grow() {
+        int capacity = (this.mask + 1) * 2;
+        byte[] kinds = new byte[capacity];
+        byte[] keywords = new byte[capacity];
+        int[] lines = new int[capacity];
+        int[] lengths = new int[capacity];
+        char[][] values = new char[capacity][];
+
+        for (int index = this.first; index < this.end; index++) {
+            int from = index & this.mask;
+            int to = index & (capacity - 1);
+
+            kinds[to] = this.kinds[from];
+            keywords[to] = this.keywords[from];
+            lines[to] = this.lines[from];
+            lengths[to] = this.lengths[from];
+            values[to] = this.values[from];
+        }
+
+        this.kinds = kinds;
+        this.keywords = keywords;
+        this.lines = lines;
+        this.lengths = lengths;
+        this.values = values;
+        this.mask = capacity - 1;
+    }
+
+    private int slot(int index) {
+        if (index < this.first || index >= this.end) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Window: [" + this.first + ", " + this.end + ")");
+        }
+
+        return index & this.mask;
+    }
+
+    @Override
+    public TokenKind getKind(int index) {
+        return TokenKind.valueOf(this.kinds[this.slot(index)]);
+    }
+
+    @Override
+    public Keyword getKeyword(int index) {
+        int slot = this.slot(index);
+        return this.keywords[slot] < 0 ? null : Keyword.valueOf(this.keywords[slot]);
+    }
+
+    @Override
+    public int getLine(int index) {
+        return this.lines[this.slot(index)];
+    }
+
+    @Override
+    public String getValue(int index) {
+        int slot = this.slot(index);
+        return new String(this.values[slot], 0, this.lengths[slot]);
+    }
+
+    @Override
+    public boolean valueEquals(int index, String value) {
+        int slot = this.slot(index);
+        int length = this.lengths[slot];
+
+        if (length != value.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (this.values[slot][i] != value.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public char getSingleChar(int index) {
+        int slot = this.slot(index);
+        return this.lengths[slot] == 1 ? this.values[slot][0] : 0;
+    }
+
+    @Override
+    public int getValueHash(int index) {
+        int slot = this.slot(index);
+        int hash = 0;
+
+        for (int i = 0; i < this.lengths[slot]; i++) {
+            hash = 31 * hash + this.values[slot][i];
+        }
+
+        return hash;
+    }
+
+    @Override
+    public Token getToken(int index) {
+        return new Token(this.getKind(index), this.getValue(index), this.getLine(index));
+    }
+}
@@ -0,0 +1,209 @@
+package analyzers.semantic;
+
+import model.ast.SyntaxTree;
+import model.error.SemanticError;
+import model.semantic.Scope;
+import model.semantic.entries.MethodEntry;
+import model.semantic.entries.MethodSignature;
+import model.semantic.entries.VariableEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Resultado da verificação do corpo (comandos e expressão de retorno) de cada método e da main, para a verificação
+// incremental. O corpo não altera a tabela de símbolos: os erros e o tipo do retorno dependem só da subárvore e das
+// entradas que ele consultou, que são as suas dependências: as variáveis e constantes do contexto, e os atributos e
+// métodos das classes dos objetos usados, já com os herdados da classe mãe. As declarações continuam verificadas
+// a cada análise, porque montam o contexto dos corpos seguintes.
+//
+// Um corpo da análise anterior é reaproveitado quando o método é cópia de um método da árvore anterior
+// (SyntaxTree.getOrigin), como a análise sintática incremental faz com as unidades que não mudaram, e cada dependência
+// leva à mesma entrada (nome, tipo e se é constante). Os erros são deslocados quando o método só mudou de linha.
+// Sem a origem dos nós, o corpo não é procurado: conferir a subárvore custaria o mesmo que verificá-la.
+class CheckedBodies {
+    private final SyntaxTree tree;
+    private final List<SemanticError> errors;
+
+    // Corpos verificados, pelo nó do método ou da main na árvore
+    private SyntaxTree previousTree;
+    private Map<Integer, Body> previousBodies;
+    private final Map<Integer, Body> bodies;
+
+    // Corpo em verificação, que recebe as dependências consultadas pela visão devolvida por begin()
+    private Body open;
+    private int openNode;
+    private int openErrors;
+
+    private int checkedBodies;
+    private int reusedBodies;
+
+    CheckedBodies(SyntaxTree tree, List<SemanticError> errors, CheckedBodies previous) {
+        this.tree = tree;
+        this.errors = errors;
+        this.previousTree = previous == null ? null : previous.tree;
+        this.previousBodies = previous == null ? Collections.<Integer, Body>emptyMap() : previous.bodies;
+        this.bodies = new HashMap<>();
+    }
+
+    int getCheckedBodies() {
+        return checkedBodies;
+    }
+
+    int getReusedBodies() {
+        return reusedBodies;
+    }
+
+    // Fim da análise: a análise anterior não é mais necessária
+    void finish() {
+        this.previousTree = null;
+        this.previousBodies = Collections.emptyMap();
+        this.open = null;
+    }
+
+    // Se o corpo do método ou da main em node foi verificado na análise anterior e as dependências não mudaram,
+    // acrescenta os erros e retorna o tipo da expressão de retorno; senão retorna SemanticAnalyzer.NO_TYPE
+    int reuse(int node, SymbolView view) {
+        // As dependências são guardadas pelos números dos nomes, que só valem na mesma numeração
+        if (this.previousTree == null || this.tree.getSource() != this.previousTree || this.tree.getSymbols() != this.previousTree.getSymbols()) {
+            return SemanticAnalyzer.NO_TYPE;
+        }
+
+        Body body = this.previousBodies.get(this.tree.getOrigin(node));
+
+        if (body == null || !body.isValid(view)) {
+            return SemanticAnalyzer.NO_TYPE;
+        }
+
+        Body copy = body.move(this.tree.getLine(node));
+
+        this.errors.addAll(copy.errors);
+        this.bodies.put(node, copy);
+        this.reusedBodies++;
+        return copy.returnType;
+    }
+
+    // Início da verificação do corpo de node; as consultas feitas pela visão devolvida são as dependências dele
+    SymbolView begin(int node, SymbolView view) {
+        this.open = new Body(this.tree.getLine(node));
+        this.openNode = node;
+        this.openErrors = this.errors.size();
+        return view.recording(this.open);
+    }
+
+    void end(int returnType) {
+        Body body = this.open;
+
+        body.errors = new ArrayList<>(this.errors.subList(this.openErrors, this.errors.size()));
+        body.returnType = returnType;
+
+        this.open = null;
+        this.bodies.put(this.openNode, body);
+        this.checkedBodies++;
+    }
+
+    // O corpo só lê o nome, o tipo e se a entrada é constante
+    private static boolean sameEntry(VariableEntry a, VariableEntry b) {
+        if (a == b) {
+            return true;
+        }
+
+        return a != null && b != null && Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getType(), b.getType()) && a.isConst() == b.isConst();
+    }
+
+    // Corpo verificado: as dependências, os erros e o tipo da expressão de retorno. As variáveis consultadas ficam
+    // pelo número do nome, com null quando o nome não estava no contexto
+    static class Body {
+        private final int line;
+        private final Scope variables;
+        private final List<MemberRead> members;
+        private List<SemanticError> errors;
+        private int returnType;
+
+        Body(int line) {
+            this(line, new Scope(), new ArrayList<MemberRead>());
+        }
+
+        Body(int line, Scope variables, List<MemberRead> members) {
+            this.line = line;
+            this.variables = variables;
+            this.members = members;
+        }
+
+        void readVariable(int symbol, VariableEntry entry) {
+            if (!this.variables.containsOwn(symbol)) {
+                this.variables.put(symbol, entry);
+            }
+        }
+
+        void readMethod(String className, MethodSignature signature, String returnType) {
+            this.members.add(new MemberRead(className, signature, null, returnType, null));
+        }
+
+        void readField(String className, String name, VariableEntry entry) {
+            this.members.add(new MemberRead(className, null, name, null, entry));
+        }
+
+        private boolean isValid(SymbolView view) {
+            for (int i = 0; i < this.variables.size(); i++) {
+                if (!sameEntry(this.variables.getEntry(i), view.getVariable(this.variables.getSymbol(i)))) {
+                    return false;
+                }
+            }
+
+            for (MemberRead member : this.members) {
+                if (member.signature != null) {
+                    MethodEntry method = view.getMethod(member.className, member.signature);
+
+                    if (!Objects.equals(member.returnType, method == null ? null : method.getReturnType())) {
+                        return false;
+                    }
+                } else if (!sameEntry(member.entry, view.getField(member.className, member.name))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        // O mesmo corpo, no método que começa em line
+        private Body move(int line) {
+            int lineShift = line - this.line;
+            Body body = new Body(line, this.variables, this.members);
+
+            body.returnType = this.returnType;
+            body.errors = this.errors;
+
+            if (lineShift != 0 && !this.errors.isEmpty()) {
+                body.errors = new ArrayList<>(this.errors.size());
+
+                for (SemanticError error : this.errors) {
+                    int errorLine = error.getLine() == -1 ? -1 : error.getLine() + lineShift;
+                    body.errors.add(new SemanticError(errorLine, error.getToken(), error.getExpected(), error.getType()));
+                }
+            }
+
+            return body;
+        }
+    }
+
+    // Método (pela assinatura, com o tipo de retorno) ou atributo (pelo nome) consultado em uma classe
+    private static class MemberRead {
+        private final String className;
+        private final MethodSignature signature;
+        private final String name;
+        private final String returnType;
+        private final VariableEntry entry;
+
+        MemberRead(String className, MethodSignature signature, String name, String returnType, VariableEntry entry) {
+            this.className = className;
+            this.signature = signature;
+            this.name = name;
+            this.returnType = returnType;
+            this.entry = entry;
+        }
+    }
+}
@@ -1,45 +1,122 @@
 package analyzers.semantic;
 
+import analyzers.syntatical.SyntacticalAnalyzer;
+import model.ast.NodeKind;
+import model.ast.Symbols;
+import model.ast.SyntaxTree;
 import model.error.SemanticError;
+import model.semantic.Scope;
 import model.semantic.SymbolTable;
+import model.semantic.Types;
 import model.semantic.entries.ClassEntry;
 import model.semantic.entries.MethodEntry;
+import model.semantic.entries.MethodSignature;
 import model.semantic.entries.VariableEntry;
 import model.token.Token;
+import model.token.TokenKind;
+import model.token.TokenStream;
 import model.token.TokenTypes;
 
 import javax.management.InstanceAlreadyExistsException;
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Percorre uma única vez a árvore montada pelo SyntacticalAnalyzer. As expressões são verificadas na ordem em que
+// os tokens aparecem no código, como a versão anterior, que relia os tokens, fazia: os operandos devem ter todos o
+// mesmo tipo e o primeiro operador relacional ou lógico torna a expressão booleana.
+//
+// Na verificação paralela, a passada pela árvore verifica só as declarações e guarda a história da tabela de símbolos;
+// os corpos dos métodos e da main, que só consultam a tabela, são verificados depois no pool, uma tarefa por classe,
+// cada corpo com a tabela como estava no seu ponto do programa. Os erros de cada corpo são intercalados com os das
+// declarações na ordem em que a verificação sequencial os encontraria.
+//
+// As variáveis são consultadas pelo número do nome (Symbols) em escopos (Scope): o das constantes, o dos atributos de
+// cada classe, que aponta para o da classe mãe, e os dos parâmetros e das variáveis de cada método. Como na versão
+// anterior, os atributos, parâmetros e variáveis de cada método são copiados para o escopo das constantes, em que os
+// corpos são verificados, e continuam lá para as declarações e os corpos seguintes. Os atributos da classe são
+// copiados no primeiro método; nos seguintes, só os que os parâmetros e variáveis de um método trocaram.
+//
+// Os tipos são comparados pelos números de Types; os nomes deles só aparecem nas mensagens de erro.
 public class SemanticAnalyzer {
-    private final List<Token> tokens;
+    // Tipo de retorno de um corpo que ainda vai ser verificado, ou de um corpo sem retorno a conferir
+    static final int NO_TYPE = -1;
+
+    private final SyntaxTree tree;
+    private final Symbols symbols;
+    private final Types types;
     private SymbolTable symbolTable;
-    private int tokenIndex;
-    private Token currentToken;
     private VariableEntry currentVariableEntry;
     private String currentType;
+    private int currentTypeId;
     private List<SemanticError> errors;
+    private final CheckedBodies bodies;
+
+    // Escopo dos atributos de cada classe; o da classe cujos atributos estão no escopo das constantes e os nomes
+    // deles que receberam outra entrada depois
+    private final Map<ClassEntry, Scope> classScopes;
+    private Scope definedClass;
+    private int[] overwritten;
+    private int overwrittenSize;
+
+    // Verificação paralela: a história da tabela e os corpos a verificar, agrupados por classe
+    private final ForkJoinPool pool;
+    private final SymbolHistory history;
+    private final List<List<BodyTask>> groups;
 
 
     public SemanticAnalyzer(List<Token> tokens) {
+        this(TokenStream.of(tokens));
+    }
+
+    // Sem a árvore, refaz a análise sintática; os erros sintáticos ficam a cargo de quem chamou o SyntacticalAnalyzer
+    public SemanticAnalyzer(TokenStream tokens) {
+        this(new SyntacticalAnalyzer(tokens).parseProgram());
+    }
+
+    public SemanticAnalyzer(SyntaxTree tree) {
+        this(tree, null, false, null);
+    }
+
+    // Verifica os corpos dos métodos em paralelo no pool; o resultado é o mesmo da verificação sequencial
+    public SemanticAnalyzer(SyntaxTree tree, ForkJoinPool pool) {
+        this(tree, null, false, pool);
+    }
+
+    // Verificação incremental: as declarações são verificadas de novo, e o corpo de cada método e da main só é
+    // verificado de novo se não foi copiado da árvore de previous pela análise sintática incremental ou se alguma das
+    // entradas que ele consultou mudou; senão os erros são reaproveitados. Com previous null, faz a verificação
+    // completa e guarda os corpos para a próxima
+    public SemanticAnalyzer(SyntaxTree tree, SemanticAnalyzer previous) {
+        this(tree, previous, true, null);
+    }
+
+    private SemanticAnalyzer(SyntaxTree tree, SemanticAnalyzer previous, boolean incremental, ForkJoinPool pool) {
         currentVariableEntry = new VariableEntry(null, null, -1);
 
-        symbolTable = new SymbolTable();
+        this.tree = tree;
+        this.symbols = tree.getSymbols();
+        this.symbolTable = new SymbolTable(this.symbols);
+        this.types = new Types(this.symbols);
+        this.classScopes = new IdentityHashMap<>();
+        this.overwritten = new int[16];
 
-        this.tokens = tokens;
-        this.tokenIndex = 0;
-        this.updateToken();
         this.errors = new ArrayList<>();
-        analyzer();
-    }
+        this.bodies = incremental ? new CheckedBodies(tree, this.errors, previous == null ? null : previous.bodies) : null;
+        this.pool = pool;
+        this.history = pool == null ? null : new SymbolHistory();
+        this.groups = pool == null ? null : new ArrayList<List<BodyTask>>();
 
-    private void updateToken() throws IndexOutOfBoundsException {
-        if (this.tokenIndex < this.tokens.size()) {
-            this.currentToken = this.tokens.get(this.tokenIndex);
-            this.tokenIndex++;
-        } else {
-            throw new IndexOutOfBoundsException("No more tokens");
+        try {
+            analyzer();
+
+            if (this.pool != null) {
+                checkBodies();
+            }
+        } finally {
+            if (this.bodies != null) {
+                this.bodies.finish();
+            }
         }
     }
 
@@ -48,145 +125,222 @@ public class SemanticAnalyzer {
         return errors;
     }
 
-    private void analyzer() {
-        checkConst();
-        checkClass();
-        checkMain();
+    // Corpos reaproveitados da verificação anterior e verificados de novo, na verificação incremental
+    public int getReusedBodies() {
+        return this.bodies == null ? 0 : this.bodies.getReusedBodies();
+    }
+
+    public int getCheckedBodies() {
+        return this.bodies == null ? 0 : this.bodies.getCheckedBodies();
     }
 
-    private void checkConst() {
-        if (eatTerminal("const")) {
-            if (eatTerminal("{")) {
-                checkDeclaration(true, this.symbolTable.getConstContext());
+    private void analyzer() {
+        int program = this.tree.getRoot();
+
+        if (program == SyntaxTree.NO_NODE) {
+            return;
+        }
+
+        for (int i = 0; i < this.tree.getChildCount(program); i++) {
+            int node = this.tree.getChild(program, i);
+
+            switch (this.tree.getKind(node)) {
+                case CONST_BLOCK:
+                    checkDeclarations(node, true, this.symbolTable.getConstContext(), null);
+
+                    if (this.history != null) {
+                        this.history.putAll(this.symbolTable.getConstContext());
+                    }
+                    break;
+                case CLASS:
+                    checkClass(node);
+                    break;
+                case MAIN:
+                    checkMain(node);
+                    break;
             }
         }
     }
 
-    private void checkVariable(ClassEntry context) {
-        if (eatTerminal("variables")) {
-            if (eatTerminal("{")) {
-                checkDeclaration(false, context.getVariables());
+    // Verifica no pool os corpos guardados pela passada de declarações e intercala os erros
+    private void checkBodies() {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+        for (List<BodyTask> group : this.groups) {
+            if (!group.isEmpty()) {
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    for (BodyTask body : group) {
+                        body.run();
+                    }
+                }));
             }
         }
-    }
 
+        this.pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        List<SemanticError> errors = new ArrayList<>(this.errors.size());
+        int copied = 0;
 
-    private boolean checkForType(String type) {
-        return currentToken.getType().equals(type);
+        for (List<BodyTask> group : this.groups) {
+            for (BodyTask body : group) {
+                errors.addAll(this.errors.subList(copied, body.errorIndex));
+                errors.addAll(body.errors);
+                copied = body.errorIndex;
+
+                // O erro de retorno vem depois dos erros da declaração do método
+                if (body.returnType != NO_TYPE) {
+                    errors.addAll(this.errors.subList(copied, body.returnIndex));
+                    checkReturn(body.node, body.returnType, body.expressionType, errors);
+                    copied = body.returnIndex;
+                }
+            }
+        }
+
+        errors.addAll(this.errors.subList(copied, this.errors.size()));
+        this.errors = errors;
     }
 
-    private boolean eatTerminal(String tokenValue) {
-        if (currentToken.getValue().equals(tokenValue)) {
-            this.updateToken();
-            return true;
+    // Corpo de um método ou da main na verificação paralela. Os erros do corpo entram na posição errorIndex dos
+    // erros da passada de declarações, e o de retorno, quando o corpo é de um método, na posição returnIndex
+    private class BodyTask implements Runnable {
+        private final int node;
+        private final int version;
+        private final int errorIndex;
+        private final List<SemanticError> errors;
+        private int returnType;
+        private int returnIndex;
+        private int expressionType;
+
+        BodyTask(int node, int version, int errorIndex) {
+            this.node = node;
+            this.version = version;
+            this.errorIndex = errorIndex;
+            this.errors = new ArrayList<>();
+            this.returnType = NO_TYPE;
+        }
+
+        void expectReturn(int returnType, int returnIndex) {
+            this.returnType = returnType;
+            this.returnIndex = returnIndex;
+        }
+
+        @Override
+        public void run() {
+            this.expressionType = checkStatements(this.node, new SymbolView(history, this.version, symbolTable.getClasses(), this.errors));
         }
-        return false;
     }
 
-    private boolean checkForTerminal(String terminal) {
-        return this.currentToken.getValue().equals(terminal);
+    private int child(int node, int index) {
+        return index < this.tree.getChildCount(node) ? this.tree.getChild(node, index) : SyntaxTree.NO_NODE;
     }
 
-    private void checkDeclaration(boolean isConst, Map<String, VariableEntry> context) {
-        checkDeclaration(isConst, true, context, false);
+    // Blocos const, variables e os parâmetros de um método: uma lista de declarações por tipo. As declarações dos
+    // atributos de uma classe também entram em members, a tabela da classe
+    private void checkDeclarations(int node, boolean isConst, Scope context, Map<String, VariableEntry> members) {
+        if (node == SyntaxTree.NO_NODE) {
+            return;
+        }
+
+        for (int i = 0; i < this.tree.getChildCount(node); i++) {
+            int list = this.tree.getChild(node, i);
+
+            if (this.tree.isKind(list, NodeKind.DECLARATION_LIST)) {
+                checkDeclarationList(list, isConst, context, members);
+            }
+        }
     }
 
-    private void checkDeclaration(boolean isConst, boolean updateType, Map<String, VariableEntry> context, boolean isParam) {
-        if (updateType && !checkForTerminal(")")) {
-            currentType = TokenTypes.convertType(currentToken.getValue());
+    private void checkDeclarationList(int list, boolean isConst, Scope context, Map<String, VariableEntry> members) {
+        int type = this.tree.findChild(list, NodeKind.TYPE);
+
+        if (type != SyntaxTree.NO_NODE) {
+            currentType = TokenTypes.convertType(this.tree.getValue(type));
+            currentTypeId = this.types.intern(currentType);
 
             if (!this.symbolTable.isValidType(currentType)) {
-                this.errors.add(new SemanticError(this.currentToken.getLine(), currentType, "Classe válida ou tipo nativo", "Tipo de variável inválida"));
+                this.errors.add(new SemanticError(this.tree.getLine(type), currentType, "Classe válida ou tipo nativo", "Tipo de variável inválida"));
             }
-            this.updateToken();
         }
 
-        if (checkForType(TokenTypes.IDENTIFIER)) {
-            List<Token> currentVar;
-            int line = currentToken.getLine();
+        for (int i = 0; i < this.tree.getChildCount(list); i++) {
+            int declaration = this.tree.getChild(list, i);
 
-            if (isConst) {
-                currentVar = this.bufferize("=");
-            } else if (isParam) {
-                currentVar = this.bufferize(",)");
-            } else {
-                currentVar = this.bufferize("=,;");
-            }
-
-
-            String fullIdentifier = currentVar.stream().map(Token::getValue).reduce("", (a, b) -> a + b);
-            String varName;
-            boolean isVector = fullIdentifier.contains("[");
-
-            if (isVector) {
-                varName = fullIdentifier.substring(0, fullIdentifier.indexOf("["));
-                String dimensions = fullIdentifier.substring(fullIdentifier.indexOf("["));
-                try {
-                    List<Integer> dims = Arrays.stream(dimensions.replace("[", " ")
-                            .replace("]", " ")
-                            .split(" "))
-                            .filter(s -> !s.isEmpty())
-                            .map(this::translateConst)
-                            .map(Integer::parseInt)
-                            .collect(Collectors.toList());
-
-                    currentVariableEntry = new VariableEntry(varName, currentType, isConst, dims, line);
-                } catch (NumberFormatException ex) {
-                    this.errors.add(new SemanticError(line, "Indexador Inválido (" + dimensions + ")", "Número/identificador Inteiro", "Dimensão de vetor inválida"));
-                    currentVariableEntry = new VariableEntry(varName, currentType, isConst, Collections.EMPTY_LIST, line);
-                }
-            } else {
-                varName = fullIdentifier;
-                currentVariableEntry = new VariableEntry(varName, currentType, isConst, line);
+            if (this.tree.isKind(declaration, NodeKind.DECLARATION)) {
+                checkDeclaration(declaration, isConst, context, members);
             }
+        }
+    }
 
-            //this.currentVariableEntryList.add(currentVariableEntry);
-            VariableEntry var = context.get(currentVariableEntry.getName());
+    private void checkDeclaration(int declaration, boolean isConst, Scope context, Map<String, VariableEntry> members) {
+        int target = child(declaration, 0);
+        int line = this.tree.getLine(declaration);
 
-            if (var != null) {
-                String msg;
+        if (target == SyntaxTree.NO_NODE) {
+            return;
+        }
 
-                if (this.symbolTable.getConst(currentVariableEntry.getName()) != null) { // const existe
-                    msg = "Identificador já utilizado com constante";
-                } else {
-                    msg = "Identificador já foi definido na classe ou na classe mãe";
-                }
+        int base = target;
 
-                this.errors.add(new SemanticError(currentVariableEntry.getLine(), currentVariableEntry.getName(), "Identificador novo", msg));
-            } else {
-                context.put(currentVariableEntry.getName(), currentVariableEntry);
+        if (this.tree.isKind(target, NodeKind.INDEX)) {
+            // Dimensões na ordem do código: v[2][3] = INDEX(INDEX(v, 2), 3)
+            List<Integer> indexes = new ArrayList<>();
+
+            while (this.tree.isKind(base, NodeKind.INDEX)) {
+                indexes.add(0, base);
+                base = this.tree.getChild(base, 0);
             }
 
-            //this.updateToken();
-            //System.out.println("Current var: " + currentVariableEntry);
+            String varName = text(base);
+            StringBuilder dimensions = new StringBuilder();
 
-            if (eatTerminal(";")) {
-                if (eatTerminal("}")) {
-                    return;
-                } else {
-                    checkDeclaration(isConst, true, context, isParam);
+            for (int index : indexes) {
+                dimensions.append('[').append(text(child(index, 1))).append(']');
+            }
+
+            try {
+                List<Integer> dims = new ArrayList<>();
+
+                for (int index : indexes) {
+                    dims.add(Integer.parseInt(translateConst(text(child(index, 1)))));
                 }
 
-            } else if (eatTerminal("=")) {
-                checkAssignment(context);
+                currentVariableEntry = new VariableEntry(varName, currentType, isConst, dims, line);
+            } catch (NumberFormatException ex) {
+                this.errors.add(new SemanticError(line, "Indexador Inválido (" + dimensions + ")", "Número/identificador Inteiro", "Dimensão de vetor inválida"));
+                currentVariableEntry = new VariableEntry(varName, currentType, isConst, Collections.EMPTY_LIST, line);
             }
+        } else {
+            currentVariableEntry = new VariableEntry(text(target), currentType, isConst, line);
         }
 
-        //System.out.println(currentToken);
-        //Sair da recursão
-        if (eatTerminal(";")) {
-            if (!eatTerminal("}")) {
-                checkDeclaration(isConst, true, context, isParam);
+        currentVariableEntry.setTypeId(currentTypeId);
+
+        int symbol = this.tree.isKind(base, NodeKind.NAME) ? this.tree.getSymbol(base) : this.symbols.intern(currentVariableEntry.getName());
+        VariableEntry var = context.get(symbol);
+
+        if (var != null) {
+            String msg;
+
+            if (this.symbolTable.getConst(symbol) != null) { // const existe
+                msg = "Identificador já utilizado com constante";
             } else {
-                //System.out.println("Finished");
+                msg = "Identificador já foi definido na classe ou na classe mãe";
+            }
+
+            this.errors.add(new SemanticError(currentVariableEntry.getLine(), currentVariableEntry.getName(), "Identificador novo", msg));
+        } else {
+            context.put(symbol, currentVariableEntry);
+
+            if (members != null) {
+                members.put(currentVariableEntry.getName(), currentVariableEntry);
             }
-        } else if (eatTerminal(",")) {
-            //verificar se pode haver uma variável seguida de outra na mesma linha
-            checkDeclaration(isConst, isParam, context, isParam);
-        } else if (eatTerminal(")") && isParam) {
-            //System.out.println("Finished params");
         }
 
+        int value = child(declaration, 1);
+
+        if (value != SyntaxTree.NO_NODE) {
+            checkAssignment(value, context);
+        }
     }
 
     private String translateConst(String varName) {
@@ -198,399 +352,804 @@ public class SemanticAnalyzer {
             return var.getValue();
     }
 
-    private List<Token> bufferize(String sync) {
-        int brackets = 0;
+    // Tokens que formaram o nó, na ordem do código; usado só onde a verificação conta delimitadores
+    private List<Token> flatten(int node) {
+        List<Token> tokens = new ArrayList<>();
+        flatten(node, tokens);
+        return tokens;
+    }
+
+    // Percorre o nó com a pilha explícita de getExpressionType, sem recursão: a cada visita, o passo do nó diz qual
+    // filho vem agora, e os tokens do próprio nó (operador, parênteses, colchetes e vírgulas) saem entre os filhos
+    private void flatten(int node, List<Token> tokens) {
+        if (node == SyntaxTree.NO_NODE) {
+            return;
+        }
+
+        ExpressionStack stack = new ExpressionStack();
+        stack.push(node);
+
+        while (!stack.isEmpty()) {
+            node = stack.peek();
+
+            int step = stack.advance();
+            int line = this.tree.getLine(node);
+            int count = this.tree.getChildCount(node);
+            int next = SyntaxTree.NO_NODE;
+            boolean done = false;
+
+            switch (this.tree.getKind(node)) {
+                case NAME:
+                case LITERAL:
+                    tokens.add(new Token(this.tree.getTokenKind(node), this.tree.getValue(node), line));
+                    done = true;
+                    break;
+                case BINARY:
+                    if (step == 1) {
+                        tokens.add(new Token(this.tree.getTokenKind(node), this.tree.getValue(node), line));
+                    }
+                    if (step < 2) {
+                        next = child(node, step);
+                    } else {
+                        done = true;
+                    }
+                    break;
+                case PREFIX:
+                    if (step == 0) {
+                        tokens.add(new Token(this.tree.getTokenKind(node), this.tree.getValue(node), line));
+                        next = child(node, 0);
+                    } else {
+                        done = true;
+                    }
+                    break;
+                case POSTFIX:
+                    if (step == 0) {
+                        next = child(node, 0);
+                    } else {
+                        tokens.add(new Token(this.tree.getTokenKind(node), this.tree.getValue(node), line));
+                        done = true;
+                    }
+                    break;
+                case PARENTHESES:
+                    if (step == 0) {
+                        tokens.add(new Token(TokenKind.DELIMITER, "(", line));
+                        next = child(node, 0);
+                    } else {
+                        if (this.tree.getValue(node).equals("()")) {
+                            tokens.add(new Token(TokenKind.DELIMITER, ")", line));
+                        }
+                        done = true;
+                    }
+                    break;
+                case INDEX:
+                    if (step == 1) {
+                        tokens.add(new Token(TokenKind.DELIMITER, "[", line));
+                    }
+                    if (step < 2) {
+                        next = child(node, step);
+                    } else {
+                        tokens.add(new Token(TokenKind.DELIMITER, "]", line));
+                        done = true;
+                    }
+                    break;
+                case FIELD:
+                    if (step == 1) {
+                        tokens.add(new Token(TokenKind.DELIMITER, ".", line));
+                    }
+                    if (step < 2) {
+                        next = child(node, step);
+                    } else {
+                        done = true;
+                    }
+                    break;
+                case CALL:
+                    // O primeiro filho é o método chamado, e os demais são os argumentos
+                    if (step == 1) {
+                        tokens.add(new Token(TokenKind.DELIMITER, "(", line));
+                    } else if (step > 1 && step < count) {
+                        tokens.add(new Token(TokenKind.DELIMITER, ",", line));
+                    }
+                    if (step < Math.max(count, 1)) {
+                        next = child(node, step);
+                    } else {
+                        tokens.add(new Token(TokenKind.DELIMITER, ")", line));
+                        done = true;
+                    }
+                    break;
+                case VECTOR:
+                    if (step == 0) {
+                        tokens.add(new Token(TokenKind.DELIMITER, "[", line));
+                    } else if (step < count) {
+                        tokens.add(new Token(TokenKind.DELIMITER, ",", line));
+                    }
+                    if (step < count) {
+                        next = child(node, step);
+                    } else {
+                        tokens.add(new Token(TokenKind.DELIMITER, "]", line));
+                        done = true;
+                    }
+                    break;
+                default:
+                    if (step < count) {
+                        next = child(node, step);
+                    } else {
+                        done = true;
+                    }
+            }
+
+            if (done) {
+                stack.pop();
+            } else if (next != SyntaxTree.NO_NODE) {
+                stack.push(next);
+            }
+        }
+    }
+
+    // Texto do nó como aparece no código, sem espaços
+    private String text(int node) {
+        StringBuilder text = new StringBuilder();
 
-        List<Token> buffer = new ArrayList<>();
+        for (Token token : flatten(node)) {
+            text.append(token.getValue());
+        }
 
-        while (!sync.contains(this.currentToken.getValue()) || brackets > 0) {
-            if (checkForTerminal("["))
-                brackets++;
-            else if (checkForTerminal("]"))
-                brackets--;
+        return text.toString();
+    }
 
-            buffer.add(this.currentToken);
-            this.updateToken();
+    // Linha do primeiro token do nó
+    private int firstLine(int node) {
+        while (this.tree.getChildCount(node) > 0 && !this.tree.isKind(node, NodeKind.PREFIX) && !this.tree.isKind(node, NodeKind.PARENTHESES) && !this.tree.isKind(node, NodeKind.VECTOR)) {
+            node = this.tree.getChild(node, 0);
         }
 
-        return buffer;
+        return this.tree.getLine(node);
     }
 
-    private void checkArrayBounds(List<Token> expression, Map<String, VariableEntry> context) {
-        int skipStart, skipEnd;
+    // Tipo da expressão percorrida na ordem dos tokens; base é a altura da pilha de nós em que a varredura começou
+    private static class ExpressionScan {
+        private final boolean isVector;
+        private final int base;
+        private int lastType = NO_TYPE;
+        private int result = NO_TYPE;
 
-        for (int i = 0; i < expression.size(); i++) {
-            Token token = expression.get(i);
+        private ExpressionScan(boolean isVector, int base) {
+            this.isVector = isVector;
+            this.base = base;
+        }
 
-            if (token.getValue().equals("[")) {
-                skipStart = ++i;
+        private int getType() {
+            if (this.result != NO_TYPE) {
+                return this.result;
+            }
 
-                while (!expression.get(i).getValue().equals("]")) {
-                    i++;
-                }
+            return this.lastType == NO_TYPE ? Types.UNDEFINED : this.lastType;
+        }
+    }
 
-                skipEnd = i;
+    // Pilha explícita da verificação de uma expressão: os nós em visita, cada um com o próximo filho a visitar, e as
+    // varreduras abertas. A expressão tem a sua varredura, e cada índice verificado dentro dela abre outra por cima,
+    // fechada quando o índice termina. Assim a expressão, com os índices, é verificada em uma passada da esquerda para a
+    // direita, sem recursão, qualquer que seja a profundidade da árvore.
+    private static class ExpressionStack {
+        private int[] nodes = new int[8];
+        private int[] next = new int[8];
+        private int depth;
+
+        private ExpressionScan[] scans = new ExpressionScan[2];
+        private int open;
+
+        private void push(int node) {
+            if (this.depth == this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, this.depth * 2);
+                this.next = Arrays.copyOf(this.next, this.depth * 2);
+            }
 
-                String arrayIndexType = this.getExpressionType(expression.subList(skipStart, skipEnd), context);
+            this.nodes[this.depth] = node;
+            this.next[this.depth] = 0;
+            this.depth++;
+        }
 
-                if (!arrayIndexType.equals(TokenTypes.NUMBER_INT) && !arrayIndexType.equals(TokenTypes.UNDEFINED)) {
-                    this.errors.add(new SemanticError(token.getLine(), arrayIndexType, "NIN", "Indexador de vetor inválido"));
-                }
+        private int peek() {
+            return this.nodes[this.depth - 1];
+        }
+
+        // Posição do filho do nó do topo a visitar agora; a seguinte fica para a próxima visita
+        private int advance() {
+            return this.next[this.depth - 1]++;
+        }
+
+        private int pop() {
+            return this.nodes[--this.depth];
+        }
+
+        private boolean isEmpty() {
+            return this.depth == 0;
+        }
 
+        private void open(int node, boolean isVector) {
+            if (this.open == this.scans.length) {
+                this.scans = Arrays.copyOf(this.scans, this.open * 2);
             }
+
+            this.scans[this.open++] = new ExpressionScan(isVector, this.depth);
+            this.push(node);
+        }
+
+        private ExpressionScan scan() {
+            return this.scans[this.open - 1];
+        }
+
+        // A varredura atual terminou quando os nós dela saíram da pilha
+        private boolean isScanDone() {
+            return this.depth == this.scan().base;
+        }
+
+        // O tipo já foi decidido: descarta os nós da varredura atual que ainda não foram visitados
+        private void stop() {
+            this.depth = this.scan().base;
+        }
+
+        // Fecha a varredura atual; retorna false quando era a da expressão
+        private boolean close() {
+            this.scans[--this.open] = null;
+            return this.open > 0;
         }
     }
-        //TODO: diferenciar retorn de vetor indexado e não indexado
-    private String getExpressionType(List<Token> expression, Map<String, VariableEntry> context) {
-        String operators = TokenTypes.DELIMITER + TokenTypes.ARITHMETICAL_OPERATOR + TokenTypes.RELATIONAL_OPERATOR + TokenTypes.LOGICAL_OPERATOR;
-        String lastType = null;
-        String tokenType;
 
-        if (expression.size() == 1 && expression.get(0).getValue().equals("void")) {
-            return "void";
+    // Tipo das expressões que não precisam ser percorridas, ou NO_TYPE
+    private int directType(int expression) {
+        if (expression == SyntaxTree.NO_NODE) {
+            return Types.UNDEFINED;
         }
 
-        if (expression.isEmpty()) {
-            return TokenTypes.UNDEFINED;
+        if (this.tree.isKind(expression, NodeKind.LITERAL) && this.tree.getValue(expression).equals("void")) {
+            return Types.VOID;
         }
 
-        boolean isVector = expression.get(0).getValue().equals("[");
+        return NO_TYPE;
+    }
+
+    //TODO: diferenciar retorn de vetor indexado e não indexado
+    private int getExpressionType(int expression, SymbolView view) {
+        int type = directType(expression);
 
+        if (type != NO_TYPE) {
+            return type;
+        }
 
-        for (int i = 0; i < expression.size(); i++) {
-            Token token = expression.get(i);
-            tokenType = convertType(token, context);
-            //System.out.println(token.getValue());
-            int skipStart, skipEnd;
+        // Em um vetor literal, os índices não são verificados à parte
+        ExpressionStack stack = new ExpressionStack();
+        stack.open(expression, this.tree.isKind(expression, NodeKind.VECTOR));
 
-            if (token.getValue().equals("[") && !isVector) {
-                skipStart = ++i;
+        while (true) {
+            if (stack.isScanDone()) {
+                type = stack.scan().getType();
 
-                while (!expression.get(i).getValue().equals("]")) {
-                    i++;
+                if (!stack.close()) {
+                    return type;
                 }
 
-                skipEnd = i;
+                // Terminou o índice do INDEX que está no topo, e a varredura de fora continua depois dele
+                checkIndexType(stack.pop(), type, view);
+                continue;
+            }
 
-                String arrayIndexType = this.getExpressionType(expression.subList(skipStart, skipEnd), context);
+            int node = stack.peek();
+            ExpressionScan scan = stack.scan();
 
-                if (!arrayIndexType.equals(TokenTypes.NUMBER_INT) && !arrayIndexType.equals(TokenTypes.UNDEFINED)) {
-                    this.errors.add(new SemanticError(token.getLine(), arrayIndexType, "NIN", "Indexador de vetor inválido"));
-                }
+            if (this.tree.isKind(node, NodeKind.NAME) || this.tree.isKind(node, NodeKind.LITERAL)) {
+                stack.pop();
 
+                if (scanOperand(node, scan, view)) {
+                    stack.stop();
+                }
+                continue;
             }
 
-            if (!operators.contains(token.getType())) {
-                if (lastType == null) {
-                    lastType = tokenType;
-                } else if (lastType.equals(TokenTypes.STRING) && !isVector) {
-                    this.errors.add(new SemanticError(token.getLine(), "", "", "Não podem ser realizadas operações com strings"));
+            int child = stack.advance();
 
-                    return TokenTypes.UNDEFINED;
-                }else if (lastType.equals(TokenTypes.STRING)) {
-                    this.errors.add(new SemanticError(token.getLine(), "", "", "Não podem ser realizadas operações com strings"));
+            if (child == 1) {
+                // O operando da esquerda já foi visitado
+                switch (this.tree.getKind(node)) {
+                    case BINARY:
+                        TokenKind operator = this.tree.getTokenKind(node);
 
-                    return TokenTypes.UNDEFINED;
-                } else if (!lastType.equals(tokenType)) {
-                    // Conversão de tipos dentro de uma expressão, logo o tipo da expressão é indefinido
-                    if (!tokenType.equals(TokenTypes.UNDEFINED))
-                        this.errors.add(new SemanticError(token.getLine(), tokenType, lastType, "Erro de conversão"));
+                        if (operator == TokenKind.LOGICAL_OPERATOR || operator == TokenKind.RELATIONAL_OPERATOR) {
+                            scan.result = Types.BOOLEAN;
+                            stack.stop();
+                            continue;
+                        }
+                        break;
+                    case INDEX:
+                        if (scan.isVector) {
+                            break;
+                        }
 
-                    return TokenTypes.UNDEFINED;
+                        int index = child(node, 1);
+                        int indexType = directType(index);
+
+                        if (indexType == NO_TYPE) {
+                            stack.open(index, this.tree.isKind(index, NodeKind.VECTOR));
+                        } else {
+                            stack.pop();
+                            checkIndexType(node, indexType, view);
+                        }
+                        continue;
                 }
-            } else if (tokenType.equals(TokenTypes.LOGICAL_OPERATOR) || token.getType().equals(TokenTypes.RELATIONAL_OPERATOR)) {
-                return TokenTypes.BOOLEAN;
             }
+
+            if (child < this.tree.getChildCount(node)) {
+                stack.push(this.tree.getChild(node, child));
+            } else {
+                stack.pop();
+            }
+        }
+    }
+
+    // Retorna true quando o tipo da expressão já foi decidido e o resto dela não precisa ser visitado
+    private boolean scanOperand(int node, ExpressionScan scan, SymbolView view) {
+        int tokenType = convertType(node, view);
+
+        if (scan.lastType == NO_TYPE) {
+            scan.lastType = tokenType;
+            return false;
         }
 
-        return lastType;
+        switch (Types.operand(scan.lastType, tokenType)) {
+            case Types.SAME:
+                return false;
+            case Types.STRING_OPERATION:
+                view.getErrors().add(new SemanticError(this.tree.getLine(node), "", "", "Não podem ser realizadas operações com strings"));
+                break;
+            case Types.CONVERSION:
+                // Conversão de tipos dentro de uma expressão, logo o tipo da expressão é indefinido
+                view.getErrors().add(new SemanticError(this.tree.getLine(node), this.types.getName(tokenType), this.types.getName(scan.lastType), "Erro de conversão"));
+                break;
+        }
+
+        scan.result = Types.UNDEFINED;
+        return true;
     }
 
-    private String convertType(Token token, Map<String, VariableEntry> context) {
-        return convertType(token, context, true);
+    private void checkIndex(int index, SymbolView view) {
+        checkIndexType(index, this.getExpressionType(child(index, 1), view), view);
     }
 
+    private void checkIndexType(int index, int arrayIndexType, SymbolView view) {
+        if (arrayIndexType != Types.INT && arrayIndexType != Types.UNDEFINED) {
+            view.getErrors().add(new SemanticError(this.tree.getLine(index), this.types.getName(arrayIndexType), "NIN", "Indexador de vetor inválido"));
+        }
+    }
 
-    private String convertType(Token token, Map<String, VariableEntry> context, boolean error) {
-        if (token.isBolean()) {
-            return TokenTypes.BOOLEAN;
+    // Verifica os índices de todos os vetores acessados no nó, na ordem do código; o índice de um INDEX é verificado
+    // depois do vetor indexado
+    private void checkArrayBounds(int node, SymbolView view) {
+        if (node == SyntaxTree.NO_NODE) {
+            return;
         }
 
-        if (token.getType().equals(TokenTypes.NUMBER)) {
-            if (token.getValue().contains("."))
-                return TokenTypes.NUMBER_FLOAT;
+        ExpressionStack stack = new ExpressionStack();
+        stack.push(node);
+
+        while (!stack.isEmpty()) {
+            node = stack.peek();
+            int child = stack.advance();
+
+            if (this.tree.isKind(node, NodeKind.INDEX)) {
+                if (child > 0) {
+                    stack.pop();
+                    checkIndex(node, view);
+                } else if (child(node, 0) != SyntaxTree.NO_NODE) {
+                    stack.push(child(node, 0));
+                }
+            } else if (child < this.tree.getChildCount(node)) {
+                stack.push(this.tree.getChild(node, child));
+            } else {
+                stack.pop();
+            }
+        }
+    }
+
+    private int convertType(int node, SymbolView view) {
+        String value = this.tree.getValue(node);
+        TokenKind kind = this.tree.getTokenKind(node);
+
+        if (value.equals("true") || value.equals("false")) {
+            return Types.BOOLEAN;
+        }
+
+        if (kind == TokenKind.NUMBER) {
+            if (value.contains("."))
+                return Types.FLOAT;
             else
-                return TokenTypes.NUMBER_INT;
+                return Types.INT;
         }
 
-        if (token.getType().equals(TokenTypes.IDENTIFIER)) {
+        if (kind == TokenKind.IDENTIFIER) {
 
-            VariableEntry var = context.get(token.getValue());
-            String type;
+            VariableEntry var = view.getVariable(variableSymbol(node));
+            int type;
 
             if (var == null) {
-                type = TokenTypes.UNDEFINED;
-                if (error)
-                    this.errors.add(new SemanticError(token.getLine(), token.getValue(), "Valor ou Identificador válido", "Constante indefinida"));
+                type = Types.UNDEFINED;
+                view.getErrors().add(new SemanticError(this.tree.getLine(node), value, "Valor ou Identificador válido", "Constante indefinida"));
             } else {
-                type = var.getType();
+                type = var.getTypeId();
             }
 
             return type;
 
         }
 
-
-        return token.getType(); // TODO: remaining scopes
+        return kind == null ? Types.UNDEFINED : this.types.getKindType(kind); // TODO: remaining scopes
     }
 
-    private void checkAssignment(Map<String, VariableEntry> context) {
-        List<Token> expression = this.bufferize(",;");
-        int line = expression.get(0).getLine();
-        String expressionToken = expression.stream().map(Token::getValue).reduce("", (a, b) -> a + b);
-        String expressionType = getExpressionType(expression, context);
-
-        if (!expressionType.equals(TokenTypes.UNDEFINED)) {
-            switch (currentType) {
-                case TokenTypes.STRING:
-                    if (!expressionType.equals(TokenTypes.STRING)) {
-                        //System.err.println("Erro: Variável CDC atribuída como " + expressionType);
-                        this.errors.add(new SemanticError(line, expressionType, currentType, "Erro de conversão"));
-                    }
-                    break;
-
-                case TokenTypes.BOOLEAN:
-                    if (!expressionType.equals(TokenTypes.BOOLEAN)) {
-                        //System.err.println("Erro: Variável booleana atribuída como " + expressionType);
-                        // TODO: exibir warning?
-                        //this.errors.add(new SemanticError(line, expressionType, currentType, "Aviso de conversão"));
-                    }
-                    break;
-                case TokenTypes.NUMBER_INT:
-                    if (!expressionType.equals(TokenTypes.NUMBER_INT)) {
-                        //System.err.println("Erro: Variável float atribuída como " + expressionType);
-                        this.errors.add(new SemanticError(line, expressionType, currentType, "Erro de conversão"));
-                    }
-                    break;
-                case TokenTypes.NUMBER_FLOAT:
-                    if (!expressionType.equals(TokenTypes.NUMBER_FLOAT)) {
-                        //System.err.println("Erro: Variável float atribuída como " + expressionType);
-                        this.errors.add(new SemanticError(line, expressionType, currentType, "Erro de conversão"));
+    private void checkAssignment(int value, Scope context) {
+        int line = firstLine(value);
+        int expressionType = getExpressionType(value, new SymbolView(context, this.symbolTable.getClasses(), this.errors));
 
-                    }
-                    break;
-                default:
-                    // System.out.println("Erro: Instâncias de classe não podem ser constantes " + expressionType);
-                    this.errors.add(new SemanticError(line, expressionType, currentType, "Erro de conversão"));
-                    break;
-            }
+        // TODO: exibir warning na conversão para booleano?
+        if (!Types.isInitializable(currentTypeId, expressionType)) {
+            this.errors.add(new SemanticError(line, this.types.getName(expressionType), currentType, "Erro de conversão"));
         }
         if (currentVariableEntry.isConst()) {
-            currentVariableEntry.setValue(expressionToken);
+            currentVariableEntry.setValue(text(value));
         }
         if (currentVariableEntry.isVector()) {
-            List<Integer> dimensions = new ArrayList<>();
-            boolean done = false;
-            boolean error = false;
-
-            while (!done) {
-                expressionToken = expression.stream().map(Token::getValue).reduce("", (a, b) -> a + b);
-
-                int size = 0;
-
-                if (expression.get(0).getValue().equals("[")) {
-                    int brackets = 0;
-
-                    for (Token t : expression) {
-                        if (t.getValue().equals("[")) {
-                            brackets++;
-                            if (brackets == 0) {
-                                size++;
-                            }
-                        } else if (t.getValue().equals("]")) {
-                            brackets--;
-                            if (brackets == 0) {
-                                size++;
-                            }
-                        }
+            checkVectorDimensions(line, flatten(value), context);
+        }
+    }
 
-                    }
-                    expression.remove(0);
-                    expression.remove(expression.size() - 1);
-
-                } else if (expressionToken.contains("]")) {
-                    int innerDim = 0;
-                    int currentSize = 0;
-
-                    for (Token t : expression) {
-                        String tokenType = convertType(t, context);
-
-                        if (t.getValue().equals("]")) {
-                            if (innerDim == 0) {
-                                innerDim = currentSize;
-                            } else if (currentSize != innerDim) {
-                                error = true;
-                                this.errors.add(new SemanticError(line, currentVariableEntry.getName(), "Vetor de dimensões corretas", "Vetor com dimensões diferentes da declarada"));
-                            }
-
-                            currentSize = 0;
-                        } else if (tokenType.equals(currentVariableEntry.getType())) {
-                            currentSize++;
+    // Compara as dimensões do vetor literal com as declaradas, contando os colchetes e os elementos do tipo do vetor
+    private void checkVectorDimensions(int line, List<Token> expression, Scope context) {
+        List<Integer> dimensions = new ArrayList<>();
+        boolean done = false;
+        boolean error = false;
+
+        while (!done) {
+            boolean closes = expression.stream().anyMatch(t -> t.getValue().equals("]"));
+
+            int size = 0;
+
+            if (expression.isEmpty()) {
+                // Vetor vazio, como em []
+                done = true;
+            } else if (expression.get(0).getValue().equals("[")) {
+                int brackets = 0;
+
+                for (Token t : expression) {
+                    if (t.getValue().equals("[")) {
+                        brackets++;
+                        if (brackets == 0) {
+                            size++;
+                        }
+                    } else if (t.getValue().equals("]")) {
+                        brackets--;
+                        if (brackets == 0) {
+                            size++;
                         }
                     }
 
-                    if (currentSize != innerDim) {
-                        error = true;
-                        this.errors.add(new SemanticError(line, currentVariableEntry.getName(), "Vetor de dimensões corretas", "Vetor com dimensões diferentes da declarada"));
-                    }
+                }
+                expression.remove(0);
+                expression.remove(expression.size() - 1);
+
+            } else if (closes) {
+                int innerDim = 0;
+                int currentSize = 0;
+
+                for (Token t : expression) {
+                    String tokenType = convertType(t, context);
+
+                    if (t.getValue().equals("]")) {
+                        if (innerDim == 0) {
+                            innerDim = currentSize;
+                        } else if (currentSize != innerDim) {
+                            error = true;
+                            this.errors.add(new SemanticError(line, currentVariableEntry.getName(), "Vetor de dimensões corretas", "Vetor com dimensões diferentes da declarada"));
+                        }
 
-                    size = innerDim;
-                    done = true;
-                } else {
-                    size = (int) expression.stream().filter(t -> !t.getType().equals(TokenTypes.DELIMITER)).count();
-                    done = true;
+                        currentSize = 0;
+                    } else if (tokenType.equals(currentVariableEntry.getType())) {
+                        currentSize++;
+                    }
                 }
 
-                if (error) {
-                    break;
+                if (currentSize != innerDim) {
+                    error = true;
+                    this.errors.add(new SemanticError(line, currentVariableEntry.getName(), "Vetor de dimensões corretas", "Vetor com dimensões diferentes da declarada"));
                 }
 
-                dimensions.add(size);
+                size = innerDim;
+                done = true;
+            } else {
+                size = (int) expression.stream().filter(t -> t.getKind() != TokenKind.DELIMITER).count();
+                done = true;
+            }
+
+            if (error) {
+                break;
             }
 
-            if (!error) {
-                dimensions.remove(0);
+            dimensions.add(size);
+        }
 
-                boolean pass = true;
+        if (!error) {
+            dimensions.remove(0);
 
-                if (dimensions.size() == this.currentVariableEntry.getDimensions().size()) {
-                    for (int i = 0; i < dimensions.size(); i++) {
-                        if (!dimensions.get(i).equals(this.currentVariableEntry.getDimensions().get(i))) {
-                            pass = false;
-                            break;
-                        }
+            boolean pass = true;
+
+            if (dimensions.size() == this.currentVariableEntry.getDimensions().size()) {
+                for (int i = 0; i < dimensions.size(); i++) {
+                    if (!dimensions.get(i).equals(this.currentVariableEntry.getDimensions().get(i))) {
+                        pass = false;
+                        break;
                     }
-                } else {
-                    pass = false;
                 }
+            } else {
+                pass = false;
+            }
 
-                if (!pass) {
-                    this.errors.add(new SemanticError(line, currentVariableEntry.getName(), "Vetor de dimensões corretas", "Vetor com dimensões diferentes da declarada"));
-                }
+            if (!pass) {
+                this.errors.add(new SemanticError(line, currentVariableEntry.getName(), "Vetor de dimensões corretas", "Vetor com dimensões diferentes da declarada"));
+            }
+        }
+    }
+
+    private String convertType(Token token, Scope context) {
+        if (token.isBolean()) {
+            return TokenTypes.BOOLEAN;
+        }
+
+        if (token.getKind() == TokenKind.NUMBER) {
+            if (token.getValue().contains("."))
+                return TokenTypes.NUMBER_FLOAT;
+            else
+                return TokenTypes.NUMBER_INT;
+        }
+
+        if (token.getKind() == TokenKind.IDENTIFIER) {
+            int symbol = this.symbols.find(token.getValue());
+            VariableEntry var = symbol == Symbols.NO_SYMBOL ? null : context.get(symbol);
+
+            if (var == null) {
+                this.errors.add(new SemanticError(token.getLine(), token.getValue(), "Valor ou Identificador válido", "Constante indefinida"));
+                return TokenTypes.UNDEFINED;
             }
 
+            return var.getType();
         }
+
+        return token.getType();
     }
 
     // TODO: add contexto das outras classes
-    private void checkClass() {
-        if (eatTerminal("class")) {
-            String className, superclassName = null;
+    private void checkClass(int node) {
+        String className, superclassName = null;
 
-            className = currentToken.getValue();
-            int line = currentToken.getLine();
-            updateToken();
+        className = this.tree.getValue(node);
+        int line = this.tree.getLine(node);
+        int superclassNode = this.tree.findChild(node, NodeKind.SUPERCLASS);
 
-            if (checkForTerminal("extends")) {
-                updateToken();
-                superclassName = currentToken.getValue();
-                updateToken();
-            }
+        if (superclassNode != SyntaxTree.NO_NODE) {
+            superclassName = this.tree.getValue(superclassNode);
+        }
 
-            if(this.symbolTable.getConst(className) != null){
-                this.errors.add(new SemanticError(line, className, "Identificador válido", "Nome da classe já foi definido como constante ("+className+")"));
-                className = null;
-            }
+        if (this.symbolTable.getConst(className) != null) {
+            this.errors.add(new SemanticError(line, className, "Identificador válido", "Nome da classe já foi definido como constante (" + className + ")"));
+            className = null;
+        }
 
-            // Não pode herdar de si mesma
-            if (superclassName != null && className.equals(superclassName)) {
-                this.errors.add(new SemanticError(line, className, "Classe mãe diferente da classe filha", "Classe herdando de si mesma"));
-                superclassName = null;
-            }
+        // Não pode herdar de si mesma
+        if (superclassName != null && superclassName.equals(className)) {
+            this.errors.add(new SemanticError(line, className, "Classe mãe diferente da classe filha", "Classe herdando de si mesma"));
+            superclassName = null;
+        }
 
-            ClassEntry superclass = null;
-            try {
-                superclass = this.symbolTable.getClass(superclassName);
-            } catch (ClassNotFoundException e) {
-                this.errors.add(new SemanticError(line, superclassName, "Classe mãe previamente declarada", "Classe mãe inexistente"));
-            }
+        ClassEntry superclass = null;
+        try {
+            superclass = this.symbolTable.getClass(superclassName);
+        } catch (ClassNotFoundException e) {
+            this.errors.add(new SemanticError(line, superclassName, "Classe mãe previamente declarada", "Classe mãe inexistente"));
+        }
 
-            ClassEntry classEntry = null;
-            try {
-                classEntry = this.symbolTable.addClass(className, superclass);
-            } catch (InstanceAlreadyExistsException e) {
-                this.errors.add(new SemanticError(line, className, "Novo nome para classe", "Classe com nome repetido"));
+        ClassEntry classEntry;
+        try {
+            classEntry = this.symbolTable.addClass(className, superclass);
+
+            if (this.history != null) {
+                this.history.addClass(classEntry);
             }
+        } catch (InstanceAlreadyExistsException e) {
+            this.errors.add(new SemanticError(line, className, "Novo nome para classe", "Classe com nome repetido"));
+            // O corpo da classe repetida ainda é verificado, mas ela não entra na tabela de símbolos
+            classEntry = new ClassEntry(className, superclass);
+        }
 
-            eatTerminal("{");
+        Scope classScope = new Scope(this.classScopes.get(classEntry.getSuperclass()));
+        this.classScopes.put(classEntry, classScope);
 
-            checkVariable(classEntry);
-            checkMethod(classEntry);
-            eatTerminal("}"); // Class end
-            checkClass();
+        checkDeclarations(this.tree.findChild(node, NodeKind.VARIABLES), false, classScope, classEntry.getVariables());
 
+        if (this.history != null) {
+            this.groups.add(new ArrayList<BodyTask>());
+        }
+
+        for (int i = 0; i < this.tree.getChildCount(node); i++) {
+            int method = this.tree.getChild(node, i);
+
+            if (this.tree.isKind(method, NodeKind.METHOD)) {
+                checkMethod(method, classEntry, classScope);
+            }
         }
     }
 
     // TODO: diferenciar retorno de vetores e variaveis do mesmo tipo
-    private void checkMethod(ClassEntry classEntry) {
-        if (eatTerminal("method")) {
-            int line = this.currentToken.getLine();
+    private void checkMethod(int node, ClassEntry classEntry, Scope classScope) {
+        int line = this.tree.getLine(node);
+        int type = this.tree.findChild(node, NodeKind.TYPE);
+
+        String returnType = type == SyntaxTree.NO_NODE ? TokenTypes.UNDEFINED : translatePRE(this.tree.getValue(type));
+        int returnTypeId = this.types.intern(returnType);
+
+        if (type != SyntaxTree.NO_NODE && !this.symbolTable.isValidType(returnType)) {
+            this.errors.add(new SemanticError(line, returnType, "Classe válida ou tipo nativo", "Tipo de variável inválida"));
+        }
+
+        String name = this.tree.getValue(node);
+
+        if (this.symbolTable.getConst(name) != null) {
+            this.errors.add(new SemanticError(line, name, "Identificador válido", "Identificador já utilizado para constante"));
+        } else if (this.symbolTable.getClasses().get(name) != null) {
+            this.errors.add(new SemanticError(line, name, "Identificador válido", "Identificador já utilizado para classe"));
+        }
+
+        Scope paramScope = new Scope();
+        checkDeclarations(this.tree.findChild(node, NodeKind.PARAMETERS), false, paramScope, null);
+
+        // Os parâmetros na ordem em que foram declarados, como os argumentos das chamadas
+        Map<String, VariableEntry> params = new LinkedHashMap<>();
+        int[] types = new int[paramScope.size()];
+        StringBuilder methodSymbol = new StringBuilder(name);
+
+        for (int i = 0; i < paramScope.size(); i++) {
+            VariableEntry param = paramScope.getEntry(i);
+
+            params.put(param.getName(), param);
+            types[i] = param.getTypeId();
+            methodSymbol.append(param.getType());
+        }
+
+        MethodSignature signature = new MethodSignature(this.symbols.intern(name), types);
+        MethodEntry method = new MethodEntry(methodSymbol.toString(), signature, returnType, returnTypeId, params);
+
+        Scope context = this.symbolTable.getConstContext();
+        defineClass(classScope);
+        define(paramScope, classScope);
 
-            String returnType = translatePRE(this.currentToken.getValue());
+        int variables = this.tree.findChild(node, NodeKind.VARIABLES);
 
-            if (!this.symbolTable.isValidType(returnType)) {
-                this.errors.add(new SemanticError(line, returnType, "Classe válida ou tipo nativo", "Tipo de variável inválida"));
+        if (variables != SyntaxTree.NO_NODE) {
+            Scope locals = new Scope();
+            checkDeclarations(variables, false, locals, null);
+            define(locals, classScope);
+        }
+
+        int expressionType = checkBody(node, context);
+
+        try {
+            classEntry.addMethod(method);
+
+            if (this.history != null) {
+                this.history.addMethod(method);
             }
+        } catch (Exception e) {
+            this.errors.add(new SemanticError(line, method.getName(), "Assinatura única", "Já existe um método com essa assinatura"));
+
+        }
 
-            updateToken();
-            String name = this.currentToken.getValue();
-            updateToken();
+        checkReturn(node, returnTypeId, expressionType);
+    }
+
+    // Comandos e expressão de retorno de um método ou da main; retorna o tipo da expressão de retorno, ou NO_TYPE se
+    // o corpo ficou para a verificação paralela
+    private int checkBody(int node, Scope context) {
+        if (this.history != null) {
+            this.groups.get(this.groups.size() - 1).add(new BodyTask(node, this.history.nextBody(), this.errors.size()));
+            return NO_TYPE;
+        }
 
-            if(this.symbolTable.getConst(name) != null){
-                this.errors.add(new SemanticError(line, name, "Identificador válido", "Identificador já utilizado para constante"));
-            }else if(this.symbolTable.getClasses().get(name) != null){
-                this.errors.add(new SemanticError(line, name, "Identificador válido", "Identificador já utilizado para classe"));
+        SymbolView view = new SymbolView(context, this.symbolTable.getClasses(), this.errors);
+
+        if (this.bodies != null) {
+            int reused = this.bodies.reuse(node, view);
+
+            if (reused != NO_TYPE) {
+                return reused;
             }
 
-            eatTerminal("(");
-            Map<String, VariableEntry> params = new TreeMap<>(); // Deve ser TreeMap para manter a ordem
-            checkDeclaration(false, true, params, true);
+            view = this.bodies.begin(node, view);
+        }
+
+        int expressionType = checkStatements(node, view);
 
-            String methodSymbol = name + params.entrySet().stream().map(s -> s.getValue().getType()).reduce("", (s, s2) -> s + s2);
+        if (this.bodies != null) {
+            this.bodies.end(expressionType);
+        }
 
-            MethodEntry method = new MethodEntry(methodSymbol, returnType, params);
-            eatTerminal("{");
+        return expressionType;
+    }
 
-            Map<String, VariableEntry> context = this.symbolTable.getConstContext();
-            context.putAll(classEntry.getVariables());
-            context.putAll(method.getParams());
+    private int checkStatements(int node, SymbolView view) {
+        checkBlock(this.tree.findChild(node, NodeKind.BLOCK), view);
 
-            checkStatements(context, this.symbolTable.getClasses());
+        int returnNode = this.tree.findChild(node, NodeKind.RETURN);
 
-            eatTerminal("return");
-            List<Token> returnExpression = bufferize(";");
+        if (returnNode == SyntaxTree.NO_NODE) {
+            return Types.UNDEFINED;
+        }
 
+        return getExpressionType(child(returnNode, 0), view);
+    }
 
-            int returnLine = this.currentToken.getLine();
-            String expressionType = getExpressionType(returnExpression, context);
+    // Com expressionType NO_TYPE, o corpo do método ainda vai ser verificado, e o erro fica para o fim
+    private void checkReturn(int node, int returnType, int expressionType) {
+        if (expressionType == NO_TYPE) {
+            List<BodyTask> group = this.groups.get(this.groups.size() - 1);
+            group.get(group.size() - 1).expectReturn(returnType, this.errors.size());
+        } else {
+            checkReturn(node, returnType, expressionType, this.errors);
+        }
+    }
 
-            try {
-                classEntry.addMethod(method);
-            } catch (Exception e) {
-                this.errors.add(new SemanticError(line, method.getName(), "Assinatura única", "Já existe um método com essa assinatura"));
+    private void checkReturn(int node, int returnType, int expressionType, List<SemanticError> errors) {
+        if (expressionType != returnType && expressionType != Types.UNDEFINED) {
+            int returnNode = this.tree.findChild(node, NodeKind.RETURN);
+            errors.add(new SemanticError(this.tree.getLine(returnNode), this.types.getName(expressionType), this.types.getName(returnType), "Tipo do retorno diferente do declarado"));
+        }
+    }
 
+    // Copia os atributos da classe, com os herdados, para o contexto das constantes: todos no primeiro método da
+    // classe, e nos seguintes só os que os parâmetros e variáveis de um método anterior trocaram
+    private void defineClass(Scope classScope) {
+        if (this.definedClass != classScope) {
+            for (Scope scope = classScope; scope != null; scope = scope.getParent()) {
+                define(scope, null);
             }
 
-            if (!expressionType.equals(returnType) && !expressionType.equals(TokenTypes.UNDEFINED)) {
-                this.errors.add(new SemanticError(returnLine, expressionType, returnType, "Tipo do retorno diferente do declarado"));
+            this.definedClass = classScope;
+        } else {
+            for (int i = 0; i < this.overwrittenSize; i++) {
+                define(this.overwritten[i], classScope.get(this.overwritten[i]));
+            }
+        }
+
+        this.overwrittenSize = 0;
+    }
+
+    // Copia entries para o contexto das constantes, que é visto pelos corpos seguintes, guardando os atributos de
+    // classScope que elas trocam
+    private void define(Scope entries, Scope classScope) {
+        for (int i = 0; i < entries.size(); i++) {
+            int symbol = entries.getSymbol(i);
+
+            define(symbol, entries.getEntry(i));
 
+            if (classScope != null && classScope.get(symbol) != null) {
+                if (this.overwrittenSize == this.overwritten.length) {
+                    this.overwritten = Arrays.copyOf(this.overwritten, this.overwrittenSize * 2);
+                }
+
+                this.overwritten[this.overwrittenSize++] = symbol;
             }
+        }
+    }
 
-            eatTerminal(";");
-            eatTerminal("}");
+    private void define(int symbol, VariableEntry entry) {
+        this.symbolTable.getConstContext().put(symbol, entry);
 
-            checkMethod(classEntry);
+        if (this.history != null) {
+            this.history.put(symbol, entry);
         }
     }
 
@@ -607,235 +1166,218 @@ public class SemanticAnalyzer {
         }
     }
 
+    // Acesso a atributo ou chamada de método de um objeto: a.b.c ou a.b.m(x)
+    private boolean isChained(int node) {
+        if (this.tree.isKind(node, NodeKind.CALL)) {
+            node = child(node, 0);
+        }
 
+        return this.tree.isKind(node, NodeKind.FIELD);
+    }
 
+    // Nome de uma variável, sem os índices
+    private String variableName(int node) {
+        while (this.tree.isKind(node, NodeKind.INDEX)) {
+            node = this.tree.getChild(node, 0);
+        }
 
-    private VariableEntry getChainedExpressionType(int line, List<Token> call, Map<String, VariableEntry> context, Map<String, ClassEntry> classes) {
-        int i = 0;
-        String next;
-        VariableEntry variableEntry = context.get(call.get(0).getValue());
-
+        return this.tree.isKind(node, NodeKind.NAME) ? this.tree.getValue(node) : text(node);
+    }
 
-        if(variableEntry == null){
-            this.errors.add(new SemanticError(line, call.get(0).getValue(), "Variável declarada", "Variável não declarada"));
-            return new VariableEntry("", TokenTypes.UNDEFINED, line);
+    // Número do nome de uma variável, sem os índices, ou Symbols.NO_SYMBOL se o nome nunca foi declarado
+    private int variableSymbol(int node) {
+        while (this.tree.isKind(node, NodeKind.INDEX)) {
+            node = this.tree.getChild(node, 0);
         }
 
-        while (true) {
-            if (i > call.size() - 2) {
-                return variableEntry;
-            }
+        return this.tree.isKind(node, NodeKind.NAME) ? this.tree.getSymbol(node) : this.symbols.find(text(node));
+    }
 
+    private VariableEntry getChainedExpressionType(int line, int chain, SymbolView view) {
+        int call = SyntaxTree.NO_NODE;
 
-            ClassEntry classEntry = classes.get(variableEntry.getType());
-            next = call.get(++i).getValue();
+        if (this.tree.isKind(chain, NodeKind.CALL)) {
+            call = chain;
+            chain = this.tree.getChild(chain, 0);
+        }
 
-            if (next.equals(".")) {
-                next = call.get(++i).getValue();
-                //continue;
-            }
+        String head = variableName(child(chain, 0));
+        VariableEntry variableEntry = view.getVariable(variableSymbol(child(chain, 0)));
 
-            if (i + 1 < call.size() && call.get(i + 1).getValue().equals("(")) {
-                String baseName = next;
-                int start = i + 1;
+        if (variableEntry == null) {
+            view.getErrors().add(new SemanticError(line, head, "Variável declarada", "Variável não declarada"));
+            return result(Types.UNDEFINED, line);
+        }
 
-                while (!call.get(i).getValue().equals(")")) {
-                    i++;
-                }
-                i++;
+        int rest = child(chain, 1);
 
-                List<Token> params = call.subList(start + 1, i - 1); // remove brackets
+        while (rest != SyntaxTree.NO_NODE) {
+            boolean last = !this.tree.isKind(rest, NodeKind.FIELD);
+            int segment = last ? rest : child(rest, 0);
+            String next = variableName(segment);
 
-                String methodSymbol = baseName + params.stream()
-                        .filter(t -> !t.getValue().equals(","))
-                        .map(t -> convertType(t, context))
-                        .reduce("", (s, s2) -> s + s2);
+            String className = variableEntry.getType();
 
-                String methodType;
+            if (last && call != SyntaxTree.NO_NODE) {
+                int[] types = new int[this.tree.getChildCount(call) - 1];
 
-                try {
-                    methodType = classes.get(variableEntry.getType()).getMethodType(methodSymbol);
-                } catch (Exception e) {
-                    this.errors.add(new SemanticError(line, "", "", String.format("A classe %s não tem método %s com essa assinatura", classEntry.getName(), baseName)));
-                    methodType = TokenTypes.UNDEFINED;
+                for (int i = 0; i < types.length; i++) {
+                    types[i] = getExpressionType(this.tree.getChild(call, i + 1), view);
                 }
-                variableEntry = new VariableEntry("", methodType, line);
 
-            } else { // isn't a method call
-                try {
-                    variableEntry = classEntry.getVariable(next);
-                } catch (Exception e) {
-                    this.errors.add(new SemanticError(line, "", "", String.format("A classe %s não tem atributo %s", classEntry.getName(), next)));
-                    return new VariableEntry("", TokenTypes.UNDEFINED, line);
-                }
-            }
-
-            if (i >= call.size()) {
-                return variableEntry;
-            }
-        }
-
-    }
+                MethodEntry method = view.getMethod(className, new MethodSignature(variableSymbol(segment), types));
+                int methodType = Types.UNDEFINED;
 
-    private void checkStatements(Map<String, VariableEntry> context, Map<String, ClassEntry> classes) {
-        int line = currentToken.getLine();
-        VariableEntry lvar, rvar;
-        if (checkForType(TokenTypes.IDENTIFIER)) {
-            String opValue = this.tokens.get(tokenIndex).getValue();
+                if (method == null) {
+                    view.getErrors().add(new SemanticError(line, "", "", String.format("A classe %s não tem método %s com essa assinatura", className, next)));
+                } else {
+                    methodType = method.getReturnTypeId();
+                }
+                variableEntry = result(methodType, line);
 
-            if (opValue.equals("++") || opValue.equals("--")) {
-                lvar = context.get(currentToken.getValue());
+            } else { // isn't a method call
+                VariableEntry field = view.getField(className, next);
 
-                if (lvar.getType().equals(TokenTypes.BOOLEAN) || lvar.getType().equals(TokenTypes.STRING) || lvar.isConst()) {
-                    this.errors.add(new SemanticError(line, "String ou Booleano", "Número", "Somente variáveis numéricas podem ser incrementados ou decrementados"));
+                if (field == null) {
+                    view.getErrors().add(new SemanticError(line, "", "", String.format("A classe %s não tem atributo %s", className, next)));
+                    return result(Types.UNDEFINED, line);
                 }
 
-                updateToken();
-                updateToken();
-                eatTerminal(";");
-                checkStatements(context, classes);
-            } else {
+                variableEntry = field;
+            }
 
-                List<Token> leftExp = this.bufferize("=;");
-                String fullIdentifier = leftExp.stream().map(Token::getValue).reduce("", (a, b) -> a + b);
+            rest = last ? SyntaxTree.NO_NODE : child(rest, 1);
+        }
 
-                fullIdentifier = removeBrackets(fullIdentifier);
+        return variableEntry;
+    }
 
-                boolean isExpression = leftExp.stream().anyMatch(x -> x.getValue().equals("."));
+    // Entrada sem nome com o tipo de uma expressão encadeada
+    private VariableEntry result(int type, int line) {
+        VariableEntry entry = new VariableEntry("", this.types.getName(type), line);
+        entry.setTypeId(type);
+        return entry;
+    }
 
-                if (fullIdentifier.contains(".") && isExpression) {
-                    lvar = getChainedExpressionType(line, leftExp, context, classes);
-                    checkArrayBounds(leftExp, context);
-                } else {
-                    lvar = context.get(fullIdentifier);
-                }
+    private void checkBlock(int block, SymbolView view) {
+        if (block == SyntaxTree.NO_NODE) {
+            return;
+        }
 
-                if (checkForTerminal("=")) {
+        for (int i = 0; i < this.tree.getChildCount(block); i++) {
+            checkStatement(this.tree.getChild(block, i), view);
+        }
+    }
 
-                    updateToken();
+    private void checkStatement(int statement, SymbolView view) {
+        int line = this.tree.getLine(statement);
 
-                    List<Token> rightExp = this.bufferize("=;");
-                    String rightFullIdentifier = rightExp.stream().map(Token::getValue).reduce("", (a, b) -> a + b);
-                    rightFullIdentifier = removeBrackets(rightFullIdentifier);
+        switch (this.tree.getKind(statement)) {
+            case EXPRESSION_STATEMENT:
+                int expression = child(statement, 0);
+                int operand = child(expression, 0);
 
-                    isExpression = rightExp.stream().anyMatch(x -> x.getValue().equals("."));
+                if (this.tree.isKind(expression, NodeKind.POSTFIX) && this.tree.isKind(operand, NodeKind.NAME)) {
+                    VariableEntry var = view.getVariable(this.tree.getSymbol(operand));
 
-                    if (rightFullIdentifier.contains(".") && isExpression) {
-                        rvar = getChainedExpressionType(line, rightExp, context, classes);
-                        checkArrayBounds(rightExp, context);
-                    } else {
-                        String type = getExpressionType(rightExp, context);
-                        rvar = new VariableEntry("", type, -1);
+                    if (var == null) {
+                        view.getErrors().add(new SemanticError(line, this.tree.getValue(operand), "Variável declarada", "Variável não declarada"));
+                    } else if (var.getTypeId() == Types.BOOLEAN || var.getTypeId() == Types.STRING || var.isConst()) {
+                        view.getErrors().add(new SemanticError(line, "String ou Booleano", "Número", "Somente variáveis numéricas podem ser incrementados ou decrementados"));
                     }
-
-
-                    if (lvar.isConst()) {
-                        this.errors.add(new SemanticError(line, "", "", "Atribuição de novo valor a uma constante (" + lvar.getName() + ")"));
-                    } else if (!lvar.getType().equals(rvar.getType()) && !rvar.getType().equals(TokenTypes.UNDEFINED)) {
-                        this.errors.add(new SemanticError(line, rvar.getType(), lvar.getType(), "Erro de conversão"));
+                } else if (isChained(expression)) {
+                    getChainedExpressionType(line, expression, view);
+                    checkArrayBounds(expression, view);
+                }
+                break;
+            case ASSIGNMENT:
+                checkAssignment(line, child(statement, 0), child(statement, 1), view);
+                break;
+            case IF:
+            case WHILE:
+                for (int i = 0; i < this.tree.getChildCount(statement); i++) {
+                    int block = this.tree.getChild(statement, i);
+
+                    if (this.tree.isKind(block, NodeKind.BLOCK)) {
+                        checkBlock(block, view);
                     }
-
                 }
+                break;
+            case READ:
+            case WRITE:
+                checkReadWrite(statement, view);
+                break;
+        }
+    }
 
-                eatTerminal(";");
-                checkStatements(context, classes);
-            }
-        } else {
-            switch (currentToken.getValue()) {
-                case "if":
-                    eatTerminal("if");
-                    eatTerminal("(");
-                    bufferize(")");
-                    eatTerminal(")");
-                    eatTerminal("{");
-                    checkStatements(context, classes);
-                    eatTerminal("}");
-
-                    if(checkForTerminal("else")){
-                        eatTerminal("else");
-                        eatTerminal("{");
-                        checkStatements(context, classes);
-                        eatTerminal("}");
-                    }
+    private void checkAssignment(int line, int target, int value, SymbolView view) {
+        VariableEntry lvar;
+        int rtype;
 
-                    break;
-                case "while":
-                    eatTerminal("while");
-                    eatTerminal("(");
-                    bufferize(")");
-                    eatTerminal(")");
-                    eatTerminal("{");
-                    checkStatements(context, classes);
-                    eatTerminal("}");
-                    break;
-                case "write":
-                    eatTerminal("write");
-                    checkReadWrite(context, classes);
-                    eatTerminal(";");
-                    checkStatements(context, classes);
-                    break;
-                case "read":
-                    eatTerminal("read");
-                    checkReadWrite(context, classes);
-                    eatTerminal(";");
-                    checkStatements(context, classes);
-                    break;
+        if (isChained(target)) {
+            lvar = getChainedExpressionType(line, target, view);
+            checkArrayBounds(target, view);
+        } else {
+            String name = variableName(target);
+            lvar = view.getVariable(variableSymbol(target));
+
+            if (lvar == null) {
+                // O lado direito ainda é verificado, mas não há tipo com que compará-lo
+                view.getErrors().add(new SemanticError(line, name, "Variável declarada", "Variável não declarada"));
+                getExpressionType(value, view);
+                return;
             }
         }
 
-    }
+        if (isChained(value)) {
+            rtype = getChainedExpressionType(line, value, view).getTypeId();
+            checkArrayBounds(value, view);
+        } else {
+            rtype = getExpressionType(value, view);
+        }
 
-    private String removeBrackets(String fullIdentifier) {
-        while (fullIdentifier.contains("[")) {
-            String prefix = fullIdentifier.substring(0, fullIdentifier.indexOf("["));
-            String post = fullIdentifier.substring(fullIdentifier.indexOf("]") + 1);
 
-            fullIdentifier = prefix + post;
+        if (lvar.isConst()) {
+            view.getErrors().add(new SemanticError(line, "", "", "Atribuição de novo valor a uma constante (" + lvar.getName() + ")"));
+        } else if (lvar.getTypeId() != rtype && rtype != Types.UNDEFINED) {
+            view.getErrors().add(new SemanticError(line, this.types.getName(rtype), lvar.getType(), "Erro de conversão"));
         }
-        return fullIdentifier;
     }
 
-    private void checkReadWrite(Map<String, VariableEntry> context, Map<String, ClassEntry> classes){
-        eatTerminal("(");
-        List<Token> tokens = bufferize(";");
-        int start, end;
-
-        for (int i = 0; i < tokens.size(); i++) {
-            start = i;
+    private void checkReadWrite(int statement, SymbolView view) {
+        if (this.tree.getChildCount(statement) == 0) {
+            return;
+        }
 
-            while(!tokens.get(i).getValue().equals(",") && i < tokens.size()-1){
-                i++;
-            }
-            end = i;
+        int line = firstLine(this.tree.getChild(statement, 0));
 
-            List<Token> arg = tokens.subList(start, end);
-            boolean isChained = arg.stream().anyMatch(s-> s.getValue().equals("."));
+        for (int i = 0; i < this.tree.getChildCount(statement); i++) {
+            int arg = this.tree.getChild(statement, i);
 
-            if(isChained){
-                getChainedExpressionType(tokens.get(0).getLine(), arg, context, classes);
-            }else{
-                getExpressionType(arg, context);
+            if (isChained(arg)) {
+                getChainedExpressionType(line, arg, view);
+            } else {
+                getExpressionType(arg, view);
             }
         }
-
-
     }
 
-    private void checkMain()  {
+    private void checkMain(int node) {
         ClassEntry mainClass = this.symbolTable.getMain();
 
-        eatTerminal("main");
-        eatTerminal("{");
-        checkVariable(mainClass);
-
-        Map<String, VariableEntry> context = this.symbolTable.getConstContext();
-        context.putAll(mainClass.getVariables());
+        if (this.history != null) {
+            this.history.addClass(mainClass);
+            this.groups.add(new ArrayList<BodyTask>());
+        }
 
-        checkStatements(context, this.symbolTable.getClasses());
+        Scope mainScope = new Scope();
+        this.classScopes.put(mainClass, mainScope);
 
-        eatTerminal("}");
+        checkDeclarations(this.tree.findChild(node, NodeKind.VARIABLES), false, mainScope, mainClass.getVariables());
+        define(mainScope, null);
 
+        checkBody(node, this.symbolTable.getConstContext());
     }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package analyzers.semantic;
+
+import model.semantic.Scope;
+import model.semantic.entries.ClassEntry;
+import model.semantic.entries.MethodEntry;
+import model.semantic.entries.VariableEntry;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Alterações da tabela de símbolos feitas pela passada de declarações, para que os corpos dos métodos possam ser
+// verificados depois, em paralelo, cada um com a tabela como estava no seu ponto do programa. As versões contam os
+// corpos alcançados: o corpo de número v vê as alterações feitas com versão até v. A tabela só cresce, exceto o
+// contexto das constantes, em que um nome pode receber outra entrada (as variáveis dos métodos são copiadas para ele)
+class SymbolHistory {
+    // Pelo número do nome
+    private Versions[] context;
+    private final Map<Object, Integer> added;
+    private int version;
+
+    SymbolHistory() {
+        this.context = new Versions[64];
+        this.added = new IdentityHashMap<>();
+    }
+
+    // Versão do próximo corpo; as alterações seguintes só são vistas pelos corpos depois dele
+    int nextBody() {
+        return this.version++;
+    }
+
+    void putAll(Scope entries) {
+        for (int i = 0; i < entries.size(); i++) {
+            this.put(entries.getSymbol(i), entries.getEntry(i));
+        }
+    }
+
+    void put(int symbol, VariableEntry entry) {
+        if (symbol >= this.context.length) {
+            this.context = Arrays.copyOf(this.context, Math.max(this.context.length * 2, symbol + 1));
+        }
+
+        Versions versions = this.context[symbol];
+
+        if (versions == null) {
+            versions = new Versions();
+            this.context[symbol] = versions;
+        }
+
+        versions.put(this.version, entry);
+    }
+
+    void addClass(ClassEntry classEntry) {
+        this.added.put(classEntry, this.version);
+    }
+
+    void addMethod(MethodEntry method) {
+        this.added.put(method, this.version);
+    }
+
+    // Entrada do contexto com o nome na versão, ou null
+    VariableEntry getVariable(int symbol, int version) {
+        Versions versions = symbol < this.context.length ? this.context[symbol] : null;
+        return versions == null ? null : versions.get(version);
+    }
+
+    // Classes e métodos que não passaram pela passada de declarações (como a classe de uma declaração repetida)
+    // não estão na tabela e nunca são consultados por ela
+    boolean isVisible(Object entry, int version) {
+        Integer added = this.added.get(entry);
+        return added != null && added <= version;
+    }
+
+    // Entradas que um nome teve, em ordem de versão
+    private static class Versions {
+        private int[] versions = new int[1];
+        private VariableEntry[] entries = new VariableEntry[1];
+        private int size;
+
+        void put(int version, VariableEntry entry) {
+            if (this.size > 0 && this.versions[this.size - 1] == version) {
+                this.entries[this.size - 1] = entry;
+                return;
+            }
+
+            if (this.size == this.versions.length) {
+                this.versions = Arrays.copyOf(this.versions, this.size * 2);
+                this.entries = Arrays.copyOf(this.entries, this.size * 2);
+            }
+
+            this.versions[this.size] = version;
+            this.entries[this.size++] = entry;
+        }
+
+        VariableEntry get(int version) {
+            int low = 0;
+            int high = this.size - 1;
+
+            // Última entrada com versão até version
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+
+                if (this.versions[middle] <= version) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            return high < 0 ? null : this.entries[high];
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package analyzers.semantic;
+
+import model.ast.Symbols;
+import model.error.SemanticError;
+import model.semantic.Scope;
+import model.semantic.entries.ClassEntry;
+import model.semantic.entries.MethodEntry;
+import model.semantic.entries.MethodSignature;
+import model.semantic.entries.VariableEntry;
+
+import java.util.List;
+import java.util.Map;
+
+// Consultas à tabela de símbolos feitas ao verificar uma expressão ou o corpo de um método, com a lista em que os
+// erros são acrescentados. Na verificação sequencial, as tabelas são consultadas diretamente; na paralela, cada corpo
+// tem a sua visão, com a tabela como estava no seu ponto do programa e a sua própria lista de erros. Na verificação
+// incremental, as consultas do corpo são registradas como dependências dele
+class SymbolView {
+    private final Scope context;
+    private final Map<String, ClassEntry> classes;
+    private final SymbolHistory history;
+    private final int version;
+    private final List<SemanticError> errors;
+    private final CheckedBodies.Body dependencies;
+
+    SymbolView(Scope context, Map<String, ClassEntry> classes, List<SemanticError> errors) {
+        this(context, classes, null, 0, errors, null);
+    }
+
+    // A tabela como estava no corpo de número version
+    SymbolView(SymbolHistory history, int version, Map<String, ClassEntry> classes, List<SemanticError> errors) {
+        this(null, classes, history, version, errors, null);
+    }
+
+    private SymbolView(Scope context, Map<String, ClassEntry> classes, SymbolHistory history, int version,
+                       List<SemanticError> errors, CheckedBodies.Body dependencies) {
+        this.context = context;
+        this.classes = classes;
+        this.history = history;
+        this.version = version;
+        this.errors = errors;
+        this.dependencies = dependencies;
+    }
+
+    // A mesma visão, registrando as consultas em dependencies
+    SymbolView recording(CheckedBodies.Body dependencies) {
+        return new SymbolView(this.context, this.classes, this.history, this.version, this.errors, dependencies);
+    }
+
+    List<SemanticError> getErrors() {
+        return errors;
+    }
+
+    // Variável ou constante do contexto pelo número do nome, ou null. Um nome sem número nunca foi declarado
+    VariableEntry getVariable(int symbol) {
+        if (symbol == Symbols.NO_SYMBOL) {
+            return null;
+        }
+
+        VariableEntry entry = this.history == null ? this.context.get(symbol) : this.history.getVariable(symbol, this.version);
+
+        if (this.dependencies != null) {
+            this.dependencies.readVariable(symbol, entry);
+        }
+
+        return entry;
+    }
+
+    // Método da classe com a assinatura, ou null se a classe ou o método não existem
+    MethodEntry getMethod(String className, MethodSignature signature) {
+        ClassEntry classEntry = this.getClass(className);
+        MethodEntry method = classEntry == null ? null : classEntry.getMethod(signature);
+
+        if (method != null && this.history != null && !this.history.isVisible(method, this.version)) {
+            method = null;
+        }
+
+        if (this.dependencies != null) {
+            this.dependencies.readMethod(className, signature, method == null ? null : method.getReturnType());
+        }
+
+        return method;
+    }
+
+    // Atributo da classe, ou null se a classe ou o atributo não existem
+    VariableEntry getField(String className, String name) {
+        ClassEntry classEntry = this.getClass(className);
+        VariableEntry field = classEntry == null ? null : classEntry.getVariables().get(name);
+
+        if (this.dependencies != null) {
+            this.dependencies.readField(className, name, field);
+        }
+
+        return field;
+    }
+
+    private ClassEntry getClass(String className) {
+        ClassEntry classEntry = this.classes.get(className);
+
+        if (classEntry != null && this.history != null && !this.history.isVisible(classEntry, this.version)) {
+            return null;
+        }
+
+        return classEntry;
+    }
+}
@@ -0,0 +1,36 @@
+package analyzers.syntatical;
+
+// Sinal de expressão malformada lançado pelo parseBaseValue e tratado pelos chamadores do parseExpression.
+// Cada analisador reaproveita uma única instância, sem pilha de chamadas: lançar o sinal custa o mesmo que um
+// retorno, mesmo em arquivos com muitos erros. Continua sendo uma IndexOutOfBoundsException para os catch existentes.
+class MalformedExpressionException extends IndexOutOfBoundsException {
+    private static final long serialVersionUID = 1L;
+    private static final String MESSAGE = "Expressão Malformada na linha ";
+
+    private int line;
+
+    MalformedExpressionException at(int line) {
+        this.line = line;
+        return this;
+    }
+
+    @Override
+    public String getMessage() {
+        return MESSAGE + this.line;
+    }
+
+    // Mensagem de getMessage() com a linha deslocada de lineShift; outras mensagens voltam como estão
+    static String shiftLine(String message, int lineShift) {
+        if (message == null || !message.startsWith(MESSAGE)) {
+            return message;
+        }
+
+        int line = Integer.parseInt(message.substring(MESSAGE.length()));
+        return line == -1 ? message : MESSAGE + (line + lineShift);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
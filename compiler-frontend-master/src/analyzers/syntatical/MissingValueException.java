@@ -0,0 +1,14 @@
+package analyzers.syntatical;
+
+// Sinal de "++" ou "--" sem o valor, lançado pelo parseNumberLiteral. Não é uma IndexOutOfBoundsException, então
+// passa pelos catch dos índices de vetor, do return e das declarações e só é tratado pelos comandos (atribuição, if e
+// while), pelas listas de declarações e, por último, pelo parseProgram. Como o MalformedExpressionException, cada
+// analisador reaproveita uma única instância, sem pilha de chamadas.
+class MissingValueException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
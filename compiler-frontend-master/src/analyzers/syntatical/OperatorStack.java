@@ -0,0 +1,87 @@
+package analyzers.syntatical;
+
+import model.ast.NodeKind;
+import model.token.TokenKind;
+
+import java.util.Arrays;
+
+// Pilha do parseExpression: operadores lidos e ainda não reduzidos a nós da árvore, com a precedência de cada um,
+// e os "(" abertos, que guardam a posição da pilha da árvore em que a expressão entre parênteses começou.
+// Arrays paralelos, como na SyntaxTree; o topo é o último elemento.
+class OperatorStack {
+    private NodeKind[] nodes;
+    private TokenKind[] kinds;
+    private String[] values;
+    private int[] lines;
+    private int[] precedences;
+    private int[] marks;
+    private int size;
+
+    OperatorStack() {
+        this.nodes = new NodeKind[16];
+        this.kinds = new TokenKind[16];
+        this.values = new String[16];
+        this.lines = new int[16];
+        this.precedences = new int[16];
+        this.marks = new int[16];
+    }
+
+    void push(NodeKind node, TokenKind kind, String value, int line, int precedence, int mark) {
+        if (this.size == this.nodes.length) {
+            int capacity = this.size * 2;
+            this.nodes = Arrays.copyOf(this.nodes, capacity);
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+            this.lines = Arrays.copyOf(this.lines, capacity);
+            this.precedences = Arrays.copyOf(this.precedences, capacity);
+            this.marks = Arrays.copyOf(this.marks, capacity);
+        }
+
+        this.nodes[this.size] = node;
+        this.kinds[this.size] = kind;
+        this.values[this.size] = value;
+        this.lines[this.size] = line;
+        this.precedences[this.size] = precedence;
+        this.marks[this.size] = mark;
+        this.size++;
+    }
+
+    void pop() {
+        this.values[--this.size] = null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Descarta os elementos acima de size, como SyntaxTree.discard()
+    void truncate(int size) {
+        while (this.size > size) {
+            this.pop();
+        }
+    }
+
+    NodeKind getNode() {
+        return this.nodes[this.size - 1];
+    }
+
+    TokenKind getKind() {
+        return this.kinds[this.size - 1];
+    }
+
+    String getValue() {
+        return this.values[this.size - 1];
+    }
+
+    int getLine() {
+        return this.lines[this.size - 1];
+    }
+
+    int getPrecedence() {
+        return this.precedences[this.size - 1];
+    }
+
+    int getMark() {
+        return this.marks[this.size - 1];
+    }
+}
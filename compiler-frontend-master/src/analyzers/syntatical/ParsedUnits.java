@@ -0,0 +1,249 @@
+package analyzers.syntatical;
+
+import model.ast.NodeKind;
+import model.ast.SyntaxTree;
+import model.error.SyntaxError;
+import model.token.TokenCursor;
+import model.token.TokenSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Resultado da análise de cada unidade do programa (bloco const, classe, método e main) para a análise incremental.
+// A análise de uma unidade depende só dos tokens que ela consultou, do primeiro até o último lido por lookahead ou
+// pelo modo pânico, e o hash desses tokens é a chave da unidade. As linhas entram no hash relativas ao primeiro token,
+// então uma unidade que só mudou de linha também é reaproveitada, com as linhas da subárvore e dos erros deslocadas.
+//
+// A cada análise, as unidades da análise anterior são procuradas pelos primeiros tokens ("class Nome ...") e
+// confirmadas pelo hash de todos os tokens consultados. As reaproveitadas são copiadas da árvore anterior, e as demais
+// são analisadas de novo; os dois tipos são guardados para a próxima análise.
+class ParsedUnits {
+    // Tokens usados para procurar a unidade: a palavra reservada, o nome e o seguinte
+    private static final int SIGNATURE_TOKENS = 3;
+    private static final long NO_LINE = Long.MIN_VALUE;
+    private static final long NO_TOKEN = Long.MAX_VALUE;
+
+    private final TokenCursor cursor;
+    private final TokenSource tokens;
+    private final SyntaxTree tree;
+    private final List<SyntaxError> errors;
+
+    private SyntaxTree previousTree;
+    private Map<Long, List<Unit>> previousUnits;
+    private final Map<Long, List<Unit>> units;
+    private final List<OpenUnit> open;
+
+    private int parsedUnits;
+    private int reusedUnits;
+
+    ParsedUnits(TokenCursor cursor, SyntaxTree tree, List<SyntaxError> errors, ParsedUnits previous) {
+        this.cursor = cursor;
+        this.tokens = cursor.getTokens();
+        this.tree = tree;
+        this.errors = errors;
+        this.previousTree = previous == null ? null : previous.tree;
+        this.previousUnits = previous == null ? Collections.<Long, List<Unit>>emptyMap() : previous.units;
+        this.units = new HashMap<>();
+        this.open = new ArrayList<>();
+    }
+
+    int getParsedUnits() {
+        return parsedUnits;
+    }
+
+    int getReusedUnits() {
+        return reusedUnits;
+    }
+
+    // Fim da análise: a análise anterior não é mais necessária
+    void finish() {
+        this.previousTree = null;
+        this.previousUnits = Collections.emptyMap();
+        this.open.clear();
+    }
+
+    // Se uma unidade da análise anterior começa no token corrente com os mesmos tokens, empilha uma cópia da subárvore,
+    // acrescenta os erros e leva o cursor para depois da unidade
+    boolean reuse(NodeKind kind) {
+        int start = this.cursor.current();
+        int gap = this.cursor.position() - start;
+        List<Unit> candidates = this.previousUnits.isEmpty() ? null : this.previousUnits.get(this.signature(start));
+
+        if (candidates == null) {
+            return false;
+        }
+
+        int line = this.tokens.getLine(start);
+
+        for (Unit unit : candidates) {
+            if (unit.kind == kind && unit.gap == gap && unit.hash == this.hash(start, start + unit.lookahead, line)) {
+                int node = this.tree.copy(this.previousTree, unit.node, line - unit.line);
+                Unit copy = this.move(unit, node, line);
+
+                this.errors.addAll(copy.errors);
+                this.cursor.restore(start + unit.length, start + unit.length + unit.endGap);
+                this.add(copy);
+                this.reusedUnits++;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Início de uma unidade que vai ser analisada; os tokens a partir do corrente ficam retidos até end()
+    void begin() {
+        int start = this.cursor.current();
+
+        this.open.add(new OpenUnit(start, this.cursor.position() - start, this.errors.size()));
+        this.cursor.mark();
+    }
+
+    // Fim da unidade aberta por begin(), cuja subárvore está no topo da pilha da árvore
+    void end(NodeKind kind) {
+        OpenUnit unit = this.open.remove(this.open.size() - 1);
+        int line = this.tokens.getLine(unit.start);
+        int lookahead = this.cursor.furthest() + 1 - unit.start;
+
+        Unit parsed = new Unit(kind, unit.gap, this.cursor.current() - unit.start, this.cursor.position() - this.cursor.current(), lookahead,
+                this.hash(unit.start, unit.start + lookahead, line), this.signature(unit.start), line, this.tree.top(),
+                new ArrayList<>(this.errors.subList(unit.errors, this.errors.size())), unit.nested);
+
+        this.cursor.release();
+        this.add(parsed);
+        this.parsedUnits++;
+    }
+
+    private void add(Unit unit) {
+        this.register(unit);
+
+        if (!this.open.isEmpty()) {
+            this.open.get(this.open.size() - 1).nested.add(unit);
+        }
+    }
+
+    private void register(Unit unit) {
+        List<Unit> units = this.units.get(unit.signature);
+
+        if (units == null) {
+            units = new ArrayList<>(1);
+            this.units.put(unit.signature, units);
+        }
+        units.add(unit);
+    }
+
+    // Unidade copiada para node, na linha line; as unidades internas (os métodos de uma classe) são os filhos de node
+    // do mesmo tipo, na mesma ordem, e também ficam guardadas para a próxima análise
+    private Unit move(Unit unit, int node, int line) {
+        int lineShift = line - unit.line;
+        List<SyntaxError> errors = unit.errors;
+        List<Unit> nested = unit.nested;
+
+        if (lineShift != 0 && !errors.isEmpty()) {
+            errors = new ArrayList<>(unit.errors.size());
+
+            for (SyntaxError error : unit.errors) {
+                int errorLine = error.getLine() == -1 ? -1 : error.getLine() + lineShift;
+                errors.add(new SyntaxError(errorLine, error.getToken(), error.getExpected(), MalformedExpressionException.shiftLine(error.getType(), lineShift)));
+            }
+        }
+
+        if (!nested.isEmpty()) {
+            nested = new ArrayList<>(unit.nested.size());
+
+            for (int i = 0; i < this.tree.getChildCount(node); i++) {
+                int child = this.tree.getChild(node, i);
+                Unit inner = unit.nested.get(nested.size());
+
+                if (this.tree.isKind(child, inner.kind)) {
+                    Unit copy = this.move(inner, child, inner.line + lineShift);
+                    this.register(copy);
+                    nested.add(copy);
+
+                    if (nested.size() == unit.nested.size()) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        return new Unit(unit.kind, unit.gap, unit.length, unit.endGap, unit.lookahead, unit.hash, unit.signature, line, node, errors, nested);
+    }
+
+    private long signature(int start) {
+        return this.hash(start, start + SIGNATURE_TOKENS, this.tokens.fetch(start) ? this.tokens.getLine(start) : 0);
+    }
+
+    // Hash dos tokens [start, end): tipo, lexema e linha relativa a line. Posições depois do fim entram como ausentes,
+    // porque a unidade também depende de onde a entrada termina
+    private long hash(int start, int end, int line) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = start; i < end; i++) {
+            if (!this.tokens.fetch(i)) {
+                hash = mix(hash, NO_TOKEN);
+                continue;
+            }
+
+            int tokenLine = this.tokens.getLine(i);
+
+            hash = mix(hash, this.tokens.getKind(i).ordinal());
+            hash = mix(hash, this.tokens.getValueHash(i));
+            hash = mix(hash, tokenLine == -1 ? NO_LINE : tokenLine - line);
+        }
+
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    // Unidade analisada: quantos tokens consumiu (length) e consultou (lookahead) a partir do primeiro, a distância
+    // entre o token corrente e o próximo a ser lido no início (gap) e no fim (endGap), a subárvore e os erros
+    private static class Unit {
+        private final NodeKind kind;
+        private final int gap;
+        private final int length;
+        private final int endGap;
+        private final int lookahead;
+        private final long hash;
+        private final long signature;
+        private final int line;
+        private final int node;
+        private final List<SyntaxError> errors;
+        private final List<Unit> nested;
+
+        Unit(NodeKind kind, int gap, int length, int endGap, int lookahead, long hash, long signature, int line, int node, List<SyntaxError> errors, List<Unit> nested) {
+            this.kind = kind;
+            this.gap = gap;
+            this.length = length;
+            this.endGap = endGap;
+            this.lookahead = lookahead;
+            this.hash = hash;
+            this.signature = signature;
+            this.line = line;
+            this.node = node;
+            this.errors = errors;
+            this.nested = nested;
+        }
+    }
+
+    // Unidade em análise, com as unidades internas já terminadas
+    private static class OpenUnit {
+        private final int start;
+        private final int gap;
+        private final int errors;
+        private final List<Unit> nested;
+
+        OpenUnit(int start, int gap, int errors) {
+            this.start = start;
+            this.gap = gap;
+            this.errors = errors;
+            this.nested = new ArrayList<>();
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package analyzers.syntatical;
 
+import model.ast.NodeKind;
+import model.ast.SyntaxTree;
 import model.error.SyntaxError;
+import model.token.Keyword;
 import model.token.Token;
+import model.token.TokenCursor;
+import model.token.TokenKind;
+import model.token.TokenSet;
+import model.token.TokenSource;
+import model.token.TokenStream;
 import model.token.TokenTypes;
 
 import java.util.ArrayList;
@@ -13,19 +21,71 @@ import java.util.NoSuchElementException;
 public class SyntacticalAnalyzer {
     private static boolean THROW_EXCEPTION = false;
     private static boolean VERBOSE = false;
-    private static String NATIVE_TYPE_SYNC;
 
-    private final List<Token> tokens;
-    private int tokenIndex;
+    private static final List<String> VALUE_FIRST = Arrays.asList("-", "--", "(", "[", "++");
+    private static final List<Keyword> VALUE_FIRST_KEYWORDS = Arrays.asList(Keyword.TRUE, Keyword.FALSE);
+    private static final List<TokenKind> VALUE_FIRST_TYPES = Arrays.asList(TokenKind.NUMBER, TokenKind.STRING, TokenKind.IDENTIFIER);
+
+    // Conjuntos de sincronização do modo pânico: o pânico descarta tokens até achar um do conjunto
+    private static final TokenSet SEMICOLON = TokenSet.terminals(";");
+    private static final TokenSet COMMA = TokenSet.terminals(",");
+    private static final TokenSet LIST_END = TokenSet.terminals(",;");
+    private static final TokenSet OPEN_BRACE = TokenSet.terminals("{");
+    private static final TokenSet CLOSE_BRACE = TokenSet.terminals("}");
+    private static final TokenSet OPEN_PARENTHESIS = TokenSet.terminals("(");
+    private static final TokenSet CLOSE_PARENTHESIS = TokenSet.terminals(")");
+    private static final TokenSet CONDITION_END = TokenSet.terminals("){");
+    private static final TokenSet INDEX_END = TokenSet.terminals("];,");
+    private static final TokenSet IDENTIFIER_END = TokenSet.terminals(");.[");
+    private static final TokenSet TYPE_START = TokenSet.of(TokenKind.IDENTIFIER).union(TokenSet.of(Keyword.INT, Keyword.FLOAT, Keyword.STRING, Keyword.BOOL, Keyword.VOID));
+    private static final TokenSet CONST_SYNC = TYPE_START.union(TokenSet.terminals("};"));
+    private static final TokenSet CLASS_SYNC = TokenSet.of(Keyword.CLASS, Keyword.MAIN);
+    private static final TokenSet SUPERCLASS_SYNC = OPEN_BRACE.union(TokenSet.of(Keyword.VARIABLES));
+    private static final TokenSet METHOD_SYNC = TokenSet.of(Keyword.METHOD).union(TokenSet.of(TokenKind.IDENTIFIER));
+    private static final TokenSet STATEMENT_SYNC = SEMICOLON.union(TokenSet.of(TokenKind.IDENTIFIER)).union(TokenSet.of(Keyword.IF, Keyword.WHILE, Keyword.WRITE, Keyword.READ));
+    private static final TokenSet FIELD_SYNC = TokenSet.terminals(".([").union(TokenSet.of(TokenKind.IDENTIFIER));
+    private static final TokenSet VARIABLE_SYNC = TokenSet.terminals("=,;)").union(TokenSet.of(TokenKind.IDENTIFIER, TokenKind.RESERVED_WORD));
+
+    // Precedências usadas pelo parseExpression; os "(" ficam abaixo de todos os operadores
+    private static final int PARENTHESES = 0;
+    private static final int RELATIONAL = 1;
+    private static final int ADDITIVE = 2;
+    private static final int MULTIPLICATIVE = 3;
+    private static final int NEGATE = 4;
+
+    private final TokenCursor currentToken;
+    private final SyntaxTree tree;
+    private final OperatorStack operators;
+    private final MalformedExpressionException malformedExpression;
+    private final MissingValueException missingValue;
+    private final ParsedUnits units;
     private List<SyntaxError> errors;
-    private Token currentToken = new Token("", "", 0);
 
     public SyntacticalAnalyzer(List<Token> tokens) {
-        this.tokens = tokens;
-        this.tokenIndex = 0;
+        this(TokenStream.of(tokens));
+    }
+
+    public SyntacticalAnalyzer(TokenSource tokens) {
+        this(tokens, null, false);
+    }
+
+    // Análise incremental: reaproveita as unidades (bloco const, classes, métodos e main) de previous cujos tokens
+    // não mudaram e analisa só as demais. Com previous null, faz a análise completa e guarda as unidades para a
+    // próxima. O resultado é o mesmo da análise completa de tokens, que precisa permitir acesso aleatório.
+    public SyntacticalAnalyzer(TokenSource tokens, SyntacticalAnalyzer previous) {
+        this(tokens, previous, true);
+    }
+
+    private SyntacticalAnalyzer(TokenSource tokens, SyntacticalAnalyzer previous, boolean incremental) {
+        this.currentToken = new TokenCursor(tokens);
+        // Os nós copiados da árvore anterior mantêm os números dos nomes
+        this.tree = previous == null ? new SyntaxTree() : new SyntaxTree(previous.tree.getSymbols());
+        this.operators = new OperatorStack();
+        this.malformedExpression = new MalformedExpressionException();
+        this.missingValue = new MissingValueException();
         this.errors = new ArrayList<>();
+        this.units = incremental ? new ParsedUnits(this.currentToken, this.tree, this.errors, previous == null ? null : previous.units) : null;
 
-        NATIVE_TYPE_SYNC = String.join("", TokenTypes.nativeTypes);
         this.updateToken();
     }
 
@@ -33,33 +93,95 @@ public class SyntacticalAnalyzer {
         return errors;
     }
 
-    private void updateToken() throws IndexOutOfBoundsException {
-        if (this.tokenIndex < this.tokens.size()) {
-            this.currentToken = this.tokens.get(this.tokenIndex);
-            this.tokenIndex++;
-        } else {
-            throw new IndexOutOfBoundsException("No more tokens");
+    // Unidades reaproveitadas da análise anterior e analisadas de novo, na análise incremental
+    public int getReusedUnits() {
+        return this.units == null ? 0 : this.units.getReusedUnits();
+    }
+
+    public int getParsedUnits() {
+        return this.units == null ? 0 : this.units.getParsedUnits();
+    }
+
+    public SyntaxTree getTree() {
+        return tree;
+    }
+
+    // Empilha na árvore uma folha com o token corrente
+    private void leaf(NodeKind kind) {
+        this.tree.leaf(kind, this.currentToken.getKind(), this.currentToken.getValue(), this.currentToken.getLine());
+    }
+
+    // Comandos até o fim do bloco, agrupados em um nó BLOCK
+    private void parseBlock() throws NoSuchElementException {
+        int mark = this.tree.mark();
+        int line = this.currentToken.getLine();
+
+        parseStatements();
+        this.tree.node(NodeKind.BLOCK, line, mark);
+    }
+
+    // Na análise incremental, copia a unidade que começa no token corrente se ela não mudou desde a análise anterior
+    private boolean reuseUnit(NodeKind kind) {
+        return this.units != null && this.units.reuse(kind);
+    }
+
+    private void beginUnit() {
+        if (this.units != null) {
+            this.units.begin();
+        }
+    }
+
+    private void endUnit(NodeKind kind) {
+        if (this.units != null) {
+            this.units.end(kind);
         }
     }
 
+    private void updateToken() throws IndexOutOfBoundsException {
+        this.currentToken.advance();
+    }
+
     private boolean checkForTerminal(String terminal) {
-        return this.checkForTerminal(this.currentToken, terminal);
+        return this.currentToken.is(terminal);
+    }
+
+    private boolean checkForTerminal(int token, String terminal) {
+        return this.currentToken.is(token, terminal);
+    }
+
+    private boolean checkForTerminal(Keyword keyword) {
+        return this.currentToken.is(keyword);
+    }
+
+    private boolean checkForTerminal(int token, Keyword keyword) {
+        return this.currentToken.is(token, keyword);
     }
 
-    private boolean checkForTerminal(Token token, String terminal) {
-        return token.getValue().equals(terminal);
+    private boolean checkForType(int token, TokenKind type) {
+        return this.currentToken.isType(token, type);
     }
 
-    private boolean checkForType(Token token, String type) {
-        return token.getType().equals(type);
+    private boolean checkForType(TokenKind type) {
+        return this.currentToken.isType(type);
     }
 
-    private boolean checkForType(String type) {
-        return this.checkForType(this.currentToken, type);
+    // Retorna o tipo nativo (int, float, ...) correspondente ao token corrente, ou null
+    private Keyword checkForNativeType() {
+        Keyword keyword = this.currentToken.getKeyword();
+
+        return keyword != null && keyword.isNativeType() ? keyword : null;
+    }
+
+    private boolean eatTerminal(String terminal, boolean throwException, String errorMsg, TokenSet sync) throws NoSuchElementException {
+        return this.eatTerminal(currentToken.is(terminal), terminal, throwException, errorMsg, sync);
     }
 
-    private boolean eatTerminal(String terminal, boolean throwException, String errorMsg, String sync) throws NoSuchElementException {
-        if (!currentToken.getValue().equals(terminal)) {
+    private boolean eatTerminal(Keyword keyword, boolean throwException, String errorMsg, TokenSet sync) throws NoSuchElementException {
+        return this.eatTerminal(currentToken.is(keyword), keyword.getLexeme(), throwException, errorMsg, sync);
+    }
+
+    private boolean eatTerminal(boolean found, String terminal, boolean throwException, String errorMsg, TokenSet sync) throws NoSuchElementException {
+        if (!found) {
             this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), terminal, errorMsg));
             String msg = "TerminalError -> Line: " + currentToken.getLine() + " -> " + "Expected " + terminal + " got " + currentToken.getValue();
 
@@ -86,21 +208,29 @@ public class SyntacticalAnalyzer {
         return this.eatTerminal(terminal, THROW_EXCEPTION, "Token inesperado", null);
     }
 
-    private boolean eatTerminal(String terminal, String sync) throws NoSuchElementException {
+    private boolean eatTerminal(String terminal, TokenSet sync) throws NoSuchElementException {
         return this.eatTerminal(terminal, THROW_EXCEPTION, "Token inesperado", sync);
     }
 
-    private void eatType(String type) throws NoSuchElementException {
+    private boolean eatTerminal(Keyword keyword) throws NoSuchElementException {
+        return this.eatTerminal(keyword, THROW_EXCEPTION, "Token inesperado", null);
+    }
+
+    private boolean eatTerminal(Keyword keyword, TokenSet sync) throws NoSuchElementException {
+        return this.eatTerminal(keyword, THROW_EXCEPTION, "Token inesperado", sync);
+    }
+
+    private void eatType(TokenKind type) throws NoSuchElementException {
         this.eatType(type, THROW_EXCEPTION, "Tipo inesperado", null);
     }
 
-    private void eatType(String type, String errorMsg, String sync) throws NoSuchElementException {
+    private void eatType(TokenKind type, String errorMsg, TokenSet sync) throws NoSuchElementException {
         this.eatType(type, THROW_EXCEPTION, errorMsg, sync);
     }
 
-    private void eatType(String type, boolean throwException, String errorMsg, String sync) throws NoSuchElementException {
-        if (!currentToken.getType().equals(type)) {
-            this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getType(), type, errorMsg));
+    private void eatType(TokenKind type, boolean throwException, String errorMsg, TokenSet sync) throws NoSuchElementException {
+        if (!currentToken.isType(type)) {
+            this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getType(), type.getCode(), errorMsg));
             String msg = "TypeError -> Line: " + currentToken.getLine() + " -> " + "Expected type " + type + " got " + currentToken.getType() + " (" + currentToken.getValue() + ")";
 
             if (VERBOSE)
@@ -120,243 +250,341 @@ public class SyntacticalAnalyzer {
         updateToken();
     }
 
-    private Token peekToken(int offset) {
-        int index = this.tokenIndex + offset;
-        if (index >= this.tokens.size()) {
-            return Token.EMPTY_TOKEN;
-        } else
-            return this.tokens.get(this.tokenIndex + offset);
+    private int peekToken(int offset) {
+        return this.currentToken.peek(offset);
     }
 
-    public void parseProgram() throws NoSuchElementException {
+    // Analisa o programa e retorna a árvore sintática; com erros sintáticos, a árvore traz apenas o que foi reconhecido
+    public SyntaxTree parseProgram() throws NoSuchElementException {
+        int mark = this.tree.mark();
+
         try {
             parseConst();
             parseClasses();
             parseMain();
         } catch (IndexOutOfBoundsException ex) {
             this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Tokens", "Fim do arquivo inesperado"));
+        } catch (MissingValueException ex) {
+            // "++" ou "--" sem o valor fora de um comando ou de uma lista de declarações: a análise para aqui
+            this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Expressão", "Expressão Malformada"));
+        } finally {
+            if (this.units != null) {
+                this.units.finish();
+            }
         }
+
+        this.tree.setRoot(this.tree.node(NodeKind.PROGRAM, 1, mark));
+        return this.tree;
     }
 
     private void parseConst() throws NoSuchElementException {
-        boolean possiblyMistypedKeyword = checkForType(TokenTypes.IDENTIFIER);
+        boolean possiblyMistypedKeyword = checkForType(TokenKind.IDENTIFIER);
         boolean hasBraces = checkForTerminal(peekToken(1), "{");
-        boolean hasVarDecl = checkForType(peekToken(2), TokenTypes.RESERVED_WORD) || checkForType(peekToken(2), TokenTypes.IDENTIFIER);
+        boolean hasVarDecl = checkForType(peekToken(2), TokenKind.RESERVED_WORD) || checkForType(peekToken(2), TokenKind.IDENTIFIER);
+
+        boolean isConst = checkForTerminal(Keyword.CONST) || (possiblyMistypedKeyword && hasBraces && hasVarDecl);
 
-        boolean isConst = checkForTerminal("const") || (possiblyMistypedKeyword && hasBraces && hasVarDecl);
+        if (isConst && !reuseUnit(NodeKind.CONST_BLOCK)) {
+            int mark = this.tree.mark();
+            int line = this.currentToken.getLine();
 
-        if (isConst) {
-            eatTerminal("const", "{");
+            beginUnit();
+            eatTerminal(Keyword.CONST, OPEN_BRACE);
             eatTerminal("{");
             parseConstBody();
-            eatTerminal("}", "class" + "main");
+            eatTerminal("}", CLASS_SYNC);
+            this.tree.node(NodeKind.CONST_BLOCK, line, mark);
+            endUnit(NodeKind.CONST_BLOCK);
         }
 
     }
 
     private void parseConstBody() throws NoSuchElementException {
-        if (TokenTypes.nativeTypes.contains(this.currentToken.getValue())) {
-            parseType(false, "Tipo da constante ausente", null);
-            parseConstAssignmentList();
-            eatTerminal(";", NATIVE_TYPE_SYNC + TokenTypes.IDENTIFIER + "};");
+        while (true) {
+            int mark = this.tree.mark();
+            int line = this.currentToken.getLine();
 
-            parseConstBody();
-        } else if (checkForType(TokenTypes.IDENTIFIER)) {
-            eatType(TokenTypes.IDENTIFIER);
-            parseConstAssignmentList();
-            eatTerminal(";", NATIVE_TYPE_SYNC + TokenTypes.IDENTIFIER + "};");
+            if (checkForNativeType() != null) {
+                parseType(false, "Tipo da constante ausente", null);
+                parseConstAssignmentList();
+                eatTerminal(";", CONST_SYNC);
+                this.tree.node(NodeKind.DECLARATION_LIST, line, mark);
+            } else if (checkForType(TokenKind.IDENTIFIER)) {
+                leaf(NodeKind.TYPE);
+                eatType(TokenKind.IDENTIFIER);
+                parseConstAssignmentList();
+                eatTerminal(";", CONST_SYNC);
 
-            if (checkForTerminal(";")) {
-                updateToken();
+                if (checkForTerminal(";")) {
+                    updateToken();
+                }
+                this.tree.node(NodeKind.DECLARATION_LIST, line, mark);
+            } else {
+                return;
             }
-
-            parseConstBody();
         }
     }
 
     private void parseConstAssignmentList() throws NoSuchElementException {
         parseConstAssignment();
-        parseOptionalAssignments();
-    }
-
-    private void parseOptionalAssignments() throws NoSuchElementException {
-        boolean missingComma = checkForType(TokenTypes.IDENTIFIER);
 
-        if (checkForTerminal(",") || missingComma) {
+        // Vírgula ausente entre duas constantes é aceita
+        while (checkForTerminal(",") || checkForType(TokenKind.IDENTIFIER)) {
             eatTerminal(",");
-            if (checkForType(TokenTypes.IDENTIFIER)) {
-                parseConstAssignmentList();
+            if (checkForType(TokenKind.IDENTIFIER)) {
+                parseConstAssignment();
             } else {
                 this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), TokenTypes.DELIMITER, "Esperava ;"));
-                panic(",;");
-                if (checkForTerminal(",")) {
-                    parseOptionalAssignments();
+                panic(LIST_END);
+                if (!checkForTerminal(",")) {
+                    return;
                 }
             }
         }
     }
 
     private void parseConstAssignment() throws NoSuchElementException {
+        int mark = this.tree.mark();
+        int line = this.currentToken.getLine();
+
         parseGeneralIdentifier();
         eatTerminal("=");
         parseVectorDecl();
+        this.tree.node(NodeKind.DECLARATION, line, mark);
     }
 
     private void parseClasses() throws NoSuchElementException {
-        boolean hasClassName = checkForType(peekToken(1), TokenTypes.IDENTIFIER);
-        boolean missingClassKeywords = checkForType(TokenTypes.IDENTIFIER);
+        while (true) {
+            boolean hasClassName = checkForType(peekToken(1), TokenKind.IDENTIFIER);
+            boolean missingClassKeywords = checkForType(TokenKind.IDENTIFIER);
 
-        if (checkForTerminal("main")) {
-            return;
-        }
+            if (checkForTerminal(Keyword.MAIN) || !(checkForTerminal(Keyword.CLASS) || hasClassName || missingClassKeywords)) {
+                return;
+            }
 
-        if (checkForTerminal("class") || hasClassName || missingClassKeywords) {
+            if (reuseUnit(NodeKind.CLASS)) {
+                continue;
+            }
 
-            if (!eatTerminal("class") && hasClassName) {
+            int mark = this.tree.mark();
+            beginUnit();
+
+            if (!eatTerminal(Keyword.CLASS) && hasClassName) {
                 updateToken();
             }
 
-            eatType(TokenTypes.IDENTIFIER);
+            String name = this.currentToken.getValue();
+            int line = this.currentToken.getLine();
+
+            eatType(TokenKind.IDENTIFIER);
             parseExtends();
             eatTerminal("{");
             parseVariables();
             parseMethods();
             eatTerminal("}");
-
-            parseClasses();
+            this.tree.node(NodeKind.CLASS, null, name, line, mark);
+            endUnit(NodeKind.CLASS);
         }
-
     }
 
     private void parseExtends() throws NoSuchElementException {
-        if (checkForTerminal("extends")) {
-            eatTerminal("extends");
-            eatType(TokenTypes.IDENTIFIER, "Herança ausente", "{variables");
-        } else if (checkForType(TokenTypes.IDENTIFIER)) {
+        if (checkForTerminal(Keyword.EXTENDS)) {
+            eatTerminal(Keyword.EXTENDS);
+            if (checkForType(TokenKind.IDENTIFIER)) {
+                leaf(NodeKind.SUPERCLASS);
+            }
+            eatType(TokenKind.IDENTIFIER, "Herança ausente", SUPERCLASS_SYNC);
+        } else if (checkForType(TokenKind.IDENTIFIER)) {
             this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "extends", "Esperado extends"));
             this.updateToken();
         }
     }
 
     private void parseMethods() throws NoSuchElementException {
-        boolean missingOnlyKeyword = (this.checkForType(peekToken(0), TokenTypes.IDENTIFIER) || TokenTypes.nativeTypes.contains(this.currentToken.getValue()) && this.checkForType(peekToken(1), TokenTypes.IDENTIFIER));
-        boolean mistypedKeyword = checkForType(TokenTypes.IDENTIFIER) && (this.checkForType(peekToken(1), TokenTypes.IDENTIFIER) || TokenTypes.nativeTypes.contains(this.currentToken.getValue()) && this.checkForType(peekToken(2), TokenTypes.IDENTIFIER));
-        boolean hasOnlyName = checkForType(TokenTypes.IDENTIFIER) && checkForTerminal(peekToken(1), "(");
+        while (true) {
+            boolean missingOnlyKeyword = (this.checkForType(peekToken(0), TokenKind.IDENTIFIER) || checkForNativeType() != null && this.checkForType(peekToken(1), TokenKind.IDENTIFIER));
+            boolean mistypedKeyword = checkForType(TokenKind.IDENTIFIER) && (this.checkForType(peekToken(1), TokenKind.IDENTIFIER) || checkForNativeType() != null && this.checkForType(peekToken(2), TokenKind.IDENTIFIER));
+            boolean hasOnlyName = checkForType(TokenKind.IDENTIFIER) && checkForTerminal(peekToken(1), "(");
 
+            if (!(checkForTerminal(Keyword.METHOD) || missingOnlyKeyword || mistypedKeyword || hasOnlyName || checkForType(TokenKind.IDENTIFIER))) {
+                return;
+            }
 
-        if (checkForTerminal("method") || missingOnlyKeyword || mistypedKeyword || hasOnlyName || checkForType(TokenTypes.IDENTIFIER)) {
-            eatTerminal("method");
+            if (reuseUnit(NodeKind.METHOD)) {
+                continue;
+            }
+
+            int mark = this.tree.mark();
+            beginUnit();
+            eatTerminal(Keyword.METHOD);
 
             if (mistypedKeyword) {
                 updateToken();
             }
 
-            parseType(THROW_EXCEPTION, "Erro na assinatura do método", TokenTypes.IDENTIFIER + NATIVE_TYPE_SYNC);
+            int line = this.currentToken.getLine();
+            parseType(THROW_EXCEPTION, "Erro na assinatura do método", TYPE_START);
 
-            eatType(TokenTypes.IDENTIFIER, "Erro na assinatura do método", "(");
+            String name = this.currentToken.getValue();
+            eatType(TokenKind.IDENTIFIER, "Erro na assinatura do método", OPEN_PARENTHESIS);
 
             eatTerminal("(");
+            int parameters = this.tree.mark();
             parseParams();
+            this.tree.node(NodeKind.PARAMETERS, line, parameters);
             eatTerminal(")");
             parseFunctionBody();
-
-            parseMethods();
+            this.tree.node(NodeKind.METHOD, null, name, line, mark);
+            endUnit(NodeKind.METHOD);
         }
-
     }
 
     private void parseFunctionBody() throws NoSuchElementException {
         eatTerminal("{");
         parseVariables();
-        parseStatements();
+        parseBlock();
         parseReturn();
         eatTerminal("}");
     }
 
     private void parseReturn() throws NoSuchElementException {
-        boolean mistypedReturn = checkForType(TokenTypes.IDENTIFIER) && checkForType(peekToken(1), TokenTypes.IDENTIFIER);
+        boolean mistypedReturn = checkForType(TokenKind.IDENTIFIER) && checkForType(peekToken(1), TokenKind.IDENTIFIER);
+
+        if (mistypedReturn || eatTerminal(Keyword.RETURN, CLOSE_BRACE)) {
+            int mark = this.tree.mark();
 
-        if (mistypedReturn || eatTerminal("return", "}")) {
             if (mistypedReturn) {
                 updateToken();
             }
-            if (checkForTerminal("void")) {
+            if (checkForTerminal(Keyword.VOID)) {
+                leaf(NodeKind.LITERAL);
                 updateToken();
             } else {
                 try {
                     parseExpression();
                 } catch (IndexOutOfBoundsException e) {
                     this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Expressão", e.getMessage()));
-                    panic(";");
+                    this.tree.discard(mark);
+                    panic(SEMICOLON);
                 }
             }
+
+            int line = this.currentToken.getLine();
             eatTerminal(";");
+            this.tree.node(NodeKind.RETURN, line, mark);
         }
     }
 
+    // Expressão por precedência com pilha explícita em vez de uma chamada por nível e por operando: relacionais e
+    // lógicos < "+" "-" < "*" "/" < "-" unário. Aceita os mesmos tokens da gramática operando (operador operando)*,
+    // com "(" sem ")" permitido, e lança as mesmas exceções de parseBaseValue. Os operadores associam à esquerda:
+    // a - b - c = BINARY(BINARY(a, b), c). Só índices de vetor e argumentos de chamada voltam a este método.
     private void parseExpression() throws NoSuchElementException {
-        parseAddExp();
+        int base = this.operators.size();
 
-        if (checkForType(TokenTypes.RELATIONAL_OPERATOR) || checkForType(TokenTypes.LOGICAL_OPERATOR)) {
-            updateToken();
-            parseExpression();
-        }
-    }
+        try {
+            while (true) {
+                parseOperand();
 
-    private void parseAddExp() throws NoSuchElementException {
-        parseMultExp();
+                int precedence = binaryPrecedence();
 
-        if (checkForTerminal("+") || checkForTerminal("-")) {
-            updateToken();
-            parseAddExp();
+                // Fim da expressão entre parênteses ou da expressão toda: fecha os "(" até achar um operador
+                while (precedence == 0) {
+                    reduceOperators(base, RELATIONAL);
+
+                    if (this.operators.size() == base) {
+                        return;
+                    }
+
+                    int mark = this.operators.getMark();
+                    int line = this.operators.getLine();
+                    boolean closed = false;
+
+                    this.operators.pop();
+                    if (checkForTerminal(")")) {
+                        eatTerminal(")");
+                        closed = true;
+                    }
+
+                    this.tree.node(NodeKind.PARENTHESES, null, closed ? "()" : "(", line, mark);
+                    precedence = binaryPrecedence();
+                }
+
+                reduceOperators(base, precedence);
+                this.operators.push(NodeKind.BINARY, this.currentToken.getKind(), this.currentToken.getValue(), this.currentToken.getLine(), precedence, 0);
+                updateToken();
+            }
+        } finally {
+            this.operators.truncate(base);
         }
     }
 
+    // Empilha os "-" e "(" que abrem o operando e lê o valor; "-" não se repete sem um "(" entre eles
+    private void parseOperand() throws NoSuchElementException {
+        while (true) {
+            if (checkForTerminal("-")) {
+                this.operators.push(NodeKind.PREFIX, TokenKind.ARITHMETICAL_OPERATOR, "-", this.currentToken.getLine(), NEGATE, 0);
+                eatTerminal("-");
+            }
 
-    private void parseMultExp() throws NoSuchElementException {
-        parseNegateExp();
+            if (!checkForTerminal("(")) {
+                parseBaseValue();
+                return;
+            }
 
-        if (checkForTerminal("*") || checkForTerminal("/")) {
-            updateToken();
-            parseMultExp();
+            this.operators.push(NodeKind.PARENTHESES, null, "(", this.currentToken.getLine(), PARENTHESES, this.tree.mark());
+            eatTerminal("(");
         }
     }
 
-    private void parseNegateExp() throws NoSuchElementException {
-        if (checkForTerminal("-")) {
-            eatTerminal("-");
+    // Precedência do operador binário no token corrente, ou 0 se a expressão acaba nele
+    private int binaryPrecedence() {
+        if (checkForType(TokenKind.RELATIONAL_OPERATOR) || checkForType(TokenKind.LOGICAL_OPERATOR)) {
+            return RELATIONAL;
+        } else if (checkForTerminal("+") || checkForTerminal("-")) {
+            return ADDITIVE;
+        } else if (checkForTerminal("*") || checkForTerminal("/")) {
+            return MULTIPLICATIVE;
         }
 
-        parseValue();
+        return 0;
     }
 
-    private void parseValue() throws NoSuchElementException {
-        if (checkForTerminal("(")) {
-            eatTerminal("(");
-            parseExpression();
+    // Transforma em nós os operadores acima de base com precedência pelo menos igual a precedence; os operandos
+    // de cada um são os últimos nós empilhados na árvore
+    private void reduceOperators(int base, int precedence) {
+        while (this.operators.size() > base && this.operators.getPrecedence() >= precedence) {
+            int operands = this.operators.getNode() == NodeKind.BINARY ? 2 : 1;
 
-            if (checkForTerminal(")")) {
-                eatTerminal(")");
-            }
-
-        } else {
-            parseBaseValue();
+            this.tree.node(this.operators.getNode(), this.operators.getKind(), this.operators.getValue(), this.operators.getLine(), this.tree.mark() - operands);
+            this.operators.pop();
         }
     }
 
     private void parseBaseValue() throws NoSuchElementException {
-        if (checkForType(TokenTypes.STRING)) {
-            eatType(TokenTypes.STRING);
-        } else if (checkForTerminal("true") || checkForTerminal("false")) {
+        if (checkForType(TokenKind.STRING)) {
+            leaf(NodeKind.LITERAL);
+            eatType(TokenKind.STRING);
+        } else if (checkForTerminal(Keyword.TRUE) || checkForTerminal(Keyword.FALSE)) {
+            leaf(NodeKind.LITERAL);
             updateToken();
-        } else if (checkForTerminal("--") || checkForTerminal("++") || checkForType(TokenTypes.NUMBER) || checkForType(TokenTypes.IDENTIFIER)) {
+        } else if (startsNumber()) {
             parseNumber();
         } else {
-            throw new IndexOutOfBoundsException("Expressão Malformada na linha " + currentToken.getLine());
+            throw this.malformedExpression.at(currentToken.getLine());
         }
     }
 
+    private boolean startsNumber() {
+        return checkForTerminal("--") || checkForTerminal("++") || checkForType(TokenKind.NUMBER) || checkForType(TokenKind.IDENTIFIER);
+    }
+
+    // Lê um valor se o token corrente começa um; sem valor, não lança o sinal de expressão malformada
     private boolean checkBaseValue() {
+        if (!checkForType(TokenKind.STRING) && !checkForTerminal(Keyword.TRUE) && !checkForTerminal(Keyword.FALSE) && !startsNumber()) {
+            return false;
+        }
+
         try {
             parseBaseValue();
             return true;
@@ -366,239 +594,310 @@ public class SyntacticalAnalyzer {
     }
 
     private void parseNumber() throws NoSuchElementException {
+        int mark = this.tree.mark();
+        String prefix = null;
+        int prefixLine = 0;
+
         if (checkForTerminal("++") || checkForTerminal("--")) {
+            prefix = this.currentToken.getValue();
+            prefixLine = this.currentToken.getLine();
             updateToken();
         }
 
         parseNumberLiteral();
 
         if (checkForTerminal("++") || checkForTerminal("--")) {
+            this.tree.node(NodeKind.POSTFIX, TokenKind.ARITHMETICAL_OPERATOR, this.currentToken.getValue(), this.currentToken.getLine(), mark);
             updateToken();
         }
 
+        if (prefix != null) {
+            this.tree.node(NodeKind.PREFIX, TokenKind.ARITHMETICAL_OPERATOR, prefix, prefixLine, mark);
+        }
     }
 
     private void parseNumberLiteral() throws NoSuchElementException {
 
-        if (checkForType(TokenTypes.IDENTIFIER)) {
+        if (checkForType(TokenKind.IDENTIFIER)) {
             parseMethodCall();
-        } else if (checkForType(TokenTypes.NUMBER)) {
+        } else if (checkForType(TokenKind.NUMBER)) {
+            leaf(NodeKind.LITERAL);
             updateToken();
         } else {
-            throw new NoSuchElementException("expected number or identifier: " + this.currentToken);
+            // "++" ou "--" sem o valor
+            throw this.missingValue;
         }
 
     }
 
     private void parseMethodCall() throws NoSuchElementException {
+        int mark = this.tree.mark();
+        int line = this.currentToken.getLine();
+
         parseGeneralIdentifier();
-        parseFunctionParams();
+        if (parseFunctionParams()) {
+            this.tree.node(NodeKind.CALL, line, mark);
+        }
     }
 
-    private void parseFunctionParams(boolean mandatory) throws NoSuchElementException {
+    // Retorna se havia uma lista de argumentos; os argumentos ficam empilhados na árvore
+    private boolean parseFunctionParams(boolean mandatory) throws NoSuchElementException {
         if (checkForTerminal("(") || mandatory) {
             eatTerminal("(");
             parseArgList();
-            eatTerminal(")", ";");
+            eatTerminal(")", SEMICOLON);
+            return true;
         }
+
+        return false;
     }
 
-    private void parseFunctionParams() throws NoSuchElementException {
-        parseFunctionParams(false);
+    private boolean parseFunctionParams() throws NoSuchElementException {
+        return parseFunctionParams(false);
     }
 
     private void parseArgList() throws NoSuchElementException {
-        if (checkBaseValue()) {
-            parseOptionalExtraArgs();
-        }
-    }
+        while (checkBaseValue()) {
+            if (checkForTerminal(",")) {
+                eatTerminal(",");
+                continue;
+            }
 
-    private void parseOptionalExtraArgs() throws NoSuchElementException {
-        if (checkForTerminal(",")) {
-            eatTerminal(",");
-            parseArgList();
-        } else if (!checkForTerminal(")")) {
-            this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Vírgula", "Parâmetro inesperado"));
-            checkBaseValue();// base value parsed
+            if (!checkForTerminal(")")) {
+                this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Vírgula", "Parâmetro inesperado"));
+                checkBaseValue();// base value parsed
+            }
+            return;
         }
     }
 
+    // Um comando por volta, até achar algo que não começa um comando
     private void parseStatements() throws NoSuchElementException {
-        // Check for expressions and assignments
-        boolean comma = true;
+        while (true) {
+            // Check for expressions and assignments
+            boolean comma = true;
 
-        if (checkForType(TokenTypes.IDENTIFIER)) {
-            parseGeneralIdentifier();
-            Token keep = this.currentToken;
+            if (checkForType(TokenKind.IDENTIFIER)) {
+                int start = this.tree.mark();
+                int line = this.currentToken.getLine();
+                NodeKind statement = NodeKind.EXPRESSION_STATEMENT;
 
-            // Parsing assigment
+                parseGeneralIdentifier();
+                Token keep = this.currentToken.getToken();
 
-            if (checkForTerminal("=")) {
-                eatTerminal("=");
+                // Parsing assigment
 
-                try {
-                    parseExpression();
-                    if (!checkForTerminal(";")) {
-                        throw new IndexOutOfBoundsException();
-                    }
-                } catch (IndexOutOfBoundsException | NoSuchElementException e) {
-
-                    this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Expressão", "Expressão Malformada"));
-                    this.panic(";");
-                }
-            } else if (checkForTerminal("{")) {
-                this.errors.add(new SyntaxError(keep.getLine(), keep.getValue(), "else", "Else malformado"));
-                eatTerminal("{");
-                parseStatements();
-                eatTerminal("}");
-                comma = false;
-            } else if (checkForTerminal("(")) {
+                if (checkForTerminal("=")) {
+                    statement = NodeKind.ASSIGNMENT;
+                    eatTerminal("=");
+                    int value = this.tree.mark();
+                    boolean malformed;
 
-                parseFunctionParams();
+                    try {
+                        parseExpression();
+                        malformed = !checkForTerminal(";");
+                    } catch (IndexOutOfBoundsException | MissingValueException e) {
+                        malformed = true;
+                    }
 
-                if (checkForTerminal("{")) {
+                    if (malformed) {
+                        this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Expressão", "Expressão Malformada"));
+                        this.tree.discard(value);
+                        this.panic(SEMICOLON);
+                    }
+                } else if (checkForTerminal("{")) {
+                    statement = NodeKind.ERROR;
+                    this.errors.add(new SyntaxError(keep.getLine(), keep.getValue(), "else", "Else malformado"));
                     eatTerminal("{");
-                    parseStatements();
+                    parseBlock();
                     eatTerminal("}");
+                    comma = false;
+                } else if (checkForTerminal("(")) {
 
-                    if (checkForTerminal("else")) {
-                        this.errors.add(new SyntaxError(keep.getLine(), keep.getValue(), "If", "IF malformado"));
+                    if (parseFunctionParams()) {
+                        this.tree.node(NodeKind.CALL, line, start);
+                    }
 
-                        eatTerminal("else");
+                    if (checkForTerminal("{")) {
+                        statement = NodeKind.ERROR;
                         eatTerminal("{");
-                        parseStatements();
+                        parseBlock();
                         eatTerminal("}");
-                    } else {
-                        this.errors.add(new SyntaxError(keep.getLine(), keep.getValue(), "If ou While", "Loop ou Condicional malformado"));
 
+                        if (checkForTerminal(Keyword.ELSE)) {
+                            this.errors.add(new SyntaxError(keep.getLine(), keep.getValue(), "If", "IF malformado"));
+
+                            eatTerminal(Keyword.ELSE);
+                            eatTerminal("{");
+                            parseBlock();
+                            eatTerminal("}");
+                        } else {
+                            this.errors.add(new SyntaxError(keep.getLine(), keep.getValue(), "If ou While", "Loop ou Condicional malformado"));
+
+                        }
                     }
+                } else if (checkForTerminal("++") || checkForTerminal("--")) {
+                    //parseExpression();
+                    this.tree.node(NodeKind.POSTFIX, TokenKind.ARITHMETICAL_OPERATOR, this.currentToken.getValue(), this.currentToken.getLine(), start);
+                    updateToken();
                 }
-            } else if (checkForTerminal("++") || checkForTerminal("--")) {
-                //parseExpression();
-                updateToken();
-            }
 
-            if (checkForType(TokenTypes.LOGICAL_OPERATOR) || checkForType(TokenTypes.RELATIONAL_OPERATOR) || checkForType(TokenTypes.ARITHMETICAL_OPERATOR)) {
-                updateToken();
-                try {
-                    parseExpression();
-                } catch (IndexOutOfBoundsException e) {
-                    this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Expressão", "Expressão Malformada"));
-                    this.panic(";");
+                if (checkForType(TokenKind.LOGICAL_OPERATOR) || checkForType(TokenKind.RELATIONAL_OPERATOR) || checkForType(TokenKind.ARITHMETICAL_OPERATOR)) {
+                    TokenKind kind = this.currentToken.getKind();
+                    String operator = this.currentToken.getValue();
+                    int operatorLine = this.currentToken.getLine();
+
+                    updateToken();
+                    try {
+                        parseExpression();
+                        this.tree.node(NodeKind.BINARY, kind, operator, operatorLine, start);
+                    } catch (IndexOutOfBoundsException e) {
+                        this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Expressão", "Expressão Malformada"));
+                        statement = NodeKind.ERROR;
+                        this.panic(SEMICOLON);
+                    }
                 }
-            }
-
-            if (checkForType(TokenTypes.IDENTIFIER)) {
 
-                int ref = this.tokenIndex;
-                Token current = this.currentToken;
-                panic(");.[");
+                if (checkForType(TokenKind.IDENTIFIER)) {
+
+                    int ref = this.currentToken.mark();
+                    int current = this.currentToken.current();
+
+                    try {
+                        panic(IDENTIFIER_END);
+
+                        if (checkForTerminal(")")) {
+                            eatTerminal(")");
+                            this.errors.add(new SyntaxError(currentToken.getLine(current), currentToken.getValue(current), "(", "Chamada de método malformada"));
+                        } else if (checkForTerminal(";")) {
+                            this.tree.discard(start);
+                            rollback(ref);
+                            return; // Mistyped return
+                        } else {
+                            this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Ponto ou =", "Atribuição Malformada"));
+                            panic(SEMICOLON);
+                        }
+                    } finally {
+                        this.currentToken.release();
+                    }
 
-                if (checkForTerminal(")")) {
-                    eatTerminal(")");
-                    this.errors.add(new SyntaxError(current.getLine(), current.getValue(), "(", "Chamada de método malformada"));
-                } else if (checkForTerminal(";")) {
-                    rollback(ref);
-                    return; // Mistyped return
-                } else {
-                    this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Ponto ou =", "Atribuição Malformada"));
-                    panic(";");
+                    statement = NodeKind.ERROR;
                 }
 
-            }
-
-            if (comma)
-                eatTerminal(";", ";" + TokenTypes.IDENTIFIER + "if" + "while" + "write" + "read");
+                this.tree.node(statement, line, start);
 
-            parseStatements();
+                if (comma)
+                    eatTerminal(";", STATEMENT_SYNC);
 
-        } else if (checkForTerminal("(")) {
-            this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Chamada de Método", "Identificador Ausente"));
+            } else if (checkForTerminal("(")) {
+                int start = this.tree.mark();
+                int line = this.currentToken.getLine();
+                this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Chamada de Método", "Identificador Ausente"));
 
-            parseFunctionParams();
-            eatTerminal(";");
-        } else {
-            switch (currentToken.getValue()) {
-                case "if":
-                    parseIf();
-                    parseStatements();
-                    break;
-                case "while":
-                    parseWhile();
-                    parseStatements();
-                    break;
-                case "write":
-                    parseWrite();
-                    eatTerminal(";");
-                    parseStatements();
-                    break;
-                case "read":
-                    parseRead();
-                    eatTerminal(";");
-                    parseStatements();
-                    break;
+                parseFunctionParams();
+                this.tree.node(NodeKind.ERROR, line, start);
+                eatTerminal(";");
+                return;
+            } else if (currentToken.getKeyword() != null) {
+                int start = this.tree.mark();
+                int line = this.currentToken.getLine();
+
+                switch (currentToken.getKeyword()) {
+                    case IF:
+                        parseIf();
+                        this.tree.node(NodeKind.IF, line, start);
+                        break;
+                    case WHILE:
+                        parseWhile();
+                        this.tree.node(NodeKind.WHILE, line, start);
+                        break;
+                    case WRITE:
+                        parseWrite();
+                        this.tree.node(NodeKind.WRITE, line, start);
+                        eatTerminal(";");
+                        break;
+                    case READ:
+                        parseRead();
+                        this.tree.node(NodeKind.READ, line, start);
+                        eatTerminal(";");
+                        break;
+                    default:
+                        return;
+                }
+            } else {
+                return;
             }
         }
     }
 
     private void rollback(int ref) {
-        this.currentToken = this.tokens.get(ref);
-        this.tokenIndex = ref;
+        this.currentToken.rollback(ref);
     }
 
 
     private void parseRead() throws NoSuchElementException {
-        eatTerminal("read");
+        eatTerminal(Keyword.READ);
         eatTerminal("(");
         parseGeneralIdentifierList();
         eatTerminal(")");
     }
 
     private void parseWrite() throws NoSuchElementException {
-        eatTerminal("write");
+        eatTerminal(Keyword.WRITE);
         parseFunctionParams(true);
     }
 
     private void parseWhile() throws NoSuchElementException {
-        eatTerminal("while");
+        eatTerminal(Keyword.WHILE);
         eatTerminal("(");
+        boolean malformed;
+
         try {
             parseExpression();
+            malformed = !checkForTerminal(")") && !checkForTerminal("{");
 
-            if (!checkForTerminal(")") && !checkForTerminal("{")) {
-                panic("){");
-                throw new Exception();
+            if (malformed) {
+                panic(CONDITION_END);
             }
-        } catch (Exception e) {
+        } catch (IndexOutOfBoundsException | MissingValueException e) {
+            malformed = true;
+        }
+
+        if (malformed) {
             this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Expressão", "Expressão Malformada"));
         }
 
 
         eatTerminal(")");
         eatTerminal("{");
-        parseStatements();
+        parseBlock();
         eatTerminal("}");
     }
 
     private void parseIf() throws NoSuchElementException {
-        eatTerminal("if");
+        eatTerminal(Keyword.IF);
 
         eatTerminal("(");
+        boolean malformed;
+
         try {
             parseExpression();
+            malformed = !checkForTerminal(")");
 
-            if (!checkForTerminal(")")) {
-                panic(")");
-                throw new Exception();
+            if (malformed) {
+                panic(CLOSE_PARENTHESIS);
             }
-        } catch (Exception e) {
-            this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Expressão", "Expressão Malformada"));
+        } catch (IndexOutOfBoundsException | MissingValueException e) {
+            malformed = true;
+        }
 
+        if (malformed) {
+            this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Expressão", "Expressão Malformada"));
         }
 
-        eatTerminal(")", "{");
+        eatTerminal(")", OPEN_BRACE);
         eatTerminal("{");
-        parseStatements();
+        parseBlock();
         eatTerminal("}");
         parseElse();
     }
@@ -606,39 +905,40 @@ public class SyntacticalAnalyzer {
 
     private void parseGeneralIdentifierList() throws NoSuchElementException {
         parseGeneralIdentifier();
-        parseOptionalExtraIds();
-    }
 
-    private void parseOptionalExtraIds() throws NoSuchElementException {
-        boolean missingComma = this.checkForType(TokenTypes.IDENTIFIER);
-
-        if (checkForTerminal(",") || missingComma) {
+        // Vírgula ausente entre dois identificadores é aceita
+        while (checkForTerminal(",") || checkForType(TokenKind.IDENTIFIER)) {
             eatTerminal(",");
-            parseGeneralIdentifierList();
-        } else if (checkForType(TokenTypes.IDENTIFIER)) { // First of General Identifier
             parseGeneralIdentifier();
         }
     }
 
     private void parseGeneralIdentifier() throws NoSuchElementException {
+        int mark = this.tree.mark();
         parseOptVector();
-        parseComposedIdentifier();
+
+        if (checkForTerminal(".")) {
+            int line = this.currentToken.getLine();
+
+            parseComposedIdentifier();
+            this.tree.node(NodeKind.FIELD, line, mark);
+        }
     }
 
     private void parseComposedIdentifier() throws NoSuchElementException {
         if (checkForTerminal(".")) {
             eatTerminal(".");
-            if (checkForType(TokenTypes.IDENTIFIER)) {
+            if (checkForType(TokenKind.IDENTIFIER)) {
                 parseGeneralIdentifier();
             } else {
                 this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), TokenTypes.IDENTIFIER, "Esperado identificador"));
-                panic(".([" + TokenTypes.IDENTIFIER);
+                panic(FIELD_SYNC);
 
                 if (checkForTerminal("(")) {
                     return;
                 } else if (checkForTerminal("[")) {
-                    parseVectorIndex();
-                } else if (checkForType(TokenTypes.IDENTIFIER)) {
+                    parseVectorIndex(this.tree.mark());
+                } else if (checkForType(TokenKind.IDENTIFIER)) {
                     parseGeneralIdentifier();
                 } else if (checkForTerminal(".")) {
                     eatTerminal(".");
@@ -649,70 +949,88 @@ public class SyntacticalAnalyzer {
     }
 
     private void parseOptVector() throws NoSuchElementException {
-        eatType(TokenTypes.IDENTIFIER, true, "Sintaxe de variável ou parâmetro incorreta", "=,;)" + TokenTypes.IDENTIFIER + TokenTypes.RESERVED_WORD);
+        int mark = this.tree.mark();
+
+        if (checkForType(TokenKind.IDENTIFIER)) {
+            leaf(NodeKind.NAME);
+        }
+        eatType(TokenKind.IDENTIFIER, true, "Sintaxe de variável ou parâmetro incorreta", VARIABLE_SYNC);
 
-        parseVectorIndex();
+        parseVectorIndex(mark);
     }
 
-    private void parseVectorIndex() throws NoSuchElementException {
-        if (checkForTerminal("[")) {
+    // Cada índice vira um nó INDEX com o que foi empilhado desde mark: v[i][j] = INDEX(INDEX(v, i), j)
+    private void parseVectorIndex(int mark) throws NoSuchElementException {
+        while (checkForTerminal("[")) {
+            int line = this.currentToken.getLine();
+
             eatTerminal("[");
+            int index = this.tree.mark();
             try {
                 parseExpression();
             } catch (IndexOutOfBoundsException ex) {
                 this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Indexação", "Indexação de vetor inválida"));
-                panic("];,");
+                this.tree.discard(index);
+                panic(INDEX_END);
             }
-            eatTerminal("]", ";,");
-
-            parseVectorIndex();
+            eatTerminal("]", LIST_END);
+            this.tree.node(NodeKind.INDEX, line, mark);
         }
-
     }
 
     private void parseElse() throws NoSuchElementException {
-        if (checkForTerminal("else")) {
-            eatTerminal("else");
+        if (checkForTerminal(Keyword.ELSE)) {
+            eatTerminal(Keyword.ELSE);
             eatTerminal("{");
-            parseStatements();
+            parseBlock();
             eatTerminal("}");
         }
     }
 
     private void parseParams() throws NoSuchElementException {
-        if (TokenTypes.nativeTypes.contains(this.currentToken.getValue()) || this.checkForType(TokenTypes.IDENTIFIER)) {
+        while (checkForNativeType() != null || this.checkForType(TokenKind.IDENTIFIER)) {
+            int mark = this.tree.mark();
+            int line = this.currentToken.getLine();
+
             parseType(false, "Formato incorreto de parâmetro", null);
+            int declaration = this.tree.mark();
             parseOptVector();
-            parseOptParams();
+            this.tree.node(NodeKind.DECLARATION, line, declaration);
+            this.tree.node(NodeKind.DECLARATION_LIST, line, mark);
 
-            parseParams();
-        }
-    }
-
-
-    private void parseOptParams() throws NoSuchElementException {
-        boolean missingComma = TokenTypes.nativeTypes.contains(this.currentToken.getValue()) || this.checkForType(TokenTypes.IDENTIFIER);
+            // Vírgula ausente antes do próximo parâmetro é aceita
+            boolean missingComma = checkForNativeType() != null || this.checkForType(TokenKind.IDENTIFIER);
 
-        if (checkForTerminal(",") || missingComma) {
-            eatTerminal(",");
-            parseParams();
+            if (checkForTerminal(",") || missingComma) {
+                eatTerminal(",");
+            }
         }
     }
 
-    private void parseType(boolean throwException, String errorMsg, String sync) throws NoSuchElementException {
-        if (TokenTypes.nativeTypes.contains(currentToken.getValue())) {
-            eatTerminal(currentToken.getValue(), throwException, errorMsg, sync);
+    private void parseType(boolean throwException, String errorMsg, TokenSet sync) throws NoSuchElementException {
+        Keyword nativeType = checkForNativeType();
+
+        if (nativeType != null) {
+            leaf(NodeKind.TYPE);
+            eatTerminal(nativeType, throwException, errorMsg, sync);
         } else {
-            this.eatType(TokenTypes.IDENTIFIER, throwException, errorMsg, sync);
+            if (checkForType(TokenKind.IDENTIFIER)) {
+                leaf(NodeKind.TYPE);
+            }
+            this.eatType(TokenKind.IDENTIFIER, throwException, errorMsg, sync);
         }
     }
 
     private boolean attemptToParseType() throws NoSuchElementException {
-        if (TokenTypes.nativeTypes.contains(this.currentToken.getValue())) {
-            eatTerminal(this.currentToken.getValue());
+        Keyword nativeType = checkForNativeType();
+
+        if (nativeType != null) {
+            leaf(NodeKind.TYPE);
+            eatTerminal(nativeType);
             return true;
-        } else if (this.checkForType(TokenTypes.IDENTIFIER)) {
-            eatType(TokenTypes.IDENTIFIER);
+        } else if (this.checkForType(TokenKind.IDENTIFIER)) {
+            leaf(NodeKind.TYPE);
+            eatType(TokenKind.IDENTIFIER);
             return true;
         }
 
@@ -722,53 +1040,61 @@ public class SyntacticalAnalyzer {
     private void parseVariables() throws NoSuchElementException {
         boolean missingKeyword = checkForTerminal("{");
 
-        if (checkForTerminal("variables") || missingKeyword) {
-            eatTerminal("variables");
+        if (checkForTerminal(Keyword.VARIABLES) || missingKeyword) {
+            int mark = this.tree.mark();
+            int line = this.currentToken.getLine();
+
+            eatTerminal(Keyword.VARIABLES);
             eatTerminal("{");
             parseVariablesBody();
-            eatTerminal("}", "method" + TokenTypes.IDENTIFIER);
+            eatTerminal("}", METHOD_SYNC);
+            this.tree.node(NodeKind.VARIABLES, line, mark);
         }
 
     }
 
     private void parseVariablesBody() throws NoSuchElementException {
-        if (this.attemptToParseType()) {
-            parseVarDeclList();
-            eatTerminal(";", ";");
-
-            parseVariablesBody();
-        } else if (!checkForTerminal("}")) {
-            this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), TokenTypes.IDENTIFIER, "Esperado declaração de variável"));
-            panic(TokenTypes.IDENTIFIER + NATIVE_TYPE_SYNC);
-            this.parseVariablesBody();
+        while (true) {
+            int mark = this.tree.mark();
+            int line = this.currentToken.getLine();
 
+            if (this.attemptToParseType()) {
+                parseVarDeclList();
+                eatTerminal(";", SEMICOLON);
+                this.tree.node(NodeKind.DECLARATION_LIST, line, mark);
+            } else if (!checkForTerminal("}")) {
+                this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), TokenTypes.IDENTIFIER, "Esperado declaração de variável"));
+                panic(TYPE_START);
+            } else {
+                return;
+            }
         }
     }
 
+    // Uma declaração com erro depois de uma vírgula é descartada até a próxima vírgula; a primeira não é protegida
     private void parseVarDeclList() throws NoSuchElementException {
         parseVarDecl();
-        parseOptionalDecls();
-    }
-
-    private void parseOptionalDecls() throws NoSuchElementException {
-        boolean missingComma = checkForType(TokenTypes.IDENTIFIER);
 
-        if (checkForTerminal(",") || missingComma) {
+        // Vírgula ausente entre duas declarações é aceita
+        while (checkForTerminal(",") || checkForType(TokenKind.IDENTIFIER)) {
             eatTerminal(",");
+            int mark = this.tree.mark();
             try {
-                parseVarDeclList();
-            } catch (Exception e) {
-                this.panic(",");
-                this.parseOptionalDecls();
+                parseVarDecl();
+            } catch (IndexOutOfBoundsException | MissingValueException e) {
+                this.tree.discard(mark);
+                this.panic(COMMA);
             }
-        } else if (checkForType(TokenTypes.IDENTIFIER)) {
-            parseVarDecl();
         }
     }
 
     private void parseVarDecl() throws NoSuchElementException {
+        int mark = this.tree.mark();
+        int line = this.currentToken.getLine();
+
         parseGeneralIdentifier();
         parseVarAttribution();
+        this.tree.node(NodeKind.DECLARATION, line, mark);
     }
 
     private void parseVarAttribution() throws NoSuchElementException {
@@ -782,66 +1108,83 @@ public class SyntacticalAnalyzer {
         if (checkForTerminal("[")) {
             parseVectorBody();
         } else {
+            int mark = this.tree.mark();
+
             try {
                 parseExpression();
             } catch (IndexOutOfBoundsException e) {
                 this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Expressão", "Expressão Malformada"));
-
+                this.tree.discard(mark);
             }
         }
     }
 
     private void parseVectorBody() throws NoSuchElementException {
+        int mark = this.tree.mark();
+        int line = this.currentToken.getLine();
+
         eatTerminal("[");
         parseVectorValueList();
         eatTerminal("]");
+        this.tree.node(NodeKind.VECTOR, line, mark);
     }
 
+    // Valores separados por vírgula. Depois do último, cada vírgula lida ainda aceita um valor sem vírgula, do
+    // último para o primeiro: [1, 2 3 4] tem quatro valores, e [1, 2 3 4 5] para no 5
     private void parseVectorValueList() throws NoSuchElementException {
-        parseVectorDecl();
-        parseOptionalValue();
-    }
+        int commas = 0;
 
-    private void parseOptionalValue() throws NoSuchElementException {
-        if (checkForTerminal(",")) {
+        parseVectorDecl();
+        while (checkForTerminal(",")) {
             eatTerminal(",");
-            parseVectorValueList();
+            parseVectorDecl();
+            commas++;
         }
-        List<String> t = Arrays.asList("-", "--", "(", "[", "++", "true", "false");//= List.of("-", "--", "(", "[", "++", "true", "false");
-        List<String> v = Arrays.asList(TokenTypes.NUMBER, TokenTypes.STRING, TokenTypes.IDENTIFIER);//List.of(TokenTypes.NUMBER, TokenTypes.STRING, TokenTypes.IDENTIFIER);
 
-        if (t.contains(currentToken.getValue()) || v.contains(currentToken.getType())) {
-            parseVectorDecl();
+        for (int i = 0; i <= commas; i++) {
+            if (VALUE_FIRST.stream().anyMatch(this::checkForTerminal) || VALUE_FIRST_KEYWORDS.stream().anyMatch(this::checkForTerminal) || VALUE_FIRST_TYPES.stream().anyMatch(this::checkForType)) {
+                parseVectorDecl();
+            }
         }
     }
 
 
     private void parseMain() throws NoSuchElementException {
-        eatTerminal("main");
+        if (reuseUnit(NodeKind.MAIN)) {
+            return;
+        }
+
+        int mark = this.tree.mark();
+        int line = this.currentToken.getLine();
+
+        beginUnit();
+        eatTerminal(Keyword.MAIN);
         eatTerminal("{");
         parseVariables();
-        parseStatements();
+        parseBlock();
         eatTerminal("}");
+        this.tree.node(NodeKind.MAIN, line, mark);
 
-        if (this.tokenIndex != this.tokens.size()) {
+        if (this.currentToken.hasNext()) {
             if (VERBOSE)
                 System.err.println("unexpected extra tokens");
             this.errors.add(new SyntaxError(currentToken.getLine(), currentToken.getValue(), "Fim do arquivo", "Esperado fim do arquivo"));
         }
+        endUnit(NodeKind.MAIN);
     }
 
-    private void panic(String sync) throws NoSuchElementException {
+    private void panic(TokenSet sync) throws NoSuchElementException {
         if (VERBOSE)
             System.err.println("---- Entering panic mode ---- (line " + this.currentToken.getLine() + ")");
         //System.out.println(Arrays.toString(Thread.currentThread().getStackTrace()));
-        while (!sync.contains(this.currentToken.getValue()) && !sync.contains(this.currentToken.getType())) {
+        while (!this.currentToken.isIn(sync)) {
             if (VERBOSE)
-                System.err.println("-> Skipping token " + this.currentToken);
+                System.err.println("-> Skipping token " + this.currentToken.getToken());
             updateToken();
         }
 
         if (VERBOSE)
-            System.err.println("-> Panic finished w/ token " + this.currentToken);
+            System.err.println("-> Panic finished w/ token " + this.currentToken.getToken());
 
     }
 
@@ -0,0 +1,33 @@
+package generator;
+
+// Fase em que um erro injetado pelo gerador deve ser detectado
+public enum ErrorKind {
+    LEXICAL("lexico"),
+    SYNTAX("sintatico"),
+    SEMANTIC("semantico");
+
+    private final String name;
+
+    ErrorKind(String name) {
+        this.name = name;
+    }
+
+    public static ErrorKind fromName(String name) {
+        for (ErrorKind kind : values()) {
+            if (kind.name.equals(name)) {
+                return kind;
+            }
+        }
+
+        throw new IllegalArgumentException("Tipo de erro desconhecido: " + name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,181 @@
+package generator;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Tamanho e forma do programa gerado. Na linha de comando, cada opção é passada como --nome=valor:
+//
+//   --lines=1000          número aproximado de linhas do programa
+//   --hierarchy=3         classes em cada cadeia de herança (a primeira não herda de ninguém)
+//   --methods=2           métodos por classe
+//   --statements=20       comandos no corpo de cada método, sem contar os aninhados
+//   --nesting=2           profundidade máxima de if/while aninhados
+//   --dimensions=2        dimensões dos vetores declarados nas classes
+//   --error-rate=0.01     probabilidade de cada comando ser trocado por um erro
+//   --errors=lexico,sintatico,semantico   fases dos erros injetados
+//   --seed=42             semente do gerador de números aleatórios
+//   --output=arquivo.txt  arquivo de saída (os erros injetados vão para arquivo.txt.erros)
+public class GeneratorOptions {
+    private int lines = 1000;
+    private int hierarchyDepth = 3;
+    private int methodsPerClass = 2;
+    private int statementsPerMethod = 20;
+    private int nestingDepth = 2;
+    private int dimensions = 2;
+    private double errorRate = 0;
+    private Set<ErrorKind> errorKinds = EnumSet.allOf(ErrorKind.class);
+    private long seed = 42;
+    private String output;
+
+    public static GeneratorOptions parse(String[] args) {
+        GeneratorOptions options = new GeneratorOptions();
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Opção inválida: " + arg);
+            }
+
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+
+            switch (name) {
+                case "lines":
+                    options.setLines(Integer.parseInt(value));
+                    break;
+                case "hierarchy":
+                    options.setHierarchyDepth(Integer.parseInt(value));
+                    break;
+                case "methods":
+                    options.setMethodsPerClass(Integer.parseInt(value));
+                    break;
+                case "statements":
+                    options.setStatementsPerMethod(Integer.parseInt(value));
+                    break;
+                case "nesting":
+                    options.setNestingDepth(Integer.parseInt(value));
+                    break;
+                case "dimensions":
+                    options.setDimensions(Integer.parseInt(value));
+                    break;
+                case "error-rate":
+                    options.setErrorRate(Double.parseDouble(value));
+                    break;
+                case "errors":
+                    Set<ErrorKind> kinds = EnumSet.noneOf(ErrorKind.class);
+                    for (String kind : value.split(",")) {
+                        kinds.add(ErrorKind.fromName(kind.trim()));
+                    }
+                    options.setErrorKinds(kinds);
+                    break;
+                case "seed":
+                    options.setSeed(Long.parseLong(value));
+                    break;
+                case "output":
+                    options.setOutput(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opção desconhecida: " + name);
+            }
+        }
+
+        return options;
+    }
+
+    private static int atLeast(int minimum, int value, String name) {
+        if (value < minimum) {
+            throw new IllegalArgumentException(String.format("%s deve ser pelo menos %d (recebido: %d)", name, minimum, value));
+        }
+
+        return value;
+    }
+
+    public int getLines() {
+        return lines;
+    }
+
+    public void setLines(int lines) {
+        this.lines = atLeast(0, lines, "lines");
+    }
+
+    public int getHierarchyDepth() {
+        return hierarchyDepth;
+    }
+
+    public void setHierarchyDepth(int hierarchyDepth) {
+        this.hierarchyDepth = atLeast(1, hierarchyDepth, "hierarchy");
+    }
+
+    public int getMethodsPerClass() {
+        return methodsPerClass;
+    }
+
+    public void setMethodsPerClass(int methodsPerClass) {
+        this.methodsPerClass = atLeast(1, methodsPerClass, "methods");
+    }
+
+    public int getStatementsPerMethod() {
+        return statementsPerMethod;
+    }
+
+    public void setStatementsPerMethod(int statementsPerMethod) {
+        this.statementsPerMethod = atLeast(1, statementsPerMethod, "statements");
+    }
+
+    public int getNestingDepth() {
+        return nestingDepth;
+    }
+
+    public void setNestingDepth(int nestingDepth) {
+        this.nestingDepth = atLeast(0, nestingDepth, "nesting");
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(int dimensions) {
+        this.dimensions = atLeast(1, dimensions, "dimensions");
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("error-rate deve estar entre 0 e 1 (recebido: " + errorRate + ")");
+        }
+
+        this.errorRate = errorRate;
+    }
+
+    public Set<ErrorKind> getErrorKinds() {
+        return errorKinds;
+    }
+
+    public void setErrorKinds(Set<ErrorKind> errorKinds) {
+        if (errorKinds.isEmpty()) {
+            throw new IllegalArgumentException("errors deve ter pelo menos uma fase");
+        }
+
+        this.errorKinds = EnumSet.copyOf(errorKinds);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public void setOutput(String output) {
+        this.output = output;
+    }
+}
@@ -0,0 +1,31 @@
+package generator;
+
+// Erro colocado de propósito no programa gerado: a fase que deve detectá-lo, a linha e o comando escrito
+public class InjectedError {
+    private final ErrorKind kind;
+    private final int line;
+    private final String statement;
+
+    public InjectedError(ErrorKind kind, int line, String statement) {
+        this.kind = kind;
+        this.line = line;
+        this.statement = statement;
+    }
+
+    public ErrorKind getKind() {
+        return kind;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%2d %s %s", this.line, this.kind, this.statement);
+    }
+}
@@ -0,0 +1,251 @@
+package generator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Gera programas válidos da linguagem com o tamanho e a forma pedidos em GeneratorOptions: um bloco const,
+// cadeias de classes ligadas por extends, cada uma com seu bloco variables (inclusive um vetor de várias dimensões)
+// e métodos com parâmetros cujos corpos misturam atribuições, leituras, escritas e if/while aninhados, e o main.
+// Quando a taxa de erros é maior que zero, alguns comandos são trocados por um comando com erro léxico, sintático
+// ou semântico, e a linha de cada um é devolvida para que os testes confiram a recuperação de erros.
+//
+// Uso: java generator.ProgramGenerator [--opção=valor ...]
+public class ProgramGenerator {
+    // Linhas escritas pelo main, descontadas do tamanho pedido ao decidir se cabe mais uma classe
+    private static final int MAIN_LINES = 10;
+    private static final int MAX_NESTED_STATEMENTS = 3;
+
+    private final GeneratorOptions options;
+    private final List<InjectedError> errors = new ArrayList<>();
+    private Random random;
+    private Writer writer;
+    private int line;
+
+    public ProgramGenerator(GeneratorOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws IOException {
+        GeneratorOptions options = GeneratorOptions.parse(args);
+        ProgramGenerator generator = new ProgramGenerator(options);
+
+        if (options.getOutput() == null) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            List<InjectedError> errors = generator.generate(writer);
+            writer.flush();
+            errors.forEach(System.err::println);
+            return;
+        }
+
+        Path output = Paths.get(options.getOutput());
+        List<InjectedError> errors;
+
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            errors = generator.generate(writer);
+        }
+
+        try (Writer writer = Files.newBufferedWriter(Paths.get(options.getOutput() + ".erros"), StandardCharsets.UTF_8)) {
+            for (InjectedError error : errors) {
+                writer.write(error + "\n");
+            }
+        }
+    }
+
+    // Escreve o programa e devolve os erros injetados, na ordem das linhas. A mesma semente gera o mesmo programa.
+    public List<InjectedError> generate(Writer writer) throws IOException {
+        this.writer = writer;
+        this.random = new Random(this.options.getSeed());
+        this.errors.clear();
+        this.line = 1;
+
+        this.writeConst();
+
+        int index = 0;
+        while (this.line + MAIN_LINES < this.options.getLines()) {
+            this.writeClass(index / this.options.getHierarchyDepth(), index % this.options.getHierarchyDepth());
+            index++;
+        }
+
+        this.writeMain(index);
+        return new ArrayList<>(this.errors);
+    }
+
+    // Número de linhas já escritas
+    public int getLineCount() {
+        return this.line - 1;
+    }
+
+    private void writeConst() throws IOException {
+        this.println(0, "const {");
+        this.println(1, "int tamanho = 10;");
+        this.println(1, "float taxa = 1.5;");
+        this.println(0, "}");
+        this.println();
+    }
+
+    private static String className(int chain, int level) {
+        return "classe" + chain + "_" + level;
+    }
+
+    // Classe no nível level da cadeia de herança chain; a partir do nível 1, herda da classe do nível anterior
+    private void writeClass(int chain, int level) throws IOException {
+        String header = "class " + className(chain, level);
+        if (level > 0) {
+            header += " extends " + className(chain, level - 1);
+        }
+
+        this.println(0, header + " {");
+        this.println(1, "variables {");
+        this.println(2, "int a" + level + ", b" + level + ";");
+        this.println(2, "float f" + level + ";");
+        this.println(2, "int v" + level + this.dimensions("tamanho") + ";");
+        this.println(1, "}");
+
+        for (int method = 0; method < this.options.getMethodsPerClass(); method++) {
+            this.println();
+            this.println(1, "method int calcula" + level + "_" + method + "(int x, float y) {");
+            this.writeStatements(level, this.options.getStatementsPerMethod(), 0, 2);
+            this.println(2, "return a" + level + ";");
+            this.println(1, "}");
+        }
+
+        this.println(0, "}");
+        this.println();
+    }
+
+    private void writeMain(int classes) throws IOException {
+        this.println(0, "main {");
+        this.println(1, "variables {");
+        this.println(2, "int i, j;");
+        this.println(2, "string nome;");
+        if (classes > 0) {
+            this.println(2, className((classes - 1) / this.options.getHierarchyDepth(), (classes - 1) % this.options.getHierarchyDepth()) + " objeto;");
+        }
+        this.println(1, "}");
+        this.println(1, "read(nome, i);");
+        this.println(1, "j = i * tamanho;");
+        this.println(1, "write(\"resultado\", j);");
+        this.println(0, "}");
+    }
+
+    // count comandos no nível de aninhamento depth; cada if/while conta como um comando
+    private void writeStatements(int level, int count, int depth, int indent) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (depth < this.options.getNestingDepth() && this.random.nextInt(4) == 0) {
+                this.writeCompound(level, depth, indent);
+            } else if (this.random.nextDouble() < this.options.getErrorRate()) {
+                this.writeError(level, indent);
+            } else {
+                this.println(indent, this.statement(level));
+            }
+        }
+    }
+
+    private void writeCompound(int level, int depth, int indent) throws IOException {
+        String a = this.field("a", level);
+        String b = this.field("b", level);
+
+        if (this.random.nextBoolean()) {
+            this.println(indent, "if (" + a + " > " + b + ") {");
+            this.writeStatements(level, 1 + this.random.nextInt(MAX_NESTED_STATEMENTS), depth + 1, indent + 1);
+            this.println(indent, "} else {");
+            this.writeStatements(level, 1 + this.random.nextInt(MAX_NESTED_STATEMENTS), depth + 1, indent + 1);
+            this.println(indent, "}");
+        } else {
+            this.println(indent, "while (" + a + " < tamanho) {");
+            this.writeStatements(level, 1 + this.random.nextInt(MAX_NESTED_STATEMENTS), depth + 1, indent + 1);
+            this.println(indent, "}");
+        }
+    }
+
+    // Comando simples sobre os atributos da classe e os parâmetros x (int) e y (float)
+    private String statement(int level) {
+        String a = this.field("a", level);
+        String b = this.field("b", level);
+        String v = this.field("v", level);
+
+        switch (this.random.nextInt(8)) {
+            case 0:
+                return a + " = x + tamanho * 2;";
+            case 1:
+                return b + " = (" + a + " + 1) * (x + 3) / 2;";
+            case 2:
+                String f = this.field("f", level);
+                return f + " = " + f + " * y + taxa;";
+            case 3:
+                return v + this.dimensions(a) + " = " + b + " + x;";
+            case 4:
+                return a + " = " + v + this.dimensions("1") + " + " + b + ";";
+            case 5:
+                return a + "++;";
+            case 6:
+                return "read(" + b + ");";
+            default:
+                return "write(" + a + ", " + b + ");";
+        }
+    }
+
+    // Troca um comando por outro com erro na fase sorteada entre as pedidas e registra a linha
+    private void writeError(int level, int indent) throws IOException {
+        ErrorKind[] kinds = this.options.getErrorKinds().toArray(new ErrorKind[0]);
+        ErrorKind kind = kinds[this.random.nextInt(kinds.length)];
+        String a = this.field("a", level);
+        String statement;
+
+        switch (kind) {
+            case LEXICAL:
+                // Símbolo fora do alfabeto depois de um comando completo: os tokens restantes continuam válidos
+                statement = a + " = x + 1; #";
+                break;
+            case SYNTAX:
+                // Expressão incompleta: o sintático se recupera no ";" da mesma linha
+                statement = a + " = x + ;";
+                break;
+            default:
+                // Atribuição a uma constante
+                statement = "tamanho = " + a + ";";
+        }
+
+        this.errors.add(new InjectedError(kind, this.line, statement));
+        this.println(indent, statement);
+    }
+
+    // Atributo declarado na própria classe ou em uma das classes acima dela na cadeia de herança
+    private String field(String name, int level) {
+        return name + this.random.nextInt(level + 1);
+    }
+
+    // Um índice por dimensão, todos iguais a index
+    private String dimensions(String index) {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < this.options.getDimensions(); i++) {
+            builder.append('[').append(index).append(']');
+        }
+
+        return builder.toString();
+    }
+
+    private void println() throws IOException {
+        this.writer.write('\n');
+        this.line++;
+    }
+
+    private void println(int indent, String text) throws IOException {
+        for (int i = 0; i < indent; i++) {
+            this.writer.write('\t');
+        }
+
+        this.writer.write(text);
+        this.println();
+    }
+}
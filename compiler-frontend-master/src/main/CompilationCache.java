@@ -0,0 +1,334 @@
+package main;
+
+import model.error.LexicalError;
+import model.error.SemanticError;
+import model.error.SyntaxError;
+import model.token.TokenKind;
+import model.token.TokenStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Cache em disco do resultado da análise de cada arquivo: os tokens e os erros de cada fase alcançada, em um arquivo
+// binário por conteúdo. A chave é o SHA-256 da versão do compilador e dos bytes do arquivo, então um arquivo que não
+// mudou, mesmo com outro nome, não passa de novo pelas fases. Falhas de leitura (entrada truncada ou de outro formato)
+// contam como ausência da entrada. As entradas não são removidas: apagar o diretório limpa o cache.
+//
+// A versão do compilador inclui o SHA-256 das classes dele (o jar, ou os .class do diretório de onde Compiler foi
+// carregado), então qualquer mudança no léxico, no sintático ou no semântico deixa de usar as entradas gravadas antes,
+// sem depender de alguém lembrar de mudar FORMAT_VERSION. Quando as classes não podem ser lidas, a versão recebe um
+// identificador novo a cada execução e só os arquivos repetidos na mesma execução são reaproveitados.
+//
+// Formato: MAGIC, FORMAT_VERSION, os tokens (tipo, linha e lexema) e as listas de erros léxicos, sintáticos e
+// semânticos; os tamanhos das listas sintática e semântica são gravados com + 1, e 0 indica uma fase não alcançada.
+// Inteiros são gravados em 7 bits por byte e as linhas com + 1, por causa da linha -1 do fim do arquivo.
+public class CompilationCache {
+    private static final int MAGIC = 0x43464331; // "CFC1"
+    // Mudar quando o formato ou a saída de alguma fase mudar, para que as entradas antigas deixem de ser usadas
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path directory;
+    private final byte[] version;
+
+    public CompilationCache(Path directory) {
+        Package compilerPackage = Compiler.class.getPackage();
+        String implementation = compilerPackage == null ? null : compilerPackage.getImplementationVersion();
+
+        this.directory = directory;
+        this.version = (FORMAT_VERSION + "/" + implementation + "/" + build()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // SHA-256 das classes do compilador, ou um identificador novo quando elas não podem ser lidas
+    private static String build() {
+        try {
+            CodeSource source = Compiler.class.getProtectionDomain().getCodeSource();
+            URL location = source == null ? null : source.getLocation();
+
+            if (location != null) {
+                return hex(digest(Paths.get(location.toURI())));
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            // Sem as classes não há como saber se o compilador mudou
+        }
+
+        return UUID.randomUUID().toString();
+    }
+
+    // O jar inteiro, ou os caminhos e o conteúdo dos .class do diretório, em ordem
+    private static byte[] digest(Path location) throws IOException {
+        MessageDigest digest = sha256();
+
+        if (!Files.isDirectory(location)) {
+            digest.update(Files.readAllBytes(location));
+            return digest.digest();
+        }
+
+        List<Path> classes;
+        try (Stream<Path> files = Files.walk(location)) {
+            classes = files.filter(file -> file.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+        }
+
+        byte[] buffer = new byte[8192];
+
+        for (Path file : classes) {
+            digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+
+            try (InputStream input = Files.newInputStream(file)) {
+                for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+
+        return digest.digest();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Chave do conteúdo do arquivo para esta versão do compilador
+    public String key(byte[] content) {
+        MessageDigest digest = sha256();
+        digest.update(this.version);
+        digest.update((byte) 0);
+        return hex(digest.digest(content));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return hex.toString();
+    }
+
+    // Resultado guardado para a chave, ou null
+    public Entry load(String key) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.directory.resolve(key))))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            TokenStream tokens = readTokens(input);
+            List<LexicalError> lexicalErrors = new ArrayList<>();
+            List<SyntaxError> syntaxErrors = null;
+            List<SemanticError> semanticErrors = null;
+
+            for (int i = readInt(input); i > 0; i--) {
+                lexicalErrors.add(new LexicalError(readLine(input), readString(input)));
+            }
+
+            int count = readInt(input) - 1;
+            if (count >= 0) {
+                syntaxErrors = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    syntaxErrors.add(new SyntaxError(readLine(input), readString(input), readString(input), readString(input)));
+                }
+            }
+
+            count = readInt(input) - 1;
+            if (count >= 0) {
+                semanticErrors = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    semanticErrors.add(new SemanticError(readLine(input), readString(input), readString(input), readString(input)));
+                }
+            }
+
+            return new Entry(tokens, lexicalErrors, syntaxErrors, semanticErrors);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Guarda o resultado de uma análise que terminou sem falha. A entrada é gravada em um arquivo temporário e
+    // renomeada, para que uma leitura concorrente nunca veja uma entrada pela metade
+    public void store(String key, CompilationResult result) throws IOException {
+        Files.createDirectories(this.directory);
+        Path temporary = Files.createTempFile(this.directory, key, ".tmp");
+
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                writeTokens(output, result.getTokens());
+
+                writeInt(output, result.getLexicalErrors().size());
+                for (LexicalError error : result.getLexicalErrors()) {
+                    writeLine(output, error.getLine());
+                    writeString(output, error.getToken());
+                }
+
+                writeInt(output, result.getSyntaxErrors() == null ? 0 : result.getSyntaxErrors().size() + 1);
+                if (result.getSyntaxErrors() != null) {
+                    for (SyntaxError error : result.getSyntaxErrors()) {
+                        writeLine(output, error.getLine());
+                        writeString(output, error.getToken());
+                        writeString(output, error.getExpected());
+                        writeString(output, error.getType());
+                    }
+                }
+
+                writeInt(output, result.getSemanticErrors() == null ? 0 : result.getSemanticErrors().size() + 1);
+                if (result.getSemanticErrors() != null) {
+                    for (SemanticError error : result.getSemanticErrors()) {
+                        writeLine(output, error.getLine());
+                        writeString(output, error.getToken());
+                        writeString(output, error.getExpected());
+                        writeString(output, error.getType());
+                    }
+                }
+            }
+
+            try {
+                Files.move(temporary, this.directory.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, this.directory.resolve(key), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeTokens(DataOutputStream output, TokenStream tokens) throws IOException {
+        writeInt(output, tokens.size());
+
+        for (int i = 0; i < tokens.size(); i++) {
+            output.writeByte(tokens.getKind(i).ordinal());
+            writeLine(output, tokens.getLine(i));
+            writeString(output, tokens.getValue(i));
+        }
+    }
+
+    private static TokenStream readTokens(DataInputStream input) throws IOException {
+        int count = readInt(input);
+        // O tamanho vem do arquivo: uma entrada corrompida não deve reservar memória demais
+        TokenStream tokens = new TokenStream(null, Math.max(Math.min(count, 1 << 16), 1));
+
+        for (int i = 0; i < count; i++) {
+            TokenKind kind = TokenKind.valueOf(input.readUnsignedByte());
+            int line = readLine(input);
+            tokens.add(kind, readString(input), line);
+        }
+
+        return tokens;
+    }
+
+    private static void writeLine(DataOutputStream output, int line) throws IOException {
+        writeInt(output, line + 1);
+    }
+
+    private static int readLine(DataInputStream input) throws IOException {
+        return readInt(input) - 1;
+    }
+
+    // null é gravado com tamanho 0 e a String vazia com 1
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            writeInt(output, 0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(output, bytes.length + 1);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = readInt(input) - 1;
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Inteiro não negativo, 7 bits por byte, do menos significativo ao mais
+    private static void writeInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int readInt(DataInputStream input) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new EOFException("Inteiro mal formado na entrada do cache");
+    }
+
+    // Tokens e erros de uma análise guardada; as listas das fases não alcançadas são null
+    public static class Entry {
+        private final TokenStream tokens;
+        private final List<LexicalError> lexicalErrors;
+        private final List<SyntaxError> syntaxErrors;
+        private final List<SemanticError> semanticErrors;
+
+        Entry(TokenStream tokens, List<LexicalError> lexicalErrors, List<SyntaxError> syntaxErrors, List<SemanticError> semanticErrors) {
+            this.tokens = tokens;
+            this.lexicalErrors = lexicalErrors;
+            this.syntaxErrors = syntaxErrors;
+            this.semanticErrors = semanticErrors;
+        }
+
+        public TokenStream getTokens() {
+            return tokens;
+        }
+
+        public List<LexicalError> getLexicalErrors() {
+            return lexicalErrors;
+        }
+
+        public List<SyntaxError> getSyntaxErrors() {
+            return syntaxErrors;
+        }
+
+        public List<SemanticError> getSemanticErrors() {
+            return semanticErrors;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package main;
+
+import model.error.LexicalError;
+import model.error.SemanticError;
+import model.error.SyntaxError;
+import model.token.TokenStream;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// Resultado da compilação de um arquivo: tokens e erros de cada fase alcançada, mensagens a exibir,
+// tempos de cada fase e a falha, se houve. As listas de erros das fases não alcançadas são null.
+public class CompilationResult {
+    private final Path file;
+    private final StringBuilder output;
+    private final StringBuilder errorOutput;
+    private TokenStream tokens;
+    private List<LexicalError> lexicalErrors;
+    private List<SyntaxError> syntaxErrors;
+    private List<SemanticError> semanticErrors;
+    private long lexicalTime;
+    private long syntacticalTime;
+    private long semanticTime;
+    private boolean hasErrors;
+    // Tokens e erros lidos do cache, sem passar pelas fases
+    private boolean cached;
+    private Throwable failure;
+
+    public CompilationResult(Path file) {
+        this.file = file;
+        this.output = new StringBuilder();
+        this.errorOutput = new StringBuilder();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public TokenStream getTokens() {
+        return tokens;
+    }
+
+    public List<LexicalError> getLexicalErrors() {
+        return lexicalErrors;
+    }
+
+    public void setLexicalResult(TokenStream tokens, List<LexicalError> lexicalErrors) {
+        this.tokens = tokens;
+        this.lexicalErrors = lexicalErrors;
+    }
+
+    public List<SyntaxError> getSyntaxErrors() {
+        return syntaxErrors;
+    }
+
+    public void setSyntaxErrors(List<SyntaxError> syntaxErrors) {
+        this.syntaxErrors = syntaxErrors;
+    }
+
+    public List<SemanticError> getSemanticErrors() {
+        return semanticErrors;
+    }
+
+    public void setSemanticErrors(List<SemanticError> semanticErrors) {
+        this.semanticErrors = semanticErrors;
+    }
+
+    public void println(String message) {
+        this.output.append(message).append(System.lineSeparator());
+    }
+
+    // Erros interrompem a compilação do arquivo, mas não a dos demais
+    public void printError(String message) {
+        this.errorOutput.append(message).append(System.lineSeparator());
+        this.hasErrors = true;
+    }
+
+    public String getOutput() {
+        return output.toString();
+    }
+
+    public String getErrorOutput() {
+        return errorOutput.toString();
+    }
+
+    public boolean hasErrors() {
+        return hasErrors;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public void setFailure(Throwable failure) {
+        this.failure = failure;
+        this.printError("-- Falha ao compilar " + this.file + ": " + failure);
+    }
+
+    public long getLexicalTime() {
+        return lexicalTime;
+    }
+
+    public void setLexicalTime(long lexicalTime) {
+        this.lexicalTime = lexicalTime;
+    }
+
+    public long getSyntacticalTime() {
+        return syntacticalTime;
+    }
+
+    public void setSyntacticalTime(long syntacticalTime) {
+        this.syntacticalTime = syntacticalTime;
+    }
+
+    public long getSemanticTime() {
+        return semanticTime;
+    }
+
+    public void setSemanticTime(long semanticTime) {
+        this.semanticTime = semanticTime;
+    }
+
+    // Tempo total em nanossegundos
+    public long getTotalTime() {
+        return this.lexicalTime + this.syntacticalTime + this.semanticTime;
+    }
+}
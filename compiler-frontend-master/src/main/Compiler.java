@@ -1,86 +1,257 @@
 package main;
 
 import analyzers.lexical.LexicalAnalyzer;
+import analyzers.lexical.ScanMode;
 import analyzers.semantic.SemanticAnalyzer;
 import analyzers.syntatical.SyntacticalAnalyzer;
-import model.error.LexicalError;
-import model.error.SemanticError;
-import model.error.SyntaxError;
-import model.token.Token;
+import model.ast.SyntaxTree;
+import model.error.Error;
+import model.token.TokenStream;
 
 import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 public class Compiler {
+    // Resultados guardados das execuções anteriores, junto com as saídas
+    public static final Path CACHE_DIRECTORY = Paths.get("output", "cache");
+
+    // Uso: java main.Compiler [número de threads]. Por padrão, uma thread por processador.
+    // Os arquivos que não mudaram desde a última execução com o mesmo build do compilador são lidos do cache em
+    // output/cache.
     public static void main(String[] args) throws Exception {
-        List<Path> inputs = Files.list(Paths.get("tests")).filter(x -> !x.getFileName().toString().startsWith("_")).collect(Collectors.toList());
-        for (Path file : inputs) {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        List<Path> inputs = Files.list(Paths.get("tests")).filter(x -> !x.getFileName().toString().startsWith("_")).sorted().collect(Collectors.toList());
 
-            Files.createDirectories(Paths.get("output", "lexico"));
-            Files.createDirectories(Paths.get("output", "sintatico"));
-            Files.createDirectories(Paths.get("output", "semantico"));
+        Files.createDirectories(Paths.get("output", "lexico"));
+        Files.createDirectories(Paths.get("output", "sintatico"));
+        Files.createDirectories(Paths.get("output", "semantico"));
 
-            Path lexerOutputFile = Paths.get("output", "lexico", file.getFileName().toString());
-            System.out.println(" -->> Processando arquivo " + file);
+        compileAll(inputs, workers, new CompilationCache(CACHE_DIRECTORY));
+    }
 
-            BufferedWriter lexerOutput = Files.newBufferedWriter(lexerOutputFile);
-            LexicalAnalyzer lexer = new LexicalAnalyzer(file);
+    // Compila cada arquivo em uma tarefa do pool; um arquivo com erros ou com falha não interrompe os demais.
+    // Os resultados são exibidos na ordem dos arquivos de entrada.
+    public static List<CompilationResult> compileAll(List<Path> inputs, int workers) {
+        return compileAll(inputs, workers, null);
+    }
 
-            for (Token token : lexer.getTokens()) {
-                lexerOutput.write(token + "\n");
-            }
+    // Com cache, os arquivos já analisados com o mesmo conteúdo não passam pelas fases
+    public static List<CompilationResult> compileAll(List<Path> inputs, int workers, CompilationCache cache) {
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        List<ForkJoinTask<CompilationResult>> tasks = new ArrayList<>();
+        List<CompilationResult> results = new ArrayList<>();
+        long start = System.nanoTime();
 
-            lexerOutput.write("\n\n");
+        try {
+            for (Path file : inputs) {
+                tasks.add(pool.submit(() -> compile(file, cache)));
+            }
 
-            for (LexicalError lexicalError : lexer.getLexicalErrors()) {
-                lexerOutput.write(lexicalError + "\n");
+            for (ForkJoinTask<CompilationResult> task : tasks) {
+                CompilationResult result = task.join();
+                results.add(result);
+                report(result);
             }
+        } finally {
+            pool.shutdown();
+        }
 
-            lexerOutput.close();
+        report(results, workers, System.nanoTime() - start);
+        return results;
+    }
 
-            if (lexer.getLexicalErrors().size() > 0) {
-                System.err.println("-- Erros Léxicos. Processo de compilação interrompido.");
-                return;
-            }
-            System.out.println("Léxico OK");
+    // Analisa o arquivo e grava as saídas das fases alcançadas em output/
+    public static CompilationResult compile(Path file) {
+        return compile(file, null);
+    }
 
+    public static CompilationResult compile(Path file, CompilationCache cache) {
+        CompilationResult result = analyze(file, cache);
 
-            Path parserOutputFile = Paths.get("output", "sintatico", file.getFileName().toString());
-            BufferedWriter parserOutput = Files.newBufferedWriter(parserOutputFile);
+        try {
+            writeOutputs(result);
+        } catch (IOException e) {
+            result.setFailure(e);
+        }
 
-            SyntacticalAnalyzer parser = new SyntacticalAnalyzer(lexer.getTokens());
-            parser.parseProgram();
+        return result;
+    }
 
-            for (SyntaxError error : parser.getErrors()) {
-                parserOutput.write(error + "\n");
-            }
-            parserOutput.close();
+    // Analisa o arquivo sem gravar nada em disco
+    public static CompilationResult analyze(Path file) {
+        return analyze(file, (CompilationCache) null);
+    }
+
+    public static CompilationResult analyze(Path file, CompilationCache cache) {
+        CompilationResult result = new CompilationResult(file);
 
-            if (parser.getErrors().size() > 0) {
-                System.err.println("-- Erros Sintáticos. Processo de compilação interrompido.");
-                return;
+        try {
+            if (cache == null) {
+                analyze(file, result);
+            } else {
+                analyze(file, result, cache);
             }
+        } catch (IOException | RuntimeException | StackOverflowError e) {
+            result.setFailure(e);
+        }
 
-            System.out.println("Sintático OK ");
+        return result;
+    }
+
+    private static void analyze(Path file, CompilationResult result) throws IOException {
+        result.println(" -->> Processando arquivo " + file);
+
+        long start = System.nanoTime();
+        LexicalAnalyzer lexer = new LexicalAnalyzer(file, ScanMode.CHAR_STREAM);
+        TokenStream tokens = lexer.getTokenStream();
+        result.setLexicalResult(tokens, lexer.getLexicalErrors());
+        result.setLexicalTime(System.nanoTime() - start);
+
+        if (!lexicalPassed(result)) {
+            return;
+        }
+
+        start = System.nanoTime();
+        SyntacticalAnalyzer parser = new SyntacticalAnalyzer(tokens);
+        SyntaxTree tree = parser.parseProgram();
+        result.setSyntaxErrors(parser.getErrors());
+        result.setSyntacticalTime(System.nanoTime() - start);
 
-            Path semanticOutputFile = Paths.get("output", "semantico", file.getFileName().toString());
-            BufferedWriter semanticOutput = Files.newBufferedWriter(semanticOutputFile);
+        if (!syntaxPassed(result)) {
+            return;
+        }
 
-            SemanticAnalyzer semantic = new SemanticAnalyzer(lexer.getTokens());
+        start = System.nanoTime();
+        SemanticAnalyzer semantic = new SemanticAnalyzer(tree);
+        result.setSemanticErrors(semantic.getErrors());
+        result.setSemanticTime(System.nanoTime() - start);
 
-            for (SemanticError error : semantic.getErrors()) {
-                semanticOutput.write(error + "\n");
+        result.println("Semântico OK ");
+    }
+
+    // Reaproveita o resultado guardado para o conteúdo do arquivo, com as mesmas mensagens; senão analisa e guarda
+    private static void analyze(Path file, CompilationResult result, CompilationCache cache) throws IOException {
+        long start = System.nanoTime();
+        String key = cache.key(Files.readAllBytes(file));
+        CompilationCache.Entry entry = cache.load(key);
+
+        if (entry == null) {
+            analyze(file, result);
+
+            try {
+                cache.store(key, result);
+            } catch (IOException e) {
+                // O cache só evita trabalho: sem a entrada, o arquivo é analisado de novo na próxima execução
+                result.println("Cache não gravado: " + e);
             }
+            return;
+        }
+
+        result.setCached(true);
+        result.println(" -->> Processando arquivo " + file);
+        result.setLexicalResult(entry.getTokens(), entry.getLexicalErrors());
+        result.setLexicalTime(System.nanoTime() - start);
+
+        if (!lexicalPassed(result)) {
+            return;
+        }
 
-            semanticOutput.close();
+        result.setSyntaxErrors(entry.getSyntaxErrors());
 
-            System.out.println("Semântico OK ");
+        if (!syntaxPassed(result)) {
+            return;
+        }
+
+        result.setSemanticErrors(entry.getSemanticErrors());
+        result.println("Semântico OK ");
+    }
+
+    // Mensagem do fim da análise léxica; a compilação só segue sem erros léxicos
+    private static boolean lexicalPassed(CompilationResult result) {
+        if (result.getLexicalErrors().size() > 0) {
+            result.printError("-- Erros Léxicos. Processo de compilação interrompido.");
+            return false;
+        }
+
+        result.println("Léxico OK");
+        return true;
+    }
+
+    private static boolean syntaxPassed(CompilationResult result) {
+        if (result.getSyntaxErrors().size() > 0) {
+            result.printError("-- Erros Sintáticos. Processo de compilação interrompido.");
+            return false;
+        }
+
+        result.println("Sintático OK ");
+        return true;
+    }
+
+    private static void writeOutputs(CompilationResult result) throws IOException {
+        String fileName = result.getFile().getFileName().toString();
+
+        if (result.getLexicalErrors() != null) {
+            TokenStream tokens = result.getTokens();
+
+            try (BufferedWriter lexerOutput = Files.newBufferedWriter(Paths.get("output", "lexico", fileName))) {
+                for (int i = 0; i < tokens.size(); i++) {
+                    lexerOutput.write(tokens.getToken(i) + "\n");
+                }
+
+                lexerOutput.write("\n\n");
+                writeErrors(lexerOutput, result.getLexicalErrors());
+            }
+        }
+
+        if (result.getSyntaxErrors() != null) {
+            try (BufferedWriter parserOutput = Files.newBufferedWriter(Paths.get("output", "sintatico", fileName))) {
+                writeErrors(parserOutput, result.getSyntaxErrors());
+            }
+        }
 
+        if (result.getSemanticErrors() != null) {
+            try (BufferedWriter semanticOutput = Files.newBufferedWriter(Paths.get("output", "semantico", fileName))) {
+                writeErrors(semanticOutput, result.getSemanticErrors());
+            }
+        }
+    }
 
+    // Mesmo formato dos arquivos de output/: um erro por linha
+    public static void writeErrors(Writer output, List<? extends Error> errors) throws IOException {
+        for (Error error : errors) {
+            output.write(error + "\n");
         }
     }
+
+    private static void report(CompilationResult result) {
+        System.out.print(result.getOutput());
+        System.err.print(result.getErrorOutput());
+        System.out.println(String.format("   tempo: léxico %.2f ms, sintático %.2f ms, semântico %.2f ms, total %.2f ms%s",
+                millis(result.getLexicalTime()), millis(result.getSyntacticalTime()),
+                millis(result.getSemanticTime()), millis(result.getTotalTime()), result.isCached() ? " (cache)" : ""));
+    }
+
+    private static void report(List<CompilationResult> results, int workers, long elapsed) {
+        long failures = results.stream().filter(r -> r.getFailure() != null).count();
+        long withErrors = results.stream().filter(CompilationResult::hasErrors).count() - failures;
+        long busy = results.stream().mapToLong(CompilationResult::getTotalTime).sum();
+
+        System.out.println(String.format("== %d arquivo(s) com %d thread(s): %d OK, %d com erros, %d com falha",
+                results.size(), workers, results.size() - withErrors - failures, withErrors, failures));
+        System.out.println(String.format("== tempo total %.2f ms, soma dos tempos por arquivo %.2f ms",
+                millis(elapsed), millis(busy)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
 }
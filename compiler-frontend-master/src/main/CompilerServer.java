@@ -0,0 +1,139 @@
+package main;
+
+import model.token.LexemeAutomaton;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Servidor de compilação em 127.0.0.1, para evitar a inicialização da JVM e das tabelas do léxico a cada arquivo.
+// Cada linha recebida é o caminho de um arquivo; a resposta traz os erros de cada fase alcançada, no mesmo formato
+// dos arquivos de output/, e termina com a linha "## fim". Uma conexão pode enviar vários caminhos; um caminho
+// inválido ou um arquivo que não pode ser analisado recebe "## falha" com o erro, e a conexão continua aberta.
+//
+//   ## lexico
+//   <erros léxicos>
+//   ## sintatico
+//   <erros sintáticos>
+//   ## semantico
+//   <erros semânticos>
+//   ## fim
+public class CompilerServer {
+    public static final int DEFAULT_PORT = 7650;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+
+    public CompilerServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.executor = newExecutor();
+    }
+
+    // Uso: java main.CompilerServer [porta]
+    public static void main(String[] args) throws IOException {
+        CompilerServer server = new CompilerServer(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+        System.out.println("Servidor de compilação em " + server.getAddress());
+        server.serve();
+    }
+
+    // Uma thread virtual por conexão quando a JVM oferece (Java 21+); senão, um pool de threads sob demanda
+    private static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public String getAddress() {
+        return this.serverSocket.getInetAddress().getHostAddress() + ":" + this.serverSocket.getLocalPort();
+    }
+
+    public void serve() throws IOException {
+        // Constrói as tabelas do autômato antes da primeira requisição
+        LexemeAutomaton.getInstance();
+
+        try {
+            while (!this.serverSocket.isClosed()) {
+                Socket socket = this.serverSocket.accept();
+                this.executor.execute(() -> this.handle(socket));
+            }
+        } finally {
+            this.executor.shutdown();
+        }
+    }
+
+    public void close() throws IOException {
+        this.serverSocket.close();
+    }
+
+    private void handle(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader input = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             Writer output = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = input.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+
+                CompilationResult result;
+
+                try {
+                    result = Compiler.analyze(Paths.get(line.trim()));
+                } catch (RuntimeException e) {
+                    // Caminho inválido, como um com caractere nulo: responde com a falha e a conexão continua aberta
+                    respond(e, output);
+                    output.flush();
+                    continue;
+                }
+
+                respond(result, output);
+                output.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("-- Conexão encerrada: " + e.getMessage());
+        }
+    }
+
+    private static void respond(CompilationResult result, Writer output) throws IOException {
+        if (result.getLexicalErrors() != null) {
+            output.write("## lexico\n");
+            Compiler.writeErrors(output, result.getLexicalErrors());
+        }
+
+        if (result.getSyntaxErrors() != null) {
+            output.write("## sintatico\n");
+            Compiler.writeErrors(output, result.getSyntaxErrors());
+        }
+
+        if (result.getSemanticErrors() != null) {
+            output.write("## semantico\n");
+            Compiler.writeErrors(output, result.getSemanticErrors());
+        }
+
+        respond(result.getFailure(), output);
+    }
+
+    private static void respond(Throwable failure, Writer output) throws IOException {
+        if (failure != null) {
+            output.write("## falha\n" + failure + "\n");
+        }
+
+        output.write("## fim\n");
+    }
+}
@@ -0,0 +1,37 @@
+package model.ast;
+
+// Tipos de nó da árvore sintática. Entre parênteses, os filhos de cada nó, na ordem do código-fonte.
+public enum NodeKind {
+    PROGRAM,              // (CONST_BLOCK?, CLASS*, MAIN)
+    CONST_BLOCK,          // (DECLARATION_LIST*)
+    CLASS,                // nome; (SUPERCLASS?, VARIABLES?, METHOD*)
+    SUPERCLASS,           // nome da classe mãe
+    VARIABLES,            // (DECLARATION_LIST*)
+    DECLARATION_LIST,     // (TYPE, DECLARATION*)
+    DECLARATION,          // (variável declarada, valor inicial?)
+    TYPE,                 // tipo nativo ou nome de classe
+    METHOD,               // nome; linha do tipo de retorno; (TYPE, PARAMETERS, VARIABLES?, BLOCK, RETURN?)
+    PARAMETERS,           // (DECLARATION_LIST*), uma lista por parâmetro
+    RETURN,               // linha do ";"; (expressão)
+    MAIN,                 // (VARIABLES?, BLOCK)
+    BLOCK,                // (comando*)
+
+    ASSIGNMENT,           // (destino, expressão)
+    EXPRESSION_STATEMENT, // (expressão): chamada de método, incremento, ...
+    IF,                   // (condição, BLOCK, BLOCK do else?)
+    WHILE,                // (condição, BLOCK)
+    READ,                 // (destino*)
+    WRITE,                // (expressão*)
+    ERROR,                // trecho com erro sintático; filhos são o que foi reconhecido
+
+    BINARY,               // operador; (esquerda, direita)
+    PREFIX,               // operador; (operando)
+    POSTFIX,              // operador; (operando)
+    PARENTHESES,          // "()" ou "(" quando falta o ")"; (expressão)
+    INDEX,                // linha do "["; (vetor, índice)
+    FIELD,                // (objeto, membro), membro pode ser outro FIELD: a.b.c = FIELD(a, FIELD(b, c))
+    CALL,                 // (método, argumento*)
+    VECTOR,               // linha do "["; (elemento*)
+    NAME,                 // identificador
+    LITERAL               // número, cadeia de caracteres, true, false ou void
+}
@@ -0,0 +1,56 @@
+package model.ast;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Identificadores internados: cada nome distinto recebe um número, na ordem em que aparece, e os nós NAME da árvore
+// guardam o número do seu nome. A análise semântica consulta as tabelas de símbolos por esse número, sem calcular o
+// hash do nome a cada consulta. A análise sintática incremental reaproveita os números da árvore anterior, para que os
+// nós copiados dela mantenham os seus.
+//
+// Só a montagem da árvore e a passada de declarações acrescentam nomes; find e getName podem ser chamados de várias
+// threads quando não há mais nomes sendo acrescentados, como na verificação paralela dos corpos.
+public class Symbols {
+    public static final int NO_SYMBOL = -1;
+
+    private final Map<String, Integer> symbols;
+    private String[] names;
+    private int size;
+
+    public Symbols() {
+        this.symbols = new HashMap<>();
+        this.names = new String[64];
+    }
+
+    // Número do nome, acrescentando-o se ainda não foi visto
+    public int intern(String name) {
+        Integer symbol = this.symbols.get(name);
+
+        if (symbol != null) {
+            return symbol;
+        }
+
+        if (this.size == this.names.length) {
+            this.names = Arrays.copyOf(this.names, this.size * 2);
+        }
+
+        this.names[this.size] = name;
+        this.symbols.put(name, this.size);
+        return this.size++;
+    }
+
+    // Número do nome, ou NO_SYMBOL se ele nunca foi visto
+    public int find(String name) {
+        Integer symbol = this.symbols.get(name);
+        return symbol == null ? NO_SYMBOL : symbol;
+    }
+
+    public String getName(int symbol) {
+        return this.names[symbol];
+    }
+
+    public int size() {
+        return size;
+    }
+}
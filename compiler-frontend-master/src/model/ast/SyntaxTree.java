@@ -0,0 +1,279 @@
+package model.ast;
+
+import model.token.TokenKind;
+
+import java.util.Arrays;
+
+// Árvore sintática guardada em arrays paralelos, um índice por nó, como a TokenStream faz com os tokens.
+// A árvore é montada de baixo para cima: o analisador sintático empilha os nós reconhecidos e, ao terminar uma
+// regra, junta os nós empilhados desde mark() como filhos de um novo nó. Os filhos de cada nó ficam contíguos em
+// children. Nós descartados (rollback, recuperação de erros) continuam nos arrays, mas ficam fora da árvore.
+public class SyntaxTree {
+    public static final int NO_NODE = -1;
+    private static final NodeKind[] NODE_KINDS = NodeKind.values();
+
+    private byte[] kinds;
+    private byte[] tokenKinds; // tipo do token que originou o nó (operadores e folhas), ou -1
+    private int[] lines;
+    private String[] values;
+    private int[] symbols; // número do nome (Symbols) nos nós NAME, ou NO_SYMBOL
+    private int[] firstChildren;
+    private int[] childCounts;
+    private int size;
+
+    private int[] children;
+    private int childrenSize;
+
+    private int[] stack;
+    private int stackSize;
+
+    // Os identificadores repetidos compartilham a mesma String e o mesmo número
+    private final Symbols names;
+    private int root;
+
+    // Nós copiados por copy(): origins[i] é o nó de source de que o nó i é cópia, ou NO_NODE. Só há origem quando
+    // todas as cópias vêm da mesma árvore
+    private SyntaxTree source;
+    private int[] origins;
+
+    public SyntaxTree() {
+        this(new Symbols());
+    }
+
+    // Árvore que numera os nomes em names, que pode ser compartilhado com outras árvores
+    public SyntaxTree(Symbols names) {
+        this.kinds = new byte[256];
+        this.tokenKinds = new byte[256];
+        this.lines = new int[256];
+        this.values = new String[256];
+        this.symbols = new int[256];
+        this.firstChildren = new int[256];
+        this.childCounts = new int[256];
+        this.children = new int[256];
+        this.stack = new int[64];
+        this.names = names;
+        this.root = NO_NODE;
+    }
+
+    // Posição atual da pilha, a ser passada para node() ou discard()
+    public int mark() {
+        return this.stackSize;
+    }
+
+    // Empilha um nó sem filhos
+    public int leaf(NodeKind kind, TokenKind tokenKind, String value, int line) {
+        int node = this.append(kind, tokenKind, value, this.intern(kind, value), line, this.childrenSize, 0);
+        this.push(node);
+        return node;
+    }
+
+    public int node(NodeKind kind, int line, int mark) {
+        return this.node(kind, null, null, line, mark);
+    }
+
+    // Desempilha os nós acima de mark como filhos de um novo nó, que é empilhado no lugar deles
+    public int node(NodeKind kind, TokenKind tokenKind, String value, int line, int mark) {
+        return this.join(kind, tokenKind, value, this.intern(kind, value), line, mark);
+    }
+
+    private int join(NodeKind kind, TokenKind tokenKind, String value, int symbol, int line, int mark) {
+        int count = Math.max(this.stackSize - mark, 0);
+
+        if (this.childrenSize + count > this.children.length) {
+            this.children = Arrays.copyOf(this.children, Math.max(this.children.length * 2, this.childrenSize + count));
+        }
+
+        System.arraycopy(this.stack, this.stackSize - count, this.children, this.childrenSize, count);
+        this.stackSize -= count;
+
+        int node = this.append(kind, tokenKind, value, symbol, line, this.childrenSize, count);
+        this.childrenSize += count;
+        this.push(node);
+        return node;
+    }
+
+    // Empilha uma cópia da subárvore de node, que está em source, com as linhas deslocadas de lineShift; a linha -1
+    // (fim do arquivo) não muda. A cópia é montada em pós-ordem, como o analisador sintático monta a árvore, com uma
+    // pilha explícita em vez de uma chamada por nível. Cada nó copiado guarda o nó de origem (getOrigin).
+    public int copy(SyntaxTree source, int node, int lineShift) {
+        if (this.origins == null) {
+            this.source = source;
+            this.origins = new int[this.kinds.length];
+            Arrays.fill(this.origins, 0, this.size, NO_NODE);
+        } else if (this.source != source) {
+            this.source = null;
+        }
+
+        int[] nodes = new int[16];
+        int[] nextChildren = new int[16];
+        int[] marks = new int[16];
+        int depth = 1;
+
+        nodes[0] = node;
+        marks[0] = this.mark();
+
+        while (depth > 0) {
+            int current = nodes[depth - 1];
+            int child = nextChildren[depth - 1];
+
+            if (child < source.childCounts[current]) {
+                nextChildren[depth - 1]++;
+
+                if (depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, depth * 2);
+                    nextChildren = Arrays.copyOf(nextChildren, depth * 2);
+                    marks = Arrays.copyOf(marks, depth * 2);
+                }
+
+                nodes[depth] = source.getChild(current, child);
+                nextChildren[depth] = 0;
+                marks[depth] = this.mark();
+                depth++;
+            } else {
+                depth--;
+                int line = source.lines[current];
+
+                // Os nomes já são compartilhados na árvore de origem; os números só são refeitos se ela numera os
+                // nomes em outro Symbols
+                int symbol = source.symbols[current];
+                String value = source.values[current];
+
+                if (symbol != Symbols.NO_SYMBOL && source.names != this.names) {
+                    symbol = this.names.intern(value);
+                    value = this.names.getName(symbol);
+                }
+
+                int copy = this.join(source.getKind(current), source.getTokenKind(current), value, symbol, line == -1 ? line : line + lineShift, marks[depth]);
+                this.origins[copy] = current;
+            }
+        }
+
+        return this.top();
+    }
+
+    // Descarta os nós empilhados acima de mark
+    public void discard(int mark) {
+        this.stackSize = Math.min(this.stackSize, mark);
+    }
+
+    // Nó no topo da pilha, ou NO_NODE
+    public int top() {
+        return this.stackSize == 0 ? NO_NODE : this.stack[this.stackSize - 1];
+    }
+
+    public void setRoot(int root) {
+        this.root = root;
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    private void push(int node) {
+        if (this.stackSize == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.stackSize * 2);
+        }
+
+        this.stack[this.stackSize++] = node;
+    }
+
+    private int append(NodeKind kind, TokenKind tokenKind, String value, int symbol, int line, int firstChild, int childCount) {
+        if (this.size == this.kinds.length) {
+            int capacity = this.size * 2;
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.tokenKinds = Arrays.copyOf(this.tokenKinds, capacity);
+            this.lines = Arrays.copyOf(this.lines, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+            this.symbols = Arrays.copyOf(this.symbols, capacity);
+            this.firstChildren = Arrays.copyOf(this.firstChildren, capacity);
+            this.childCounts = Arrays.copyOf(this.childCounts, capacity);
+
+            if (this.origins != null) {
+                this.origins = Arrays.copyOf(this.origins, capacity);
+            }
+        }
+
+        if (this.origins != null) {
+            this.origins[this.size] = NO_NODE;
+        }
+
+        this.kinds[this.size] = (byte) kind.ordinal();
+        this.tokenKinds[this.size] = (byte) (tokenKind == null ? -1 : tokenKind.ordinal());
+        this.lines[this.size] = line;
+        this.values[this.size] = symbol == Symbols.NO_SYMBOL ? value : this.names.getName(symbol);
+        this.symbols[this.size] = symbol;
+        this.firstChildren[this.size] = firstChild;
+        this.childCounts[this.size] = childCount;
+        return this.size++;
+    }
+
+    private int intern(NodeKind kind, String value) {
+        return value != null && kind == NodeKind.NAME ? this.names.intern(value) : Symbols.NO_SYMBOL;
+    }
+
+    // Números dos nomes da árvore
+    public Symbols getSymbols() {
+        return names;
+    }
+
+    // Árvore de que os nós foram copiados, ou null
+    public SyntaxTree getSource() {
+        return source;
+    }
+
+    // Nó de getSource() de que node é cópia, com a mesma subárvore a menos das linhas, ou NO_NODE
+    public int getOrigin(int node) {
+        return this.source == null ? NO_NODE : this.origins[node];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public NodeKind getKind(int node) {
+        return NODE_KINDS[this.kinds[node]];
+    }
+
+    public boolean isKind(int node, NodeKind kind) {
+        return node != NO_NODE && this.kinds[node] == kind.ordinal();
+    }
+
+    // Tipo do token que originou o nó, ou null
+    public TokenKind getTokenKind(int node) {
+        return this.tokenKinds[node] < 0 ? null : TokenKind.valueOf(this.tokenKinds[node]);
+    }
+
+    public int getLine(int node) {
+        return this.lines[node];
+    }
+
+    public String getValue(int node) {
+        return this.values[node];
+    }
+
+    // Número do nome de um nó NAME, ou Symbols.NO_SYMBOL
+    public int getSymbol(int node) {
+        return this.symbols[node];
+    }
+
+    public int getChildCount(int node) {
+        return this.childCounts[node];
+    }
+
+    public int getChild(int node, int index) {
+        return this.children[this.firstChildren[node] + index];
+    }
+
+    // Primeiro filho do tipo pedido, ou NO_NODE
+    public int findChild(int node, NodeKind kind) {
+        for (int i = 0; i < this.childCounts[node]; i++) {
+            int child = this.getChild(node, i);
+
+            if (this.kinds[child] == kind.ordinal()) {
+                return child;
+            }
+        }
+
+        return NO_NODE;
+    }
+}
@@ -11,6 +11,11 @@ public class SemanticError extends Error {
         this.type = type;
         this.expected = expected;
     }
+
+    public String getExpected() {
+        return expected;
+    }
+
     private String undoTranslatePRE(String PRE) {
         switch (PRE) {
             case TokenTypes.NUMBER:
@@ -9,6 +9,9 @@ public class SyntaxError extends Error {
         this.expected = expected;
     }
 
+    public String getExpected() {
+        return expected;
+    }
 
     @Override
     public String toString() {
@@ -0,0 +1,149 @@
+package model.semantic;
+
+import model.ast.Symbols;
+import model.semantic.entries.VariableEntry;
+
+import java.util.Arrays;
+
+// Escopo de variáveis e constantes, pelo número do nome (Symbols). Um escopo só guarda as próprias entradas e aponta
+// para o escopo de fora, que é consultado quando o nome não está nele: abrir um escopo é criar um com o atual como
+// parent, e fechá-lo é voltar para getParent(), sem copiar entradas.
+//
+// As entradas ficam em arrays na ordem em que foram acrescentadas, e uma tabela de endereçamento aberto leva do número
+// do nome à posição da entrada.
+public class Scope {
+    private static final int[] NO_TABLE = new int[0];
+
+    private final Scope parent;
+
+    private int[] symbols;
+    private VariableEntry[] entries;
+    private int size;
+
+    // Posição + 1 da entrada em cada slot, ou 0; a tabela é mantida no máximo metade cheia
+    private int[] table;
+
+    public Scope() {
+        this(null);
+    }
+
+    public Scope(Scope parent) {
+        this.parent = parent;
+        this.symbols = new int[4];
+        this.entries = new VariableEntry[4];
+        this.table = NO_TABLE;
+    }
+
+    public Scope getParent() {
+        return parent;
+    }
+
+    // Entrada do nome neste escopo ou, se ele não está aqui, nos de fora; ou null
+    public VariableEntry get(int symbol) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            int index = scope.indexOf(symbol);
+
+            if (index >= 0) {
+                return scope.entries[index];
+            }
+        }
+
+        return null;
+    }
+
+    public VariableEntry getOwn(int symbol) {
+        int index = this.indexOf(symbol);
+        return index < 0 ? null : this.entries[index];
+    }
+
+    public boolean containsOwn(int symbol) {
+        return this.indexOf(symbol) >= 0;
+    }
+
+    // Acrescenta ou troca a entrada do nome neste escopo; retorna a entrada anterior dele neste escopo, ou null
+    public VariableEntry put(int symbol, VariableEntry entry) {
+        if (symbol == Symbols.NO_SYMBOL) {
+            throw new IllegalArgumentException("Nome sem número: " + entry);
+        }
+
+        int index = this.indexOf(symbol);
+
+        if (index >= 0) {
+            VariableEntry previous = this.entries[index];
+            this.entries[index] = entry;
+            return previous;
+        }
+
+        if (this.size == this.symbols.length) {
+            this.symbols = Arrays.copyOf(this.symbols, this.size * 2);
+            this.entries = Arrays.copyOf(this.entries, this.size * 2);
+        }
+
+        this.symbols[this.size] = symbol;
+        this.entries[this.size] = entry;
+        this.size++;
+
+        if (this.size * 2 > this.table.length) {
+            this.rehash(Math.max(this.table.length * 2, 8));
+        } else {
+            this.table[this.slotOf(symbol)] = this.size;
+        }
+
+        return null;
+    }
+
+    // Entradas próprias, na ordem em que foram acrescentadas
+    public int size() {
+        return size;
+    }
+
+    public int getSymbol(int index) {
+        return this.symbols[index];
+    }
+
+    public VariableEntry getEntry(int index) {
+        return this.entries[index];
+    }
+
+    private int indexOf(int symbol) {
+        int mask = this.table.length - 1;
+
+        if (mask < 0) {
+            return -1;
+        }
+
+        for (int slot = hash(symbol) & mask; ; slot = (slot + 1) & mask) {
+            int index = this.table[slot] - 1;
+
+            if (index < 0 || this.symbols[index] == symbol) {
+                return index;
+            }
+        }
+    }
+
+    // Primeiro slot livre para o nome, que ainda não está na tabela
+    private int slotOf(int symbol) {
+        int mask = this.table.length - 1;
+        int slot = hash(symbol) & mask;
+
+        while (this.table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        this.table = new int[capacity];
+
+        for (int i = 0; i < this.size; i++) {
+            this.table[this.slotOf(this.symbols[i])] = i + 1;
+        }
+    }
+
+    // Os números são sequenciais: espalha os bits para que nomes vizinhos não caiam em slots vizinhos
+    private static int hash(int symbol) {
+        int h = symbol * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,5 +1,6 @@
 package model.semantic;
 
+import model.ast.Symbols;
 import model.semantic.entries.ClassEntry;
 import model.semantic.entries.VariableEntry;
 import model.token.TokenTypes;
@@ -8,18 +9,33 @@ import javax.management.InstanceAlreadyExistsException;
 import java.util.HashMap;
 import java.util.Map;
 
+// As constantes ficam em um Scope, pelo número do nome em symbols
 public class SymbolTable {
     private Map<String, ClassEntry> classes;
-    private Map<String, VariableEntry> constants;
+    private final Symbols symbols;
+    private final Scope constants;
 
 
     public SymbolTable() {
-        this.constants = new HashMap<>();
+        this(new Symbols());
+    }
+
+    public SymbolTable(Symbols symbols) {
+        this.symbols = symbols;
+        this.constants = new Scope();
         this.classes = new HashMap<>();
     }
 
     public VariableEntry getConst(String varName) {
-        return this.constants.get(varName);
+        return this.getConst(this.symbols.find(varName));
+    }
+
+    public VariableEntry getConst(int symbol) {
+        return symbol == Symbols.NO_SYMBOL ? null : this.constants.getOwn(symbol);
+    }
+
+    public Symbols getSymbols() {
+        return symbols;
     }
 
 
@@ -61,7 +77,7 @@ public class SymbolTable {
         }
     }
 
-    public Map<String, VariableEntry> getConstContext() {
+    public Scope getConstContext() {
         return this.constants;
     }
 
@@ -0,0 +1,109 @@
+package model.semantic;
+
+import model.ast.Symbols;
+import model.token.TokenKind;
+import model.token.TokenTypes;
+
+// Tipos como números, para que a verificação das expressões compare inteiros e consulte tabelas em vez de comparar
+// Strings. Os tipos nativos têm números fixos; os demais (classes, tipos inválidos e os códigos dos tokens) recebem
+// NAMED + o número do nome em Symbols. Dois tipos têm o mesmo número quando têm o mesmo nome, então as comparações
+// dão o mesmo resultado que as das Strings, e os números valem enquanto a numeração dos nomes for a mesma, como na
+// verificação incremental. getName devolve o nome que aparece nas mensagens de erro.
+public class Types {
+    public static final int UNDEFINED = 0;
+    public static final int INT = 1;
+    public static final int FLOAT = 2;
+    public static final int STRING = 3;
+    public static final int BOOLEAN = 4;
+    public static final int VOID = 5;
+    private static final int NAMED = 6;
+
+    private static final String[] NAMES = {TokenTypes.UNDEFINED, TokenTypes.NUMBER_INT, TokenTypes.NUMBER_FLOAT, TokenTypes.STRING, TokenTypes.BOOLEAN, "void"};
+
+    // Resultado de um operando de uma expressão depois de outro, em operand()
+    public static final byte SAME = 0;
+    public static final byte STRING_OPERATION = 1;
+    public static final byte CONVERSION = 2;
+    public static final byte UNDEFINED_OPERAND = 3;
+
+    // Pelos tipos nativos e NAMED para os demais: OPERANDS[anterior][operando] e, na declaração com valor,
+    // INITIALIZERS[declarado][valor] quando o valor pode ser atribuído
+    private static final byte[][] OPERANDS = new byte[NAMED + 1][NAMED + 1];
+    private static final boolean[][] INITIALIZERS = new boolean[NAMED + 1][NAMED + 1];
+
+    static {
+        for (int last = 0; last <= NAMED; last++) {
+            for (int type = 0; type <= NAMED; type++) {
+                if (last == STRING) {
+                    OPERANDS[last][type] = STRING_OPERATION;
+                } else if (last == type && last != NAMED) {
+                    OPERANDS[last][type] = SAME;
+                } else {
+                    OPERANDS[last][type] = type == UNDEFINED ? UNDEFINED_OPERAND : CONVERSION;
+                }
+            }
+        }
+
+        // O valor indefinido já teve o erro apontado, e o booleano aceita qualquer valor; instâncias de classe não
+        // podem ser inicializadas
+        for (int declared = 0; declared <= NAMED; declared++) {
+            INITIALIZERS[declared][UNDEFINED] = true;
+            INITIALIZERS[BOOLEAN][declared] = true;
+        }
+        INITIALIZERS[INT][INT] = true;
+        INITIALIZERS[FLOAT][FLOAT] = true;
+        INITIALIZERS[STRING][STRING] = true;
+    }
+
+    private final Symbols symbols;
+    private final int[] kinds;
+
+    // Os códigos dos tokens são numerados aqui, para que a verificação dos corpos só consulte a numeração
+    public Types(Symbols symbols) {
+        this.symbols = symbols;
+        this.kinds = new int[TokenKind.values().length];
+
+        for (TokenKind kind : TokenKind.values()) {
+            this.kinds[kind.ordinal()] = this.intern(kind.getCode());
+        }
+    }
+
+    // Número do tipo, numerando o nome se preciso
+    public int intern(String type) {
+        int primitive = primitive(type);
+        return primitive >= 0 ? primitive : NAMED + this.symbols.intern(type);
+    }
+
+    // Tipo de uma folha pelo código do token, como em TokenKind.getCode
+    public int getKindType(TokenKind kind) {
+        return this.kinds[kind.ordinal()];
+    }
+
+    public String getName(int type) {
+        return type < NAMED ? NAMES[type] : this.symbols.getName(type - NAMED);
+    }
+
+    // Como o operando type afeta uma expressão cujos operandos anteriores são do tipo last
+    public static byte operand(int last, int type) {
+        if (last == type && last >= NAMED) {
+            return SAME;
+        }
+
+        return OPERANDS[Math.min(last, NAMED)][Math.min(type, NAMED)];
+    }
+
+    // Se uma declaração do tipo declared pode ser inicializada com um valor do tipo value
+    public static boolean isInitializable(int declared, int value) {
+        return INITIALIZERS[Math.min(declared, NAMED)][Math.min(value, NAMED)];
+    }
+
+    private static int primitive(String type) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(type)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
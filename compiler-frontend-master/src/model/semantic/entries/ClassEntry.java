@@ -1,13 +1,14 @@
 package model.semantic.entries;
 
-import java.util.HashMap;
 import java.util.Map;
 
+// Os atributos e métodos herdados não são copiados: as tabelas da classe apontam para as da classe mãe (MemberTable).
+// Os métodos ficam pela assinatura (MethodSignature), e os sobrecarregados são entradas diferentes da tabela
 public class ClassEntry {
     private final ClassEntry superclass;
     private String name;
-    private Map<String, VariableEntry> variables;
-    private Map<String, MethodEntry> methods;
+    private final MemberTable<String, VariableEntry> variables;
+    private final MemberTable<MethodSignature, MethodEntry> methods;
 
     public ClassEntry(String name) {
         this(name, null);
@@ -17,39 +18,28 @@ public class ClassEntry {
     public ClassEntry(String name, ClassEntry superclass) {
         this.name = name;
         this.superclass = superclass;
-        this.variables = new HashMap<>();
-        this.methods = new HashMap<>();
-
-        if (superclass != null) {
-            this.variables.putAll(this.superclass.variables);
-            this.methods.putAll(this.superclass.methods);
-        }
+        this.variables = new MemberTable<>(superclass == null ? null : superclass.variables);
+        this.methods = new MemberTable<>(superclass == null ? null : superclass.methods);
     }
 
     public Map<String, VariableEntry> getVariables() {
         return variables;
     }
 
-    public MethodEntry addMethod(String name, String returnType, Map<String, VariableEntry> params) throws Exception {
-        if (methods.get(name) != null) {
-            throw new Exception("repetido");
-        }
-
-        MethodEntry methodEntry = new MethodEntry(name, returnType, params);
-
-        return methodEntry;
-    }
-
-
     public void addMethod(MethodEntry method) throws Exception {
-        if (methods.get(method.getName()) != null) {
+        if (methods.get(method.getSignature()) != null) {
             throw new Exception();
         }
 
-        this.methods.put(method.getName(), method);
+        this.methods.put(method.getSignature(), method);
+    }
+
+    // Método com a assinatura, ou null
+    public MethodEntry getMethod(MethodSignature method) {
+        return this.methods.get(method);
     }
 
-    public String getMethodType(String method) throws Exception {
+    public String getMethodType(MethodSignature method) throws Exception {
         MethodEntry methodEntry = this.methods.get(method);
 
         if (methodEntry == null) {
@@ -59,6 +49,10 @@ public class ClassEntry {
         return methodEntry.getReturnType();
     }
 
+    public ClassEntry getSuperclass() {
+        return superclass;
+    }
+
     private boolean hasSuperclass() {
         return this.superclass != null;
     }
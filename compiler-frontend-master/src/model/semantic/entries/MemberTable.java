@@ -0,0 +1,208 @@
+package model.semantic.entries;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Membros (atributos, pelo nome, ou métodos, pela assinatura) de uma classe em camadas: cada classe guarda só os próprios membros e aponta para a
+// tabela da classe mãe, em vez de copiar os da mãe. Para o mapa, os membros da classe são os próprios e os herdados,
+// e um membro próprio esconde o herdado com o mesmo nome; put só altera a camada da própria classe, e os membros
+// acrescentados depois na mãe também aparecem nas filhas.
+//
+// Os nomes procurados na cadeia de mães ficam em um cache por tabela, montado à medida que as consultas chegam: o
+// cache cresce com os nomes consultados, não com o número de membros herdados. Qualquer mudança na hierarquia
+// invalida os caches dela. As consultas podem vir de várias threads (verificação paralela dos corpos) depois que a
+// hierarquia foi montada, por isso o cache é um ConcurrentHashMap.
+class MemberTable<K, V> extends AbstractMap<K, V> {
+    // Marca, no cache, um nome que não está na cadeia
+    private static final Object MISSING = new Object();
+
+    private final MemberTable<K, V> parent;
+    private final MemberTable<K, V> root;
+    private final Map<K, V> own;
+    private final int depth;
+
+    // Só na raiz: mudanças em qualquer tabela da hierarquia, e se alguma camada esconde um membro herdado
+    private int generation;
+    private boolean shadowing;
+
+    private volatile Lookups lookups;
+
+    MemberTable(MemberTable<K, V> parent) {
+        this.parent = parent;
+        this.root = parent == null ? this : parent.root;
+        this.own = new HashMap<>();
+        this.depth = parent == null ? 0 : parent.depth + 1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        V value = this.own.get(key);
+
+        if (value != null || this.parent == null || key == null) {
+            return value;
+        }
+
+        return this.getInherited((K) key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V getInherited(K key) {
+        Lookups lookups = this.lookups;
+
+        if (lookups == null || lookups.generation != this.root.generation) {
+            lookups = new Lookups(this.root.generation);
+            this.lookups = lookups;
+        }
+
+        Object value = lookups.values.get(key);
+
+        if (value == null) {
+            value = this.parent.get(key);
+            lookups.values.put(key, value == null ? MISSING : value);
+        }
+
+        return value == MISSING ? null : (V) value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Membro sem entrada: " + key);
+        }
+
+        V previous = this.get(key);
+
+        if (this.own.get(key) == null && previous != null) {
+            this.root.shadowing = true;
+        }
+
+        this.own.put(key, value);
+        this.root.generation++;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        if (!this.root.shadowing) {
+            int size = 0;
+
+            for (MemberTable<K, V> table = this; table != null; table = table.parent) {
+                size += table.own.size();
+            }
+
+            return size;
+        }
+
+        return super.size();
+    }
+
+    // Da classe mais distante na hierarquia até a própria, sem os membros escondidos por uma camada mais próxima
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new LayerIterator();
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+
+                for (Iterator<Entry<K, V>> iterator = this.iterator(); iterator.hasNext(); iterator.next()) {
+                    size++;
+                }
+
+                return size;
+            }
+        };
+    }
+
+    private class LayerIterator implements Iterator<Entry<K, V>> {
+        private final List<MemberTable<K, V>> layers;
+        private int layer;
+        private Iterator<Entry<K, V>> entries;
+        private Entry<K, V> next;
+
+        LayerIterator() {
+            this.layers = new ArrayList<>(depth + 1);
+
+            for (MemberTable<K, V> table = MemberTable.this; table != null; table = table.parent) {
+                this.layers.add(0, table);
+            }
+
+            this.entries = this.layers.get(0).own.entrySet().iterator();
+            this.advance();
+        }
+
+        private void advance() {
+            this.next = null;
+
+            while (this.next == null) {
+                while (!this.entries.hasNext()) {
+                    if (++this.layer == this.layers.size()) {
+                        return;
+                    }
+                    this.entries = this.layers.get(this.layer).own.entrySet().iterator();
+                }
+
+                Entry<K, V> entry = this.entries.next();
+
+                if (!root.shadowing || !this.isShadowed(entry.getKey())) {
+                    this.next = entry;
+                }
+            }
+        }
+
+        private boolean isShadowed(K key) {
+            for (int i = this.layer + 1; i < this.layers.size(); i++) {
+                if (this.layers.get(i).own.containsKey(key)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (this.next == null) {
+                throw new NoSuchElementException();
+            }
+
+            Entry<K, V> entry = new SimpleImmutableEntry<>(this.next);
+            this.advance();
+            return entry;
+        }
+    }
+
+    // Nomes já procurados na cadeia de mães, válidos enquanto a hierarquia estiver na mesma geração
+    private static class Lookups {
+        private final int generation;
+        private final Map<Object, Object> values;
+
+        Lookups(int generation) {
+            this.generation = generation;
+            this.values = new ConcurrentHashMap<>();
+        }
+    }
+}
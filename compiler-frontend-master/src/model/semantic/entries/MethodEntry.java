@@ -4,14 +4,19 @@ import model.token.TokenTypes;
 
 import java.util.Map;
 
+// O nome do método é o das mensagens de erro, com os tipos dos parâmetros; a tabela da classe usa a assinatura
 public class MethodEntry {
     private String name;
+    private final MethodSignature signature;
     private String returnType;
+    private final int returnTypeId; // número do tipo de retorno em Types
     private Map<String, VariableEntry> params;
 
-    public MethodEntry(String name, String returnType, Map<String, VariableEntry> params) {
+    public MethodEntry(String name, MethodSignature signature, String returnType, int returnTypeId, Map<String, VariableEntry> params) {
         this.name = name;
+        this.signature = signature;
         this.returnType = returnType;
+        this.returnTypeId = returnTypeId;
         this.params = params;
     }
 
@@ -23,6 +28,14 @@ public class MethodEntry {
         return name;
     }
 
+    public MethodSignature getSignature() {
+        return signature;
+    }
+
+    public int getReturnTypeId() {
+        return returnTypeId;
+    }
+
     public String getReturnType() {
         if (this.returnType == null)
             return TokenTypes.UNDEFINED;
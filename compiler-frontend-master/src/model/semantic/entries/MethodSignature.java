@@ -0,0 +1,48 @@
+package model.semantic.entries;
+
+import java.util.Arrays;
+
+// Assinatura de um método: o número do nome (Symbols) e os números dos tipos dos parâmetros (Types), na ordem em que
+// foram declarados. É a chave dos métodos na tabela da classe; o hash é calculado uma vez, na criação.
+public final class MethodSignature {
+    private final int name;
+    private final int[] types;
+    private final int hash;
+
+    public MethodSignature(int name, int[] types) {
+        this.name = name;
+        this.types = types;
+        this.hash = 31 * name + Arrays.hashCode(types);
+    }
+
+    public int getName() {
+        return name;
+    }
+
+    public int getParameterCount() {
+        return this.types.length;
+    }
+
+    public int getType(int index) {
+        return this.types[index];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (!(other instanceof MethodSignature)) {
+            return false;
+        }
+
+        MethodSignature signature = (MethodSignature) other;
+        return this.hash == signature.hash && this.name == signature.name && Arrays.equals(this.types, signature.types);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
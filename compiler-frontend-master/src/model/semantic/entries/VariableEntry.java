@@ -10,6 +10,7 @@ public class VariableEntry {
     private int line;
     private String name;
     private String type;
+    private int typeId; // número do tipo em Types, dado pela análise semântica
     private boolean isConstant;
     private String dimensionString;
     private String value;
@@ -73,6 +74,14 @@ public class VariableEntry {
         this.type = type;
     }
 
+    public int getTypeId() {
+        return typeId;
+    }
+
+    public void setTypeId(int typeId) {
+        this.typeId = typeId;
+    }
+
     public boolean isConst() {
         return isConstant;
     }
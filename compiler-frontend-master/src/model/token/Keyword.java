@@ -0,0 +1,64 @@
+package model.token;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Palavras reservadas da linguagem. Cada uma é identificada pelo seu ordinal, que é gravado junto com o token
+public enum Keyword {
+    CLASS("class"),
+    CONST("const"),
+    VARIABLES("variables"),
+    METHOD("method"),
+    RETURN("return"),
+    MAIN("main"),
+    IF("if"),
+    THEN("then"),
+    ELSE("else"),
+    WHILE("while"),
+    READ("read"),
+    WRITE("write"),
+    VOID("void"),
+    INT("int"),
+    FLOAT("float"),
+    BOOL("bool"),
+    STRING("string"),
+    TRUE("true"),
+    FALSE("false"),
+    EXTENDS("extends");
+
+    private static final Keyword[] KEYWORDS = values();
+    private static final Map<String, Keyword> LEXEMES = new HashMap<>();
+
+    static {
+        for (Keyword keyword : KEYWORDS) {
+            LEXEMES.put(keyword.lexeme, keyword);
+        }
+    }
+
+    private final String lexeme;
+
+    Keyword(String lexeme) {
+        this.lexeme = lexeme;
+    }
+
+    public static Keyword valueOf(int ordinal) {
+        return KEYWORDS[ordinal];
+    }
+
+    public static Keyword lookup(String lexeme) {
+        return LEXEMES.get(lexeme);
+    }
+
+    public String getLexeme() {
+        return lexeme;
+    }
+
+    public boolean isNativeType() {
+        return this == VOID || this == INT || this == FLOAT || this == BOOL || this == STRING;
+    }
+
+    @Override
+    public String toString() {
+        return lexeme;
+    }
+}
@@ -0,0 +1,384 @@
+package model.token;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+// Autômato finito determinístico que reconhece todas as categorias de lexemas de uma só vez.
+// A tabela de transições é construída uma única vez a partir do produto dos autômatos de cada categoria,
+// e cada estado guarda o conjunto de categorias que aceitam o lexema lido até ali.
+public class LexemeAutomaton {
+    public static final int DEAD_STATE = -1;
+    public static final int START_STATE = 0;
+
+    static final String[] ARITHMETICAL_OPERATORS = {"+", "-", "*", "/", "++", "--"};
+    static final String[] RELATIONAL_OPERATORS = {"!=", "==", "<", "<=", ">", ">=", "=", "!"};
+    static final String[] LOGICAL_OPERATORS = {"!", "&&", "||"};
+    static final String[] DELIMITERS = {";", ",", "(", ")", "[", "]", "{", "}", "."};
+
+    // Ordem de precedência das categorias (a primeira que aceitar o lexema é a sua classificação)
+    private static final TokenKind[] CATEGORIES = {TokenKind.RESERVED_WORD, TokenKind.IDENTIFIER, TokenKind.NUMBER,
+            TokenKind.RELATIONAL_OPERATOR, TokenKind.LOGICAL_OPERATOR, TokenKind.ARITHMETICAL_OPERATOR,
+            TokenKind.DELIMITER, TokenKind.STRING, TokenKind.SPACE, TokenKind.BLOCK_COMMENT_START,
+            TokenKind.BLOCK_COMMENT_END};
+    private static final int RESERVED_WORD_RULE = 0;
+
+    // Colunas da tabela: um por caractere ASCII, um para os demais caracteres e um para quebras de linha unicode
+    private static final int ASCII_COLUMNS = 128;
+    private static final int NON_ASCII_COLUMN = ASCII_COLUMNS;
+    private static final int LINE_TERMINATOR_COLUMN = ASCII_COLUMNS + 1;
+    private static final int COLUMNS = ASCII_COLUMNS + 2;
+
+    private static final LexemeAutomaton INSTANCE = new LexemeAutomaton();
+
+    private final int[] transitions;
+    private final int[] acceptedCategories;
+    private final byte[] keywords; // ordinal da palavra reservada aceita no estado, ou -1
+
+    private LexemeAutomaton() {
+        String[] reservedWords = new String[Keyword.values().length];
+        for (Keyword keyword : Keyword.values()) {
+            reservedWords[keyword.ordinal()] = keyword.getLexeme();
+        }
+
+        LiteralRule reservedWordRule = new LiteralRule(reservedWords);
+        Rule[] rules = {
+                reservedWordRule,
+                new IdentifierRule(),
+                new NumberRule(),
+                new LiteralRule(RELATIONAL_OPERATORS),
+                new LiteralRule(LOGICAL_OPERATORS),
+                new LiteralRule(ARITHMETICAL_OPERATORS),
+                new LiteralRule(DELIMITERS),
+                new StringRule(),
+                new SpaceRule(),
+                new LiteralRule("/*"),
+                new LiteralRule("*/")
+        };
+
+        Map<StateTuple, Integer> states = new HashMap<>();
+        Deque<StateTuple> pending = new ArrayDeque<>();
+        StateTuple start = new StateTuple(new int[rules.length]);
+        states.put(start, START_STATE);
+        pending.add(start);
+
+        int[] table = new int[64 * COLUMNS];
+        int[] accepted = new int[64];
+        byte[] keywordIds = new byte[64];
+
+        while (!pending.isEmpty()) {
+            StateTuple current = pending.poll();
+            int id = states.get(current);
+
+            if (accepted.length <= id) {
+                accepted = Arrays.copyOf(accepted, accepted.length * 2);
+                keywordIds = Arrays.copyOf(keywordIds, keywordIds.length * 2);
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+
+            int mask = 0;
+            for (int rule = 0; rule < rules.length; rule++) {
+                int state = current.states[rule];
+                if (state != DEAD_STATE && rules[rule].isAccepting(state)) {
+                    mask |= 1 << rule;
+                }
+            }
+            accepted[id] = mask;
+
+            int reservedState = current.states[RESERVED_WORD_RULE];
+            keywordIds[id] = (byte) (reservedState == DEAD_STATE ? -1 : reservedWordRule.literal(reservedState));
+
+            for (int column = 0; column < COLUMNS; column++) {
+                char ch = representative(column);
+                int[] next = new int[rules.length];
+                boolean alive = false;
+
+                for (int rule = 0; rule < rules.length; rule++) {
+                    int state = current.states[rule];
+                    next[rule] = state == DEAD_STATE ? DEAD_STATE : rules[rule].next(state, ch);
+                    alive |= next[rule] != DEAD_STATE;
+                }
+
+                if (!alive) {
+                    table[id * COLUMNS + column] = DEAD_STATE;
+                    continue;
+                }
+
+                StateTuple tuple = new StateTuple(next);
+                Integer nextId = states.get(tuple);
+
+                if (nextId == null) {
+                    nextId = states.size();
+                    states.put(tuple, nextId);
+                    pending.add(tuple);
+                }
+                table[id * COLUMNS + column] = nextId;
+            }
+        }
+
+        this.transitions = Arrays.copyOf(table, states.size() * COLUMNS);
+        this.acceptedCategories = Arrays.copyOf(accepted, states.size());
+        this.keywords = Arrays.copyOf(keywordIds, states.size());
+    }
+
+    public static LexemeAutomaton getInstance() {
+        return INSTANCE;
+    }
+
+    private static int column(char ch) {
+        if (ch < ASCII_COLUMNS) {
+            return ch;
+        }
+
+        return isLineTerminator(ch) ? LINE_TERMINATOR_COLUMN : NON_ASCII_COLUMN;
+    }
+
+    private static char representative(int column) {
+        switch (column) {
+            case NON_ASCII_COLUMN:
+                return 'ç';
+            case LINE_TERMINATOR_COLUMN:
+                return '\u0085';
+            default:
+                return (char) column;
+        }
+    }
+
+    public static boolean isLineTerminator(char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+    }
+
+    private static boolean isLetter(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z');
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static boolean isSpace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n';
+    }
+
+    public int next(int state, char ch) {
+        if (state == DEAD_STATE) {
+            return DEAD_STATE;
+        }
+
+        return this.transitions[state * COLUMNS + column(ch)];
+    }
+
+    public int run(int state, CharSequence lexeme) {
+        for (int i = 0; i < lexeme.length() && state != DEAD_STATE; i++) {
+            state = this.transitions[state * COLUMNS + column(lexeme.charAt(i))];
+        }
+
+        return state;
+    }
+
+    public int run(int state, char[] source, int start, int end) {
+        for (int i = start; i < end && state != DEAD_STATE; i++) {
+            state = this.transitions[state * COLUMNS + column(source[i])];
+        }
+
+        return state;
+    }
+
+    // Categoria de maior precedência aceita no estado
+    public TokenKind category(int state) {
+        if (state == DEAD_STATE || this.acceptedCategories[state] == 0) {
+            return TokenKind.INVALID_TOKEN;
+        }
+
+        return CATEGORIES[Integer.numberOfTrailingZeros(this.acceptedCategories[state])];
+    }
+
+    public boolean accepts(int state, TokenKind category) {
+        if (state == DEAD_STATE) {
+            return false;
+        }
+
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i] == category) {
+                return (this.acceptedCategories[state] & (1 << i)) != 0;
+            }
+        }
+
+        return false;
+    }
+
+    // Palavra reservada reconhecida no estado, ou null
+    public Keyword keyword(int state) {
+        if (state == DEAD_STATE || this.keywords[state] < 0) {
+            return null;
+        }
+
+        return Keyword.valueOf(this.keywords[state]);
+    }
+
+    private interface Rule {
+        int next(int state, char ch);
+
+        boolean isAccepting(int state);
+    }
+
+    private static final class StateTuple {
+        private final int[] states;
+        private final int hash;
+
+        StateTuple(int[] states) {
+            this.states = states;
+            this.hash = Arrays.hashCode(states);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StateTuple && Arrays.equals(this.states, ((StateTuple) o).states);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    // Conjunto finito de lexemas (palavras reservadas, operadores, delimitadores), reconhecido por uma trie
+    private static final class LiteralRule implements Rule {
+        private final Map<Long, Integer> edges = new HashMap<>();
+        private int[] accepting = {-1};
+        private int size = 1;
+
+        LiteralRule(String... literals) {
+            for (int index = 0; index < literals.length; index++) {
+                String literal = literals[index];
+                int state = START_STATE;
+
+                for (char ch : literal.toCharArray()) {
+                    Integer next = this.edges.get(edge(state, ch));
+
+                    if (next == null) {
+                        next = this.size++;
+                        this.edges.put(edge(state, ch), next);
+                    }
+                    state = next;
+                }
+
+                if (this.accepting.length < this.size) {
+                    int length = this.accepting.length;
+                    this.accepting = Arrays.copyOf(this.accepting, this.size * 2);
+                    Arrays.fill(this.accepting, length, this.accepting.length, -1);
+                }
+                this.accepting[state] = index;
+            }
+        }
+
+        private static long edge(int state, char ch) {
+            return ((long) state << 16) | ch;
+        }
+
+        @Override
+        public int next(int state, char ch) {
+            Integer next = this.edges.get(edge(state, ch));
+            return next == null ? DEAD_STATE : next;
+        }
+
+        @Override
+        public boolean isAccepting(int state) {
+            return this.literal(state) >= 0;
+        }
+
+        // Índice do lexema aceito no estado, ou -1
+        int literal(int state) {
+            return state < this.accepting.length ? this.accepting[state] : -1;
+        }
+    }
+
+    // letra (letra | dígito | _)*
+    private static final class IdentifierRule implements Rule {
+        @Override
+        public int next(int state, char ch) {
+            if (state == 0) {
+                return isLetter(ch) ? 1 : DEAD_STATE;
+            }
+
+            return isLetter(ch) || isDigit(ch) || ch == '_' ? 1 : DEAD_STATE;
+        }
+
+        @Override
+        public boolean isAccepting(int state) {
+            return state == 1;
+        }
+    }
+
+    // (-) espaço* dígito+ (. dígito+)* | dígito+ (. dígito+)*
+    private static final class NumberRule implements Rule {
+        private static final int MINUS = 1;
+        private static final int INTEGER = 2;
+        private static final int DOT = 3;
+        private static final int FRACTION = 4;
+
+        @Override
+        public int next(int state, char ch) {
+            switch (state) {
+                case START_STATE:
+                    if (ch == '-') return MINUS;
+                    return isDigit(ch) ? INTEGER : DEAD_STATE;
+                case MINUS:
+                    if (isSpace(ch)) return MINUS;
+                    return isDigit(ch) ? INTEGER : DEAD_STATE;
+                case INTEGER:
+                    if (ch == '.') return DOT;
+                    return isDigit(ch) ? INTEGER : DEAD_STATE;
+                case DOT:
+                    return isDigit(ch) ? FRACTION : DEAD_STATE;
+                default:
+                    if (ch == '.') return DOT;
+                    return isDigit(ch) ? FRACTION : DEAD_STATE;
+            }
+        }
+
+        @Override
+        public boolean isAccepting(int state) {
+            return state == INTEGER || state == FRACTION;
+        }
+    }
+
+    // Aspas seguidas de qualquer caractere que não seja quebra de linha, terminando em aspas
+    private static final class StringRule implements Rule {
+        private static final int OPEN = 1;
+        private static final int CLOSED = 2;
+
+        @Override
+        public int next(int state, char ch) {
+            if (state == START_STATE) {
+                return ch == '"' ? OPEN : DEAD_STATE;
+            }
+
+            if (isLineTerminator(ch)) {
+                return DEAD_STATE;
+            }
+
+            return ch == '"' ? CLOSED : OPEN;
+        }
+
+        @Override
+        public boolean isAccepting(int state) {
+            return state == CLOSED;
+        }
+    }
+
+    // ( |\t|\n)*, inclusive a cadeia vazia
+    private static final class SpaceRule implements Rule {
+        @Override
+        public int next(int state, char ch) {
+            return isSpace(ch) ? START_STATE : DEAD_STATE;
+        }
+
+        @Override
+        public boolean isAccepting(int state) {
+            return true;
+        }
+    }
+}
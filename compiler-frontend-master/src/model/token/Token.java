@@ -1,20 +1,24 @@
 package model.token;
 
 public class Token {
-    public final static Token EMPTY_TOKEN = new Token("", "", -1);
+    public final static Token EMPTY_TOKEN = new Token(TokenKind.EMPTY, "", -1);
 
-    private final String type;
+    private final TokenKind kind;
     private final String value;
     private final int line;
 
-    public Token(String type, String value, int line) {
-        this.type = type;
+    public Token(TokenKind kind, String value, int line) {
+        this.kind = kind;
         this.value = value;
         this.line = line;
     }
 
+    public TokenKind getKind() {
+        return kind;
+    }
+
     public String getType() {
-        return type;
+        return kind.getCode();
     }
 
     public String getValue() {
@@ -26,7 +30,7 @@ public class Token {
     }
 
     public boolean isIdentifier() {
-        return this.type.equals(TokenTypes.IDENTIFIER);
+        return this.kind == TokenKind.IDENTIFIER;
     }
 
     public boolean isBolean() {
@@ -0,0 +1,175 @@
+package model.token;
+
+import java.util.Arrays;
+
+// Cursor sobre um TokenSource, com a mesma semântica de currentToken/tokenIndex usada pelos analisadores.
+// Posições fora da sequência se comportam como Token.EMPTY_TOKEN.
+// O cursor avisa a origem de quais tokens ainda podem ser consultados: o corrente, os seguintes e os retidos por mark.
+public class TokenCursor {
+    public static final int NO_TOKEN = -1;
+
+    private final TokenSource tokens;
+    private int current;
+    private int position;
+    private int[] marks;
+    private int markCount;
+    private int furthest;
+
+    public TokenCursor(TokenSource tokens) {
+        this.tokens = tokens;
+        this.current = NO_TOKEN;
+        this.position = 0;
+        this.marks = new int[4];
+        this.furthest = NO_TOKEN;
+    }
+
+    public TokenSource getTokens() {
+        return tokens;
+    }
+
+    public void advance() throws IndexOutOfBoundsException {
+        this.reach(this.position);
+
+        if (this.tokens.fetch(this.position)) {
+            this.current = this.position;
+            this.position++;
+            this.tokens.discardBefore(this.markCount > 0 ? Math.min(this.marks[0], this.current) : this.current);
+        } else {
+            throw new IndexOutOfBoundsException("No more tokens");
+        }
+    }
+
+    // Há token depois do corrente
+    public boolean hasNext() {
+        this.reach(this.position);
+        return this.tokens.fetch(this.position);
+    }
+
+    private void reach(int index) {
+        if (index > this.furthest) {
+            this.furthest = index;
+        }
+    }
+
+    // Maior índice já consultado, existente ou não: o que foi lido até aqui depende só dos tokens até ele
+    public int furthest() {
+        return furthest;
+    }
+
+    // Retém o token corrente e os seguintes até o release correspondente; retorna a posição para o rollback
+    public int mark() {
+        if (this.markCount == this.marks.length) {
+            this.marks = Arrays.copyOf(this.marks, this.markCount * 2);
+        }
+
+        this.marks[this.markCount++] = Math.max(this.current, 0);
+        return this.position;
+    }
+
+    public void release() {
+        this.markCount--;
+    }
+
+    // Índice do token corrente
+    public int current() {
+        return current;
+    }
+
+    // Índice do próximo token a ser lido
+    public int position() {
+        return position;
+    }
+
+    public void rollback(int position) {
+        this.tokens.getLine(position); // valida o índice
+        this.current = position;
+        this.position = position;
+    }
+
+    // Leva o cursor a um estado lido antes de current() e position(), em qualquer direção
+    public void restore(int current, int position) {
+        this.reach(position);
+        this.tokens.fetch(position);
+        this.current = current;
+        this.position = position;
+    }
+
+    public int peek(int offset) {
+        int index = this.position + offset;
+        this.reach(index);
+        return this.tokens.fetch(index) ? index : NO_TOKEN;
+    }
+
+    public TokenKind getKind() {
+        return this.getKind(this.current);
+    }
+
+    public String getType() {
+        return this.getType(this.current);
+    }
+
+    public Keyword getKeyword() {
+        return this.getKeyword(this.current);
+    }
+
+    public String getValue() {
+        return this.getValue(this.current);
+    }
+
+    public int getLine() {
+        return this.getLine(this.current);
+    }
+
+    public Token getToken() {
+        return this.current == NO_TOKEN ? Token.EMPTY_TOKEN : this.tokens.getToken(this.current);
+    }
+
+    public boolean is(String terminal) {
+        return this.is(this.current, terminal);
+    }
+
+    public boolean is(Keyword keyword) {
+        return this.is(this.current, keyword);
+    }
+
+    public boolean isType(TokenKind kind) {
+        return this.isType(this.current, kind);
+    }
+
+    // Antes do primeiro token, o cursor está em qualquer conjunto
+    public boolean isIn(TokenSet set) {
+        return this.current == NO_TOKEN || set.contains(this.tokens.getKind(this.current), this.tokens.getKeyword(this.current), this.tokens.getSingleChar(this.current));
+    }
+
+    public TokenKind getKind(int token) {
+        return token == NO_TOKEN ? Token.EMPTY_TOKEN.getKind() : this.tokens.getKind(token);
+    }
+
+    public String getType(int token) {
+        return this.getKind(token).getCode();
+    }
+
+    public Keyword getKeyword(int token) {
+        return token == NO_TOKEN ? null : this.tokens.getKeyword(token);
+    }
+
+    public String getValue(int token) {
+        return token == NO_TOKEN ? Token.EMPTY_TOKEN.getValue() : this.tokens.getValue(token);
+    }
+
+    public int getLine(int token) {
+        return token == NO_TOKEN ? Token.EMPTY_TOKEN.getLine() : this.tokens.getLine(token);
+    }
+
+    public boolean is(int token, String terminal) {
+        return token == NO_TOKEN ? terminal.isEmpty() : this.tokens.valueEquals(token, terminal);
+    }
+
+    public boolean is(int token, Keyword keyword) {
+        return token != NO_TOKEN && this.tokens.getKeyword(token) == keyword;
+    }
+
+    public boolean isType(int token, TokenKind kind) {
+        return token == NO_TOKEN ? kind == TokenKind.EMPTY : this.tokens.getKind(token) == kind;
+    }
+}
@@ -0,0 +1,44 @@
+package model.token;
+
+// Categorias de token. O código de três letras é o mesmo de TokenTypes e continua sendo o que aparece nas saídas.
+public enum TokenKind {
+    RESERVED_WORD(TokenTypes.RESERVED_WORD),
+    IDENTIFIER(TokenTypes.IDENTIFIER),
+    NUMBER(TokenTypes.NUMBER),
+    RELATIONAL_OPERATOR(TokenTypes.RELATIONAL_OPERATOR),
+    LOGICAL_OPERATOR(TokenTypes.LOGICAL_OPERATOR),
+    ARITHMETICAL_OPERATOR(TokenTypes.ARITHMETICAL_OPERATOR),
+    DELIMITER(TokenTypes.DELIMITER),
+    STRING(TokenTypes.STRING),
+    SPACE(TokenTypes.SPACE),
+    BLOCK_COMMENT_START(TokenTypes.BLOCK_COMMENT_START),
+    BLOCK_COMMENT_END(TokenTypes.BLOCK_COMMENT_END),
+    LINE_COMMENT(TokenTypes.LINE_COMMENT),
+    INVALID_TOKEN(TokenTypes.INVALID_TOKEN),
+    NO_MORE_TOKENS(TokenTypes.NO_MORE_TOKENS),
+    EMPTY("");
+
+    public static final TokenKind[] PRIMITIVE_TYPES =
+            {RESERVED_WORD, NUMBER, ARITHMETICAL_OPERATOR, LOGICAL_OPERATOR, RELATIONAL_OPERATOR, DELIMITER};
+
+    private static final TokenKind[] KINDS = values();
+
+    private final String code;
+
+    TokenKind(String code) {
+        this.code = code;
+    }
+
+    public static TokenKind valueOf(int ordinal) {
+        return KINDS[ordinal];
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
@@ -0,0 +1,81 @@
+package model.token;
+
+// Conjunto de tokens em um long: um bit por TokenKind, um por Keyword e um por terminal de um caractere
+// (delimitadores e "="). Os conjuntos são montados uma vez e o teste de um token é O(1), sem comparar lexemas.
+public final class TokenSet {
+    private static final String TERMINALS = ";,.()[]{}=";
+    private static final int KEYWORD_BITS = TokenKind.values().length;
+    private static final int TERMINAL_BITS = KEYWORD_BITS + Keyword.values().length;
+
+    static {
+        if (TERMINAL_BITS + TERMINALS.length() > Long.SIZE) {
+            throw new IllegalStateException("TokenSet não cabe em um long");
+        }
+    }
+
+    private final long bits;
+
+    private TokenSet(long bits) {
+        this.bits = bits;
+    }
+
+    public static TokenSet of(TokenKind... kinds) {
+        long bits = 0;
+
+        for (TokenKind kind : kinds) {
+            bits |= 1L << kind.ordinal();
+        }
+
+        return new TokenSet(bits);
+    }
+
+    public static TokenSet of(Keyword... keywords) {
+        long bits = 0;
+
+        for (Keyword keyword : keywords) {
+            bits |= 1L << (KEYWORD_BITS + keyword.ordinal());
+        }
+
+        return new TokenSet(bits);
+    }
+
+    // Cada caractere de terminals é um terminal: TokenSet.terminals(";,") tem ";" e ","
+    public static TokenSet terminals(String terminals) {
+        long bits = 0;
+
+        for (int i = 0; i < terminals.length(); i++) {
+            int terminal = TERMINALS.indexOf(terminals.charAt(i));
+
+            if (terminal < 0) {
+                throw new IllegalArgumentException("Terminal fora de " + TERMINALS + ": " + terminals.charAt(i));
+            }
+
+            bits |= 1L << (TERMINAL_BITS + terminal);
+        }
+
+        return new TokenSet(bits);
+    }
+
+    public TokenSet union(TokenSet other) {
+        return new TokenSet(this.bits | other.bits);
+    }
+
+    // keyword é null e terminal é 0 quando o token não é palavra reservada ou tem mais de um caractere
+    public boolean contains(TokenKind kind, Keyword keyword, char terminal) {
+        long token = 1L << kind.ordinal();
+
+        if (keyword != null) {
+            token |= 1L << (KEYWORD_BITS + keyword.ordinal());
+        }
+
+        if (terminal != 0) {
+            int index = TERMINALS.indexOf(terminal);
+
+            if (index >= 0) {
+                token |= 1L << (TERMINAL_BITS + index);
+            }
+        }
+
+        return (this.bits & token) != 0;
+    }
+}
@@ -0,0 +1,30 @@
+package model.token;
+
+// Origem de tokens acessada por índice pelo TokenCursor.
+// Um TokenStream já tem todos os tokens em memória; uma origem sob demanda lê a entrada só até o índice pedido
+// e pode descartar os tokens que o cursor não vai mais consultar.
+public interface TokenSource {
+    // Garante que o token de índice index foi lido; retorna false se a entrada terminou antes dele
+    boolean fetch(int index);
+
+    // Os tokens anteriores a index não serão mais consultados
+    void discardBefore(int index);
+
+    TokenKind getKind(int index);
+
+    Keyword getKeyword(int index);
+
+    int getLine(int index);
+
+    String getValue(int index);
+
+    boolean valueEquals(int index, String value);
+
+    // Caractere do lexema se ele tem um caractere só, ou 0
+    char getSingleChar(int index);
+
+    // Mesmo valor de getValue(index).hashCode(), sem criar a String
+    int getValueHash(int index);
+
+    Token getToken(int index);
+}
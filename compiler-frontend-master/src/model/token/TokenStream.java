@@ -0,0 +1,290 @@
+package model.token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Sequência de tokens armazenada em arrays paralelos (tipo, palavra reservada, linha, posição e tamanho do lexema).
+// Os lexemas apontam para o próprio texto de entrada quando são contíguos nele; os demais
+// (números negativos com espaços, lexemas de linhas copiadas) são guardados em um texto auxiliar.
+public class TokenStream implements TokenSource {
+    private final char[] source;
+    private char[] pool;
+    private int poolLength;
+
+    private byte[] kinds;
+    private byte[] keywords; // ordinal da palavra reservada, ou -1
+    private int[] lines;
+    private int[] offsets; // >= 0: posição no texto de entrada; < 0: posição (-offset - 1) no texto auxiliar
+    private int[] lengths;
+    private int size;
+
+    public TokenStream() {
+        this(null);
+    }
+
+    public TokenStream(char[] source) {
+        this(source, 256);
+    }
+
+    // Com espaço para capacity tokens, quando o número de tokens é conhecido
+    public TokenStream(char[] source, int capacity) {
+        this.source = source;
+        this.pool = new char[256];
+        this.kinds = new byte[capacity];
+        this.keywords = new byte[capacity];
+        this.lines = new int[capacity];
+        this.offsets = new int[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    public static TokenStream of(List<Token> tokens) {
+        TokenStream stream = new TokenStream();
+
+        for (Token token : tokens) {
+            stream.add(token.getKind(), token.getValue(), token.getLine());
+        }
+
+        return stream;
+    }
+
+    // Lexema contido no texto de entrada
+    public void add(TokenKind kind, int line, int offset, int length) {
+        this.append(kind, line, offset, length);
+    }
+
+    // Lexema copiado para o texto auxiliar
+    public void add(TokenKind kind, int line, char[] text, int start, int length) {
+        if (this.poolLength + length > this.pool.length) {
+            this.pool = Arrays.copyOf(this.pool, Math.max(this.pool.length * 2, this.poolLength + length));
+        }
+
+        System.arraycopy(text, start, this.pool, this.poolLength, length);
+        this.append(kind, line, -this.poolLength - 1, length);
+        this.poolLength += length;
+    }
+
+    public void add(TokenKind kind, String value, int line) {
+        this.add(kind, line, value.toCharArray(), 0, value.length());
+    }
+
+    // Acrescenta os tokens de from a to - 1 de tokens, com as linhas deslocadas de lineShift; a linha -1 (fim do
+    // arquivo) não muda. Os lexemas que estão no mesmo texto de entrada continuam apontando para ele
+    public void addAll(TokenStream tokens, int from, int to, int lineShift) {
+        int count = to - from;
+
+        if (this.size + count > this.kinds.length) {
+            this.grow(Math.max(this.kinds.length * 2, this.size + count));
+        }
+
+        System.arraycopy(tokens.kinds, from, this.kinds, this.size, count);
+        System.arraycopy(tokens.keywords, from, this.keywords, this.size, count);
+        System.arraycopy(tokens.lengths, from, this.lengths, this.size, count);
+
+        for (int i = 0; i < count; i++) {
+            int line = tokens.lines[from + i];
+            int offset = tokens.offsets[from + i];
+            int length = tokens.lengths[from + i];
+
+            this.lines[this.size + i] = line == -1 ? line : line + lineShift;
+
+            if (offset >= 0 && tokens.source == this.source) {
+                this.offsets[this.size + i] = offset;
+            } else {
+                if (this.poolLength + length > this.pool.length) {
+                    this.pool = Arrays.copyOf(this.pool, Math.max(this.pool.length * 2, this.poolLength + length));
+                }
+
+                tokens.getValueChars(from + i, this.pool, this.poolLength);
+                this.offsets[this.size + i] = -this.poolLength - 1;
+                this.poolLength += length;
+            }
+        }
+
+        this.size += count;
+    }
+
+    private void append(TokenKind kind, int line, int offset, int length) {
+        if (this.size == this.kinds.length) {
+            this.grow(Math.max(this.size * 2, 16));
+        }
+
+        this.kinds[this.size] = (byte) kind.ordinal();
+        this.lines[this.size] = line;
+        this.offsets[this.size] = offset;
+        this.lengths[this.size] = length;
+        this.keywords[this.size] = kind == TokenKind.RESERVED_WORD ? this.internKeyword(this.size) : -1;
+        this.size++;
+    }
+
+    private void grow(int capacity) {
+        this.kinds = Arrays.copyOf(this.kinds, capacity);
+        this.keywords = Arrays.copyOf(this.keywords, capacity);
+        this.lines = Arrays.copyOf(this.lines, capacity);
+        this.offsets = Arrays.copyOf(this.offsets, capacity);
+        this.lengths = Arrays.copyOf(this.lengths, capacity);
+    }
+
+    // Identifica a palavra reservada percorrendo o lexema no autômato, sem criar uma String
+    private byte internKeyword(int index) {
+        LexemeAutomaton automaton = LexemeAutomaton.getInstance();
+        int state = LexemeAutomaton.START_STATE;
+
+        for (int i = 0; i < this.lengths[index] && state != LexemeAutomaton.DEAD_STATE; i++) {
+            state = automaton.next(state, this.charAt(index, i));
+        }
+
+        Keyword keyword = automaton.keyword(state);
+        return (byte) (keyword == null ? -1 : keyword.ordinal());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Esvazia a sequência mantendo os arrays já alocados
+    public void clear() {
+        this.size = 0;
+        this.poolLength = 0;
+    }
+
+    @Override
+    public boolean fetch(int index) {
+        return index < this.size;
+    }
+
+    @Override
+    public void discardBefore(int index) {
+        // Todos os tokens ficam em memória
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+    }
+
+    @Override
+    public TokenKind getKind(int index) {
+        this.checkIndex(index);
+        return TokenKind.valueOf(this.kinds[index]);
+    }
+
+    public String getType(int index) {
+        return this.getKind(index).getCode();
+    }
+
+    public boolean isKind(int index, TokenKind kind) {
+        this.checkIndex(index);
+        return this.kinds[index] == kind.ordinal();
+    }
+
+    // Palavra reservada do token, ou null se ele não for uma
+    @Override
+    public Keyword getKeyword(int index) {
+        this.checkIndex(index);
+        return this.keywords[index] < 0 ? null : Keyword.valueOf(this.keywords[index]);
+    }
+
+    public boolean isKeyword(int index, Keyword keyword) {
+        this.checkIndex(index);
+        return this.keywords[index] == keyword.ordinal();
+    }
+
+    @Override
+    public int getLine(int index) {
+        this.checkIndex(index);
+        return this.lines[index];
+    }
+
+    @Override
+    public String getValue(int index) {
+        this.checkIndex(index);
+        int offset = this.offsets[index];
+
+        if (offset >= 0) {
+            return new String(this.source, offset, this.lengths[index]);
+        }
+
+        return new String(this.pool, -offset - 1, this.lengths[index]);
+    }
+
+    public int getLength(int index) {
+        this.checkIndex(index);
+        return this.lengths[index];
+    }
+
+    // Copia o lexema para dest a partir de destStart, como String.getChars
+    public void getValueChars(int index, char[] dest, int destStart) {
+        this.checkIndex(index);
+        int offset = this.offsets[index];
+
+        if (offset >= 0) {
+            System.arraycopy(this.source, offset, dest, destStart, this.lengths[index]);
+        } else {
+            System.arraycopy(this.pool, -offset - 1, dest, destStart, this.lengths[index]);
+        }
+    }
+
+    private char charAt(int index, int position) {
+        int offset = this.offsets[index];
+
+        if (offset >= 0) {
+            return this.source[offset + position];
+        }
+
+        return this.pool[-offset - 1 + position];
+    }
+
+    // Compara o lexema sem criar uma String
+    @Override
+    public boolean valueEquals(int index, String value) {
+        this.checkIndex(index);
+        int length = this.lengths[index];
+
+        if (length != value.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (this.charAt(index, i) != value.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public char getSingleChar(int index) {
+        this.checkIndex(index);
+        return this.lengths[index] == 1 ? this.charAt(index, 0) : 0;
+    }
+
+    @Override
+    public int getValueHash(int index) {
+        this.checkIndex(index);
+        int hash = 0;
+
+        for (int i = 0; i < this.lengths[index]; i++) {
+            hash = 31 * hash + this.charAt(index, i);
+        }
+
+        return hash;
+    }
+
+    @Override
+    public Token getToken(int index) {
+        return new Token(this.getKind(index), this.getValue(index), this.getLine(index));
+    }
+
+    public List<Token> toList() {
+        List<Token> tokens = new ArrayList<>(this.size);
+
+        for (int i = 0; i < this.size; i++) {
+            tokens.add(this.getToken(i));
+        }
+
+        return tokens;
+    }
+}